@@ -0,0 +1,133 @@
+package com.cabinet.springbootcabinetcomptablemanagement.benchmarks;
+
+import com.cabinet.springbootcabinetcomptablemanagement.services.Impl.FileStorageServiceImpl;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.LocalStorageBackend;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StoredFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Concurrent uploads served the way Tomcat would: one task per request, on a pool of 200 platform threads
+ * (server.tomcat.threads.max default) or on one virtual thread per request (virtual-threads profile).
+ *
+ * Each upload stores a 256 KB PDF through FileStorageServiceImpl (copy + SHA-256 + atomic move) and deletes it.
+ * The request body arrives from a slow client: every 64 KB read waits {@code clientDelayMillis},
+ * which is the blocking that dominates real uploads. One operation = the whole batch of
+ * {@code concurrentUploads}, so uploads/s = concurrentUploads / score.
+ *
+ * virtual needs a Java 21 runtime: mvn -Pbenchmark,java21 compile exec:exec -Djmh.args="ConcurrentUploadBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentUploadBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int FILE_SIZE = 256 * 1024;
+
+    @Param({"platform", "virtual"})
+    private String threading;
+
+    @Param({"200", "1000"})
+    private int concurrentUploads;
+
+    @Param({"5"})
+    private long clientDelayMillis;
+
+    private Path uploadDir;
+    private FileStorageServiceImpl storageService;
+    private ExecutorService executor;
+    private List<InMemoryMultipartFile> uploads;
+
+    @Setup
+    public void setUp() throws IOException {
+        uploadDir = Files.createTempDirectory("jmh-concurrent-upload");
+        storageService = new FileStorageServiceImpl(uploadDir.toString(), DataSize.ofMegabytes(20), "none", 6, false,
+                new LocalStorageBackend(uploadDir), Optional.empty(), new SimpleMeterRegistry());
+        executor = "virtual".equals(threading)
+                ? newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+
+        uploads = new ArrayList<>(concurrentUploads);
+        for (int i = 0; i < concurrentUploads; i++) {
+            uploads.add(new SlowClientMultipartFile(InMemoryMultipartFile.pdf(FILE_SIZE, i), clientDelayMillis));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        FileSystemUtils.deleteRecursively(uploadDir);
+    }
+
+    @Benchmark
+    public long uploadBatch() throws Exception {
+        List<Future<StoredFile>> results = new ArrayList<>(concurrentUploads);
+        for (InMemoryMultipartFile upload : uploads) {
+            results.add(executor.submit(() -> {
+                StoredFile stored = storageService.storeFile(upload);
+                storageService.deleteFile(stored.getFileName());
+                return stored;
+            }));
+        }
+        long bytes = 0;
+        for (Future<StoredFile> result : results) {
+            bytes += result.get().getSize();
+        }
+        return bytes;
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() looked up at runtime, the benchmarks compile for Java 17
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Les threads virtuels nécessitent Java 21 (profil Maven java21)", ex);
+        }
+    }
+
+    /**
+     * Upload whose body is received in 64 KB chunks from a slow client
+     */
+    private static final class SlowClientMultipartFile extends InMemoryMultipartFile {
+
+        private final long delayNanos;
+
+        private SlowClientMultipartFile(InMemoryMultipartFile content, long delayMillis) {
+            super(content.getOriginalFilename(), content.getContentType(), content.getBytes());
+            this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    LockSupport.parkNanos(delayNanos);
+                    return super.read(b, off, Math.min(len, 64 * 1024));
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.cabinet.springbootcabinetcomptablemanagement.benchmarks;
+
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Societe;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building one page of DocumentResponseDTO (default page size of the list endpoints)
+ * entity: copy from hydrated Document/Societe entities (old list endpoints)
+ * projection: constructor expression arguments, as Hibernate does for the keyset page query
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentMappingBenchmark {
+
+    @Param({"50", "200"})
+    private int pageSize;
+
+    private List<Document> documents;
+
+    @Setup
+    public void setUp() {
+        Societe societe = new Societe();
+        societe.setId(1L);
+        societe.setRaisonSociale("TechnoMaroc SARL");
+
+        documents = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Document document = new Document();
+            document.setId((long) i);
+            document.setNumeroPiece("FA-2024-" + i);
+            document.setType(Document.TypeDocument.FACTURE_ACHAT);
+            document.setCategorieComptable("Achats");
+            document.setDatePiece(LocalDate.of(2024, 1, 1).plusDays(i % 365));
+            document.setMontant(BigDecimal.valueOf(1000 + i, 2));
+            document.setFournisseur("Fournisseur " + i);
+            document.setNomFichierOriginal("facture-" + i + ".pdf");
+            document.setTailleFichier(120_000L + i);
+            document.setTypeMime("application/pdf");
+            document.setStatut(Document.StatutDocument.EN_ATTENTE);
+            document.setExerciceComptable("2024");
+            document.setCreatedAt(LocalDateTime.of(2024, 6, 1, 8, 0).plusMinutes(i));
+            document.setSociete(societe);
+            documents.add(document);
+        }
+    }
+
+    @Benchmark
+    public void fromEntity(Blackhole blackhole) {
+        for (Document document : documents) {
+            blackhole.consume(new DocumentResponseDTO(document));
+        }
+    }
+
+    @Benchmark
+    public void fromProjection(Blackhole blackhole) {
+        for (Document d : documents) {
+            blackhole.consume(new DocumentResponseDTO(d.getId(), d.getNumeroPiece(), d.getType(),
+                    d.getCategorieComptable(), d.getDatePiece(), d.getMontant(), d.getFournisseur(),
+                    d.getNomFichierOriginal(), d.getTailleFichier(), d.getTypeMime(), d.getStatut(),
+                    d.getCommentaireComptable(), d.getDateValidation(), d.getCreatedAt(), d.getUpdatedAt(), d.getVersion(),
+                    d.getSociete().getId(), d.getSociete().getRaisonSociale()));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.cabinet.springbootcabinetcomptablemanagement.benchmarks;
+
+import com.cabinet.springbootcabinetcomptablemanagement.SpringbootCabinetComptableManagementApplication;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentPageRequestDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.CursorPageResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentCursor;
+import com.cabinet.springbootcabinetcomptablemanagement.services.DocumentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Document read paths against an H2 database seeded with 100k documents
+ * (20 sociétés, 5 exercices, every statut), through DocumentService so the
+ * read-only transactions and DTO projections are part of the measure.
+ * The application context is started without the web layer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentRepositoryBenchmark {
+
+    private static final int DOCUMENT_COUNT = 100_000;
+    private static final int SOCIETE_COUNT = 20;
+    private static final String[] EXERCICES = {"2020", "2021", "2022", "2023", "2024"};
+    private static final int BATCH_SIZE = 5_000;
+
+    private ConfigurableApplicationContext context;
+    private Path uploadDir;
+    private DocumentService documentService;
+    private Long societeId;
+    private DocumentPageRequestDTO firstPage;
+    private DocumentPageRequestDTO deepPage;
+
+    @Setup
+    public void setUp() throws IOException {
+        uploadDir = Files.createTempDirectory("jmh-repository");
+        // Command line arguments, so they override application.properties (show-sql would dominate the measure)
+        context = new SpringApplicationBuilder(SpringbootCabinetComptableManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:jmh_documents;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--logging.level.root=WARN",
+                        "--file.upload-dir=" + uploadDir);
+        documentService = context.getBean(DocumentService.class);
+        societeId = seed(context.getBean(JdbcTemplate.class));
+
+        firstPage = new DocumentPageRequestDTO();
+        // Cursor in the middle of the société's history: a keyset page must cost the same as the first one
+        deepPage = new DocumentPageRequestDTO();
+        deepPage.setCursor(new DocumentCursor(LocalDateTime.of(2024, 1, 1, 0, 0)
+                .minusMinutes(DOCUMENT_COUNT / 2), Long.MAX_VALUE).encode());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        FileSystemUtils.deleteRecursively(uploadDir.toFile());
+    }
+
+    @Benchmark
+    public CursorPageResponseDTO<DocumentResponseDTO> firstPageBySociete() {
+        return documentService.getDocumentsPage(societeId, null, null, firstPage);
+    }
+
+    @Benchmark
+    public CursorPageResponseDTO<DocumentResponseDTO> deepPageBySociete() {
+        return documentService.getDocumentsPage(societeId, null, null, deepPage);
+    }
+
+    @Benchmark
+    public CursorPageResponseDTO<DocumentResponseDTO> firstPageBySocieteAndExercice() {
+        return documentService.getDocumentsPage(societeId, "2023", null, firstPage);
+    }
+
+    @Benchmark
+    public CursorPageResponseDTO<DocumentResponseDTO> pendingQueueFirstPage() {
+        return documentService.getDocumentsPage(null, null, Document.StatutDocument.EN_ATTENTE, firstPage);
+    }
+
+    @Benchmark
+    public List<Document> allOfSocieteAndExercice() {
+        return documentService.getDocumentBySocieteAndExercice(societeId, "2023");
+    }
+
+    /**
+     * Bulk JDBC insert (the JPA path would dominate setup time), then ANALYZE for realistic plans
+     *
+     * @return id of the first seeded société
+     */
+    private static Long seed(JdbcTemplate jdbcTemplate) {
+        List<Long> societeIds = new ArrayList<>();
+        for (int s = 0; s < SOCIETE_COUNT; s++) {
+            jdbcTemplate.update("INSERT INTO societes (raison_sociale, ice, adresse, telephone, email_contact, actif, created_at) "
+                            + "VALUES (?, ?, ?, ?, ?, TRUE, CURRENT_TIMESTAMP)",
+                    "Société JMH " + s, "ICE-JMH-" + s, "Adresse " + s, "0522000000", "jmh" + s + "@societe.ma");
+            societeIds.add(jdbcTemplate.queryForObject(
+                    "SELECT id FROM societes WHERE ice = ?", Long.class, "ICE-JMH-" + s));
+        }
+
+        Document.StatutDocument[] statuts = Document.StatutDocument.values();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < DOCUMENT_COUNT; i++) {
+            String exercice = EXERCICES[(i / SOCIETE_COUNT) % EXERCICES.length];
+            batch.add(new Object[]{
+                    "JMH-" + i,
+                    Document.TypeDocument.FACTURE_ACHAT.name(),
+                    "Achats",
+                    Date.valueOf(LocalDate.of(Integer.parseInt(exercice), 1, 1).plusDays(i % 365)),
+                    1000 + (i % 5000),
+                    "Fournisseur " + (i % 500),
+                    "jmh/" + i,
+                    "facture-" + i + ".pdf",
+                    statuts[i % statuts.length].name(),
+                    societeIds.get(i % SOCIETE_COUNT),
+                    exercice,
+                    Timestamp.valueOf(start.minusMinutes(i))
+            });
+            if (batch.size() == BATCH_SIZE) {
+                insertDocuments(jdbcTemplate, batch);
+                batch.clear();
+            }
+        }
+        insertDocuments(jdbcTemplate, batch);
+        jdbcTemplate.execute("ANALYZE");
+        return societeIds.get(0);
+    }
+
+    private static void insertDocuments(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO documents (id, numero_piece, type, categorie_comptable, date_piece, montant, "
+                + "fournisseur, chemin_fichier, nom_fichier_original, statut, societe_id, exercice_comptable, created_at, version) "
+                + "VALUES (NEXT VALUE FOR documents_seq, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", rows);
+    }
+}
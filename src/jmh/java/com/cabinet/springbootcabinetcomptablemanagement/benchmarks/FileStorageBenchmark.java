@@ -0,0 +1,80 @@
+package com.cabinet.springbootcabinetcomptablemanagement.benchmarks;
+
+import com.cabinet.springbootcabinetcomptablemanagement.services.Impl.FileStorageServiceImpl;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.LocalStorageBackend;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StoredFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FileStorageServiceImpl on the local disk (uuid layout, no database needed)
+ * store: single pass copy + SHA-256 + signature check, then atomic move; the stored file is
+ * deleted in the same invocation so the disk does not fill up (deletion is part of the measure).
+ * loadBytes: legacy byte[] download path. loadResource: streamed download path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStorageBenchmark {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Param({"102400", "1048576", "10485760"})
+    private int fileSize;
+
+    private Path uploadDir;
+    private FileStorageServiceImpl storageService;
+    private InMemoryMultipartFile upload;
+    private String storedFileName;
+
+    @Setup
+    public void setUp() throws IOException {
+        uploadDir = Files.createTempDirectory("jmh-storage");
+        storageService = new FileStorageServiceImpl(uploadDir.toString(), DataSize.ofMegabytes(20), "none", 6, false,
+                new LocalStorageBackend(uploadDir), Optional.empty(), new SimpleMeterRegistry());
+        upload = InMemoryMultipartFile.pdf(fileSize, 42L);
+        storedFileName = storageService.storeFile(upload).getFileName();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(uploadDir);
+    }
+
+    @Benchmark
+    public StoredFile store() {
+        StoredFile stored = storageService.storeFile(upload);
+        storageService.deleteFile(stored.getFileName());
+        return stored;
+    }
+
+    @Benchmark
+    public byte[] loadBytes() {
+        return storageService.loadFile(storedFileName);
+    }
+
+    @Benchmark
+    public void loadResource(Blackhole blackhole) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = storageService.loadFileAsResource(storedFileName).getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                blackhole.consume(read);
+            }
+        }
+        blackhole.consume(buffer);
+    }
+}
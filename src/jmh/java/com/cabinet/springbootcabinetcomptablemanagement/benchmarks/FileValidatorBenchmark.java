@@ -0,0 +1,61 @@
+package com.cabinet.springbootcabinetcomptablemanagement.benchmarks;
+
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentRequestDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.validation.FileValidator;
+import com.cabinet.springbootcabinetcomptablemanagement.validation.ValidFile;
+import jakarta.validation.ConstraintValidatorContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FileValidator.isValid as configured on DocumentRequestDTO.fichier, accepted and rejected uploads
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileValidatorBenchmark {
+
+    private FileValidator validator;
+    private ConstraintValidatorContext context;
+    private InMemoryMultipartFile validPdf;
+    private InMemoryMultipartFile wrongType;
+
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        validator = new FileValidator();
+        validator.initialize(DocumentRequestDTO.class.getDeclaredField("fichier").getAnnotation(ValidFile.class));
+        context = noOpContext();
+
+        validPdf = InMemoryMultipartFile.pdf(100 * 1024, 1L);
+        wrongType = new InMemoryMultipartFile("facture.exe", "application/octet-stream", validPdf.getBytes());
+    }
+
+    @Benchmark
+    public boolean validPdf() {
+        return validator.isValid(validPdf, context);
+    }
+
+    @Benchmark
+    public boolean rejectedType() {
+        return validator.isValid(wrongType, context);
+    }
+
+    /**
+     * Context whose builder methods return itself, enough for the violation messages FileValidator builds
+     */
+    private static ConstraintValidatorContext noOpContext() {
+        Class<?>[] interfaces = {
+                ConstraintValidatorContext.class,
+                ConstraintValidatorContext.ConstraintViolationBuilder.class
+        };
+        Object[] self = new Object[1];
+        self[0] = Proxy.newProxyInstance(FileValidatorBenchmark.class.getClassLoader(), interfaces,
+                (proxy, method, args) -> method.getReturnType().isInstance(self[0]) ? self[0] : null);
+        return (ConstraintValidatorContext) self[0];
+    }
+}
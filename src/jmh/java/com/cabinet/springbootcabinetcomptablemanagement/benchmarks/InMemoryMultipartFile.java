@@ -0,0 +1,84 @@
+package com.cabinet.springbootcabinetcomptablemanagement.benchmarks;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Byte-array backed MultipartFile, the benchmark classpath does not include spring-test's MockMultipartFile
+ */
+class InMemoryMultipartFile implements MultipartFile {
+
+    private final String originalFilename;
+    private final String contentType;
+    private final byte[] content;
+
+    InMemoryMultipartFile(String originalFilename, String contentType, byte[] content) {
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.content = content;
+    }
+
+    /**
+     * PDF of the requested size: real %PDF- signature followed by pseudo-random bytes
+     */
+    static InMemoryMultipartFile pdf(int size, long seed) {
+        byte[] content = new byte[size];
+        new Random(seed).nextBytes(content);
+        byte[] magic = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(magic, 0, content, 0, Math.min(magic.length, size));
+        return new InMemoryMultipartFile("facture.pdf", "application/pdf", content);
+    }
+
+    @Override
+    public String getName() {
+        return "fichier";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return content.length == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return content.length;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        return content;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.write(dest.toPath(), content);
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException {
+        Files.write(dest, content);
+    }
+}
@@ -0,0 +1,76 @@
+package com.cabinet.springbootcabinetcomptablemanagement.benchmarks;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Societe;
+import com.cabinet.springbootcabinetcomptablemanagement.models.User;
+import com.cabinet.springbootcabinetcomptablemanagement.security.AuthenticatedUser;
+import com.cabinet.springbootcabinetcomptablemanagement.security.JwtTokenProvider;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token handling done by JwtAuthenticationFilter for every authenticated request
+ *
+ * legacy: what the filter used to do, i.e. validateToken then getEmailFromToken,
+ * each rebuilding the HMAC key and the parser and verifying the signature.
+ * current: cached key and parser, one parse returning the claims the principal is built from.
+ * generate: token issued at login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "VotreCleSecreteTresLongueEtComplexePourLeJWT2024AlAmane";
+
+    private JwtTokenProvider tokenProvider;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new JwtTokenProvider(SECRET, 86_400_000L, new SimpleMeterRegistry());
+
+        Societe societe = new Societe();
+        societe.setId(1L);
+        user = new User();
+        user.setId(42L);
+        user.setEmail("mohamed@societe.com");
+        user.setRole(User.Role.SOCIETE);
+        user.setSociete(societe);
+        token = tokenProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public String legacyValidateThenExtract() {
+        Jwts.parser().verifyWith(legacySigningKey()).build().parseSignedClaims(token);
+        return Jwts.parser().verifyWith(legacySigningKey()).build()
+                .parseSignedClaims(token)
+                .getPayload()
+                .getSubject();
+    }
+
+    @Benchmark
+    public AuthenticatedUser cachedParserSingleParse() {
+        return tokenProvider.parseToken(token)
+                .flatMap(tokenProvider::toPrincipal)
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public String generate() {
+        return tokenProvider.generateToken(user);
+    }
+
+    private static SecretKey legacySigningKey() {
+        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,189 @@
+package com.cabinet.springbootcabinetcomptablemanagement.benchmarks;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logging done on the request thread for one authenticated GET /api/documents, with 8 concurrent requests
+ *
+ * legacy: the JwtAuthenticationFilter System.out DEBUG lines, the show-sql echo of the list query
+ * (System.out, format_sql) and the two controller log lines through a synchronous console appender.
+ * sync: System.out and SQL echo removed (prod profile), controller lines still written synchronously.
+ * async: same lines behind the AsyncAppender of logback-spring.xml, with the correlation ID in the MDC.
+ *
+ * The sink either costs nothing (formatting and lock contention only) or blocks on every write.
+ * With a blocking sink the async queue absorbs bursts (8192 events) without stalling request threads,
+ * but once it is full the sustained rate is the sink's: dropping the System.out and SQL lines is what
+ * raises throughput, the AsyncAppender takes the remaining writes off the request path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class RequestLoggingBenchmark {
+
+    private static final String PATTERN =
+            "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%t] [%X{correlationId:-}] %-40.40logger{39} : %m%n";
+
+    private static final String FORMATTED_SQL = """
+            Hibernate:\s
+                select
+                    d1_0.id,
+                    d1_0.numero_piece,
+                    d1_0.type,
+                    d1_0.categorie_comptable,
+                    d1_0.date_piece,
+                    d1_0.montant,
+                    d1_0.fournisseur,
+                    d1_0.chemin_fichier,
+                    d1_0.nom_fichier_original,
+                    d1_0.statut,
+                    d1_0.exercice_comptable,
+                    d1_0.societe_id,
+                    s1_0.raison_sociale\s
+                from
+                    documents d1_0\s
+                join
+                    societes s1_0\s
+                        on s1_0.id=d1_0.societe_id\s
+                where
+                    d1_0.societe_id=?\s
+                order by
+                    d1_0.societe_id desc,
+                    d1_0.created_at desc,
+                    d1_0.id desc\s
+                fetch
+                    first ? rows only""";
+
+    private static final List<String> AUTHORITIES = List.of("ROLE_SOCIETE");
+
+    /**
+     * Time the sink needs per write: 0 for a null sink (CPU cost only), otherwise the request thread
+     * (sync) or the appender worker (async) waits that long on every write, like a slow console or pipe
+     */
+    @Param({"0", "20"})
+    private long sinkLatencyMicros;
+
+    private LoggerContext loggerContext;
+    private PrintStream stdout;
+    private Logger syncLogger;
+    private Logger asyncLogger;
+
+    @Setup
+    public void setUp() {
+        loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        loggerContext.reset();
+
+        // Même construction que System.out: BufferedOutputStream de 128 octets, autoflush à chaque println
+        stdout = new PrintStream(new BufferedOutputStream(sink(), 128), true,
+                StandardCharsets.UTF_8);
+
+        syncLogger = logger("benchmark.sync", consoleAppender("SYNC_CONSOLE"));
+
+        AsyncAppender async = new AsyncAppender();
+        async.setContext(loggerContext);
+        async.setName("ASYNC_CONSOLE");
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(0);
+        async.setIncludeCallerData(false);
+        async.addAppender(consoleAppender("CONSOLE"));
+        async.start();
+        asyncLogger = logger("benchmark.async", async);
+    }
+
+    @TearDown
+    public void tearDown() {
+        loggerContext.stop();
+    }
+
+    @Benchmark
+    public void legacy() {
+        stdout.println("DEBUG: User authorities: " + AUTHORITIES);
+        stdout.println("DEBUG: User enabled: " + true);
+        stdout.println("DEBUG: Authentication set in SecurityContext");
+        syncLogger.info("Récupération des documents de la société: {}", 1L);
+        stdout.println(FORMATTED_SQL);
+        syncLogger.info("Nombre de documents trouvés dans la page: {}", 50);
+    }
+
+    @Benchmark
+    public void sync() {
+        syncLogger.debug("Authentification établie pour {} (autorités: {})", "mohamed@societe.com", AUTHORITIES);
+        syncLogger.info("Récupération des documents de la société: {}", 1L);
+        syncLogger.info("Nombre de documents trouvés dans la page: {}", 50);
+    }
+
+    @Benchmark
+    public void async() {
+        MDC.put("correlationId", UUID.randomUUID().toString());
+        try {
+            asyncLogger.debug("Authentification établie pour {} (autorités: {})", "mohamed@societe.com", AUTHORITIES);
+            asyncLogger.info("Récupération des documents de la société: {}", 1L);
+            asyncLogger.info("Nombre de documents trouvés dans la page: {}", 50);
+        } finally {
+            MDC.remove("correlationId");
+        }
+    }
+
+    private Logger logger(String name, Appender<ILoggingEvent> appender) {
+        Logger logger = loggerContext.getLogger(name);
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    private OutputStreamAppender<ILoggingEvent> consoleAppender(String name) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern(PATTERN);
+        encoder.setCharset(StandardCharsets.UTF_8);
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(loggerContext);
+        appender.setName(name);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(sink());
+        appender.start();
+        return appender;
+    }
+
+    private OutputStream sink() {
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos(sinkLatencyMicros);
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                if (latencyNanos > 0) {
+                    LockSupport.parkNanos(latencyNanos);
+                }
+            }
+        };
+    }
+}
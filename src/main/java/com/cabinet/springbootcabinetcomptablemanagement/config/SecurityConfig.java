@@ -33,9 +33,10 @@ public class SecurityConfig {
      * Security rules:
      * 1. Disable CSRF (not needed for stateless JWT)
      * 2. Session management: STATELESS (no server-side sessions)
-     * 3. Public endpoints: /api/auth/**, /h2-console/**
-     * 4. All other endpoints require authentication
-     * 5. JWT filter runs before standard authentication filter
+     * 3. Public endpoints: /api/auth/**, /h2-console/**, /actuator/health
+     * 4. /actuator/prometheus: COMPTABLE only (its metrics are tagged per société)
+     * 5. All other endpoints require authentication
+     * 6. JWT filter runs before standard authentication filter
      */
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -55,6 +56,11 @@ public class SecurityConfig {
                 // Public endpoints - no authentication required
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
+                // Probes (other actuator endpoints stay authenticated)
+                .requestMatchers("/actuator/health/**").permitAll()
+                // Prometheus scraping: the pending-documents gauge is tagged per société, so a SOCIETE user
+                // must not read it; the scraper sends a COMPTABLE token (bearer_token in the scrape config)
+                .requestMatchers("/actuator/prometheus").hasAuthority("ROLE_COMPTABLE")
 
                 // All other endpoints require authentication
                 .anyRequest().authenticated()
@@ -0,0 +1,74 @@
+package com.cabinet.springbootcabinetcomptablemanagement.config;
+
+import com.cabinet.springbootcabinetcomptablemanagement.storage.LocalStorageBackend;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.S3StorageBackend;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StorageBackend;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.TieredStorageBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Storage Backend Configuration
+ * file.storage.backend selects where the files live:
+ * - local (default): file.upload-dir
+ * - s3: a bucket of an S3-compatible store (file.storage.s3.*)
+ * - tiered: current fiscal years on the local disk, older ones moved to the bucket by StorageTierMover
+ */
+@Configuration
+@Slf4j
+public class StorageBackendConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "file.storage.backend", havingValue = "local", matchIfMissing = true)
+    public StorageBackend localStorageBackend(@Value("${file.upload-dir}") String uploadDir) {
+        return new LocalStorageBackend(Paths.get(uploadDir));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "file.storage.backend", havingValue = "s3")
+    public StorageBackend s3StorageBackend(@Value("${file.storage.s3.endpoint}") String endpoint,
+                                           @Value("${file.storage.s3.region}") String region,
+                                           @Value("${file.storage.s3.bucket}") String bucket,
+                                           @Value("${file.storage.s3.access-key}") String accessKey,
+                                           @Value("${file.storage.s3.secret-key}") String secretKey,
+                                           @Value("${file.storage.s3.path-style:true}") boolean pathStyle,
+                                           @Value("${file.storage.s3.request-timeout:60s}") Duration requestTimeout) {
+        log.info("Stockage des fichiers dans le bucket {} ({})", bucket, endpoint);
+        return new S3StorageBackend(endpoint, region, bucket, accessKey, secretKey, pathStyle, requestTimeout);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "file.storage.backend", havingValue = "tiered")
+    public TieredStorageBackend tieredStorageBackend(@Value("${file.upload-dir}") String uploadDir,
+                                                     @Value("${file.storage.s3.endpoint}") String endpoint,
+                                                     @Value("${file.storage.s3.region}") String region,
+                                                     @Value("${file.storage.s3.bucket}") String bucket,
+                                                     @Value("${file.storage.s3.access-key}") String accessKey,
+                                                     @Value("${file.storage.s3.secret-key}") String secretKey,
+                                                     @Value("${file.storage.s3.path-style:true}") boolean pathStyle,
+                                                     @Value("${file.storage.s3.request-timeout:60s}") Duration requestTimeout) {
+        log.info("Stockage des fichiers à deux niveaux: {} puis bucket {} ({})", uploadDir, bucket, endpoint);
+        return new TieredStorageBackend(new LocalStorageBackend(Paths.get(uploadDir)),
+                new S3StorageBackend(endpoint, region, bucket, accessKey, secretKey, pathStyle, requestTimeout));
+    }
+
+    /**
+     * Bounded pool of the tier mover: at most file.storage.tiered.parallelism uploads to object storage at once
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "file.storage.backend", havingValue = "tiered")
+    public ThreadPoolTaskExecutor storageMoverExecutor(@Value("${file.storage.tiered.parallelism:2}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("storage-mover-");
+        return executor;
+    }
+}
@@ -0,0 +1,43 @@
+package com.cabinet.springbootcabinetcomptablemanagement.config;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+
+/**
+ * Storage Executor Configuration
+ * Bounded pool used to write the files of a bulk upload in parallel
+ *
+ * Each store takes a database connection for the blob reference count (BlobReferenceRegistry),
+ * so file.storage.parallelism must stay well below the JDBC pool size.
+ */
+@Configuration
+public class StorageExecutorConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor storageExecutor(@Value("${file.storage.parallelism:4}") int parallelism) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(parallelism);
+        executor.setMaxPoolSize(parallelism);
+        executor.setThreadNamePrefix("storage-");
+        // Keep the correlation ID of the request in the logs of the storage threads
+        executor.setTaskDecorator(task -> {
+            Map<String, String> context = MDC.getCopyOfContextMap();
+            return () -> {
+                if (context != null) {
+                    MDC.setContextMap(context);
+                }
+                try {
+                    task.run();
+                } finally {
+                    MDC.clear();
+                }
+            };
+        });
+        return executor;
+    }
+}
@@ -0,0 +1,24 @@
+package com.cabinet.springbootcabinetcomptablemanagement.config;
+
+import com.cabinet.springbootcabinetcomptablemanagement.metrics.DownloadMetricsInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC Configuration
+ * Registers the download metrics interceptor on the document download endpoint
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final DownloadMetricsInterceptor downloadMetricsInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(downloadMetricsInterceptor)
+                .addPathPatterns("/api/documents/*/download");
+    }
+}
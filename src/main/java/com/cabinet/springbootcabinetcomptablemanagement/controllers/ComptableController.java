@@ -1,20 +1,36 @@
 package com.cabinet.springbootcabinetcomptablemanagement.controllers;
 
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentBatchDecisionDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentPageRequestDTO;
 import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentValidationDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.BatchDecisionResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.CursorPageResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DashboardResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentDecisionResultDTO;
 import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.DocumentConflictException;
 import com.cabinet.springbootcabinetcomptablemanagement.exceptions.ResourceNotFoundException;
+import com.cabinet.springbootcabinetcomptablemanagement.export.ExportFormat;
+import com.cabinet.springbootcabinetcomptablemanagement.metrics.DocumentMetrics;
 import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.services.DashboardService;
 import com.cabinet.springbootcabinetcomptablemanagement.services.DocumentService;
+import com.cabinet.springbootcabinetcomptablemanagement.services.SocieteService;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
-import java.util.stream.Collectors;
+
 
 /**
  * Comptable Controller
@@ -28,32 +44,34 @@ import java.util.stream.Collectors;
 public class ComptableController {
 
     private final DocumentService documentService;
+    private final DocumentMetrics documentMetrics;
+    private final DashboardService dashboardService;
+    private final SocieteService societeService;
 
     /**
-     * Get all pending documents (EN_ATTENTE status)
+     * Get pending documents (EN_ATTENTE status), keyset-paginated
      * Only COMPTABLE users can access this endpoint
      * 
-     * GET /api/comptable/documents/en-attente
+     * GET /api/comptable/documents/en-attente?cursor=...&size=50&sort=createdAt,asc
      */
     @GetMapping("/documents/en-attente")
     @PreAuthorize("hasAuthority('ROLE_COMPTABLE')")
-    public ResponseEntity<List<DocumentResponseDTO>> getPendingDocuments() {
+    public ResponseEntity<CursorPageResponseDTO<DocumentResponseDTO>> getPendingDocuments(
+            @Valid @ModelAttribute DocumentPageRequestDTO pageRequest) {
         
-        log.info("Récupération de tous les documents en attente");
+        log.info("Récupération des documents en attente");
 
-        List<Document> pendingDocuments = documentService.getDocumentByStatut(Document.StatutDocument.EN_ATTENTE);
-        
-        List<DocumentResponseDTO> responseDTOs = pendingDocuments.stream()
-                .map(DocumentResponseDTO::new)
-                .collect(Collectors.toList());
+        CursorPageResponseDTO<DocumentResponseDTO> page = documentService.getDocumentsPage(
+                null, null, Document.StatutDocument.EN_ATTENTE, pageRequest);
 
-        log.info("Nombre de documents en attente: {}", responseDTOs.size());
-        return ResponseEntity.ok(responseDTOs);
+        log.info("Nombre de documents en attente dans la page: {}", page.getSize());
+        return ResponseEntity.ok(page);
     }
 
     /**
      * Validate a document
      * Only COMPTABLE users can validate documents
+     * 409 CONFLICT if the document was decided meanwhile, or changed since the optional "version" sent
      * 
      * POST /api/comptable/documents/{id}/valider
      */
@@ -69,8 +87,20 @@ public class ComptableController {
         String commentaire = (validationDTO != null && validationDTO.getCommentaire() != null) 
                 ? validationDTO.getCommentaire() 
                 : null;
+        Long version = validationDTO != null ? validationDTO.getVersion() : null;
 
-        Document validatedDocument = documentService.validateDocument(id, commentaire);
+        Timer.Sample sample = documentMetrics.start();
+        Document validatedDocument;
+        try {
+            validatedDocument = documentService.validateDocument(id, commentaire, version);
+        } catch (DocumentConflictException e) {
+            documentMetrics.recordDecision(sample, Document.StatutDocument.VALIDE, DocumentMetrics.OUTCOME_CONFLICT);
+            throw e;
+        } catch (RuntimeException e) {
+            documentMetrics.recordDecision(sample, Document.StatutDocument.VALIDE, DocumentMetrics.OUTCOME_ERROR);
+            throw e;
+        }
+        documentMetrics.recordDecision(sample, Document.StatutDocument.VALIDE, DocumentMetrics.OUTCOME_SUCCESS);
         DocumentResponseDTO responseDTO = new DocumentResponseDTO(validatedDocument);
 
         log.info("Document validé avec succès: ID={}, Statut={}", id, validatedDocument.getStatut());
@@ -81,6 +111,7 @@ public class ComptableController {
      * Reject a document
      * Only COMPTABLE users can reject documents
      * Commentaire (motif) is mandatory for rejection
+     * 409 CONFLICT if the document was decided meanwhile, or changed since the optional "version" sent
      * 
      * POST /api/comptable/documents/{id}/rejeter
      */
@@ -97,7 +128,19 @@ public class ComptableController {
             throw new IllegalArgumentException("Le motif de rejet est obligatoire");
         }
 
-        Document rejectedDocument = documentService.rejectDocument(id, validationDTO.getCommentaire());
+        Timer.Sample sample = documentMetrics.start();
+        Document rejectedDocument;
+        try {
+            rejectedDocument = documentService.rejectDocument(id, validationDTO.getCommentaire(),
+                    validationDTO.getVersion());
+        } catch (DocumentConflictException e) {
+            documentMetrics.recordDecision(sample, Document.StatutDocument.REJETE, DocumentMetrics.OUTCOME_CONFLICT);
+            throw e;
+        } catch (RuntimeException e) {
+            documentMetrics.recordDecision(sample, Document.StatutDocument.REJETE, DocumentMetrics.OUTCOME_ERROR);
+            throw e;
+        }
+        documentMetrics.recordDecision(sample, Document.StatutDocument.REJETE, DocumentMetrics.OUTCOME_SUCCESS);
         DocumentResponseDTO responseDTO = new DocumentResponseDTO(rejectedDocument);
 
         log.info("Document rejeté avec succès: ID={}, Motif={}", id, validationDTO.getCommentaire());
@@ -105,46 +148,180 @@ public class ComptableController {
     }
 
     /**
-     * Get documents by société ID
+     * Validate or reject many documents in one call
+     * Either a list of IDs, or every pending document of a société (optionally of one exercice comptable)
+     * Only documents still EN_ATTENTE are changed; the others are reported as DEJA_TRAITE or INTROUVABLE
+     *
+     * POST /api/comptable/documents/decisions
+     * {"action": "VALIDE", "documentIds": [1, 2, 3]}
+     * {"action": "REJETE", "societeId": 1, "exerciceComptable": "2024", "commentaire": "Pièces illisibles"}
+     */
+    @PostMapping("/documents/decisions")
+    @PreAuthorize("hasAuthority('ROLE_COMPTABLE')")
+    public ResponseEntity<BatchDecisionResponseDTO> decideDocuments(
+            @Valid @RequestBody DocumentBatchDecisionDTO decisionDTO) {
+
+        Document.StatutDocument decision = Document.StatutDocument.valueOf(decisionDTO.getAction());
+        log.info("Décision groupée: action={}, documents={}, société={}", decision,
+                decisionDTO.getDocumentIds() != null ? decisionDTO.getDocumentIds().size() : 0, decisionDTO.getSocieteId());
+
+        Timer.Sample sample = documentMetrics.start();
+        BatchDecisionResponseDTO response;
+        try {
+            response = documentService.decideDocuments(decision, decisionDTO.getDocumentIds(),
+                    decisionDTO.getSocieteId(), decisionDTO.getExerciceComptable(), decisionDTO.getCommentaire());
+        } catch (RuntimeException e) {
+            documentMetrics.recordDecisions(sample, decision, DocumentMetrics.OUTCOME_ERROR, 0, 0);
+            throw e;
+        }
+        // Documents déjà traités par un autre comptable: comptés comme les 409 des décisions unitaires
+        int conflits = (int) response.getResultats().stream()
+                .filter(r -> r.getResultat() == DocumentDecisionResultDTO.Resultat.DEJA_TRAITE)
+                .count();
+        documentMetrics.recordDecisions(sample, decision, DocumentMetrics.OUTCOME_SUCCESS,
+                response.getAppliques(), conflits);
+
+        log.info("Décision groupée terminée: {} appliquée(s), {} ignorée(s)", response.getAppliques(), response.getIgnores());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get documents by société ID, keyset-paginated
      * Only COMPTABLE users can access this endpoint
      * 
      * GET /api/comptable/documents/societe/{societeId}
      */
     @GetMapping("/documents/societe/{societeId}")
     @PreAuthorize("hasAuthority('ROLE_COMPTABLE')")
-    public ResponseEntity<List<DocumentResponseDTO>> getDocumentsBySociete(
-            @PathVariable Long societeId) {
+    public ResponseEntity<CursorPageResponseDTO<DocumentResponseDTO>> getDocumentsBySociete(
+            @PathVariable Long societeId,
+            @Valid @ModelAttribute DocumentPageRequestDTO pageRequest) {
         
         log.info("Récupération des documents pour la société: {}", societeId);
 
-        List<Document> documents = documentService.getDocumentBySociete(societeId);
-        List<DocumentResponseDTO> responseDTOs = documents.stream()
-                .map(DocumentResponseDTO::new)
-                .collect(Collectors.toList());
+        CursorPageResponseDTO<DocumentResponseDTO> page = documentService.getDocumentsPage(societeId, null, null, pageRequest);
 
-        log.info("Nombre de documents trouvés pour la société {}: {}", societeId, responseDTOs.size());
-        return ResponseEntity.ok(responseDTOs);
+        log.info("Nombre de documents trouvés pour la société {} dans la page: {}", societeId, page.getSize());
+        return ResponseEntity.ok(page);
     }
 
     /**
-     * Get documents by exercice comptable
+     * Get documents by exercice comptable, keyset-paginated
      * Only COMPTABLE users can access this endpoint
      * 
      * GET /api/comptable/documents/exercice/{exercice}
      */
     @GetMapping("/documents/exercice/{exercice}")
     @PreAuthorize("hasAuthority('ROLE_COMPTABLE')")
-    public ResponseEntity<List<DocumentResponseDTO>> getDocumentsByExercice(
-            @PathVariable String exercice) {
+    public ResponseEntity<CursorPageResponseDTO<DocumentResponseDTO>> getDocumentsByExercice(
+            @PathVariable String exercice,
+            @Valid @ModelAttribute DocumentPageRequestDTO pageRequest) {
         
         log.info("Récupération des documents pour l'exercice comptable: {}", exercice);
 
-        List<Document> documents = documentService.getDocumentByExerciceComptable(exercice);
-        List<DocumentResponseDTO> responseDTOs = documents.stream()
-                .map(DocumentResponseDTO::new)
-                .collect(Collectors.toList());
+        CursorPageResponseDTO<DocumentResponseDTO> page = documentService.getDocumentsPage(null, exercice, null, pageRequest);
+
+        log.info("Nombre de documents trouvés pour l'exercice {} dans la page: {}", exercice, page.getSize());
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Rebuild the search index from the database (in the background, searches keep working meanwhile)
+     * 202 ACCEPTED when started, 409 CONFLICT if a rebuild is already running
+     *
+     * POST /api/comptable/recherche/reconstruire
+     */
+    @PostMapping("/recherche/reconstruire")
+    @PreAuthorize("hasAuthority('ROLE_COMPTABLE')")
+    public ResponseEntity<Void> rebuildSearchIndex() {
+        log.info("Demande de reconstruction de l'index de recherche");
+        return documentService.rebuildSearchIndex()
+                ? ResponseEntity.status(HttpStatus.ACCEPTED).build()
+                : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    /**
+     * Dashboard: number and total amount of the documents per société and fiscal year, by statut and by type
+     * Read from counters maintained with the documents, not computed from them
+     *
+     * GET /api/comptable/tableau-de-bord?exerciceComptable=2024&societeId=1 (both optional)
+     */
+    @GetMapping("/tableau-de-bord")
+    @PreAuthorize("hasAuthority('ROLE_COMPTABLE')")
+    public ResponseEntity<DashboardResponseDTO> getDashboard(
+            @RequestParam(required = false) String exerciceComptable,
+            @RequestParam(required = false) Long societeId) {
+        return ResponseEntity.ok(dashboardService.getDashboard(exerciceComptable, societeId));
+    }
+
+    /**
+     * Recompute the dashboard counters from the documents (maintenance, e.g. after data was changed directly
+     * in the database); best run when no document is being uploaded or decided
+     *
+     * POST /api/comptable/tableau-de-bord/recalculer
+     */
+    @PostMapping("/tableau-de-bord/recalculer")
+    @PreAuthorize("hasAuthority('ROLE_COMPTABLE')")
+    public ResponseEntity<Void> recountDashboard() {
+        log.info("Demande de recalcul des compteurs du tableau de bord");
+        dashboardService.recountDashboard();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Export every document of a société for a fiscal year (annual closing, import into the general ledger)
+     * The file is written while the documents are read: the response starts at once and is sent in chunks,
+     * whatever the number of documents.
+     *
+     * GET /api/comptable/export/societe/{societeId}/exercice/{exercice}?format=csv (default) | xlsx
+     */
+    @GetMapping("/export/societe/{societeId}/exercice/{exercice}")
+    @PreAuthorize("hasAuthority('ROLE_COMPTABLE')")
+    public void exportDocuments(
+            @PathVariable Long societeId,
+            @PathVariable String exercice,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+
+        ExportFormat exportFormat = ExportFormat.of(format);
+        // Checked before anything is written: errors after the first byte can no longer be reported as JSON
+        if (societeService.getSocieteById(societeId).isEmpty()) {
+            throw ResourceNotFoundException.of("Société", societeId);
+        }
+        log.info("Export {} des documents de la société {} pour l'exercice {}", exportFormat, societeId, exercice);
+
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("documents-" + societeId + "-" + exercice + "." + exportFormat.getExtension())
+                .build()
+                .toString());
+        documentService.exportDocuments(societeId, exercice, exportFormat, response.getOutputStream());
+    }
+
+    /**
+     * Audit archive: ZIP of the stored files of a société for one or more fiscal years, with manifest.csv
+     * (metadata of every document) and fichiers-absents.csv when some files could not be read.
+     * Streamed like the export: nothing is built on disk or in memory before the response starts.
+     *
+     * GET /api/comptable/archive/societe/{societeId}?exercices=2023,2024
+     */
+    @GetMapping("/archive/societe/{societeId}")
+    @PreAuthorize("hasAuthority('ROLE_COMPTABLE')")
+    public void archiveDocuments(
+            @PathVariable Long societeId,
+            @RequestParam List<String> exercices,
+            HttpServletResponse response) throws IOException {
+
+        if (societeService.getSocieteById(societeId).isEmpty()) {
+            throw ResourceNotFoundException.of("Société", societeId);
+        }
+        log.info("Archive des documents de la société {} pour les exercices {}", societeId, exercices);
 
-        log.info("Nombre de documents trouvés pour l'exercice {}: {}", exercice, responseDTOs.size());
-        return ResponseEntity.ok(responseDTOs);
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("audit-" + societeId + "-" + String.join("_", exercices) + ".zip")
+                .build()
+                .toString());
+        documentService.archiveDocuments(societeId, exercices, response.getOutputStream());
     }
 }
@@ -1,16 +1,30 @@
 package com.cabinet.springbootcabinetcomptablemanagement.controllers;
 
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentPageRequestDTO;
 import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentRequestDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentSearchRequestDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.BulkUploadResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.CursorPageResponseDTO;
 import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentSearchResponseDTO;
 import com.cabinet.springbootcabinetcomptablemanagement.exceptions.ResourceNotFoundException;
 import com.cabinet.springbootcabinetcomptablemanagement.exceptions.UnauthorizedException;
+import com.cabinet.springbootcabinetcomptablemanagement.metrics.DocumentMetrics;
+import com.cabinet.springbootcabinetcomptablemanagement.metrics.DownloadMetricsInterceptor;
 import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
 import com.cabinet.springbootcabinetcomptablemanagement.models.User;
-import com.cabinet.springbootcabinetcomptablemanagement.repositories.UtilisateurRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.security.AuthenticatedUser;
 import com.cabinet.springbootcabinetcomptablemanagement.services.DocumentService;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.CompressedFileResource;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.FileCompression;
+import io.micrometer.core.instrument.Timer;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -19,9 +33,18 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Document Controller
@@ -34,24 +57,25 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DocumentController {
 
+    /**
+     * Documents are private to a société: browsers may keep them but must revalidate with the ETag
+     */
+    private static final CacheControl DOWNLOAD_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private final DocumentService documentService;
-    private final UtilisateurRepository utilisateurRepository;
+    private final DocumentMetrics documentMetrics;
 
     /**
      * Get current authenticated user from SecurityContext
-     * Uses JOIN FETCH to eagerly load société and avoid LazyInitializationException
+     * The principal is built by JwtAuthenticationFilter (role and société included), no database lookup
      */
-    private User getCurrentUser() {
+    private AuthenticatedUser getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof AuthenticatedUser currentUser)) {
             throw new UnauthorizedException("Utilisateur non authentifié");
         }
-
-        String email = authentication.getName();
-        User user = utilisateurRepository.findByEmail(email)
-                .orElseThrow(() -> ResourceNotFoundException.ofField("Utilisateur", "email", email));
-        
-        return user;
+        return currentUser;
     }
 
     /**
@@ -67,15 +91,15 @@ public class DocumentController {
         
         log.info("Upload de document: numéro={}, type={}", requestDTO.getNumeroPiece(), requestDTO.getType());
 
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
 
         // Vérifier que l'utilisateur SOCIETE ne peut uploader que pour sa propre société
-        if (currentUser.getSociete() == null) {
+        if (currentUser.getSocieteId() == null) {
             throw new UnauthorizedException("L'utilisateur SOCIETE doit être associé à une société");
         }
 
         // Vérifier que la société dans la requête correspond à la société de l'utilisateur
-        if (!currentUser.getSociete().getId().equals(requestDTO.getSocieteId())) {
+        if (!currentUser.getSocieteId().equals(requestDTO.getSocieteId())) {
             throw new UnauthorizedException("Vous ne pouvez uploader des documents que pour votre propre société");
         }
 
@@ -88,118 +112,155 @@ public class DocumentController {
         }
 
         // Créer le document
-        Document document = documentService.createDocument(
-                requestDTO.getNumeroPiece(),
-                typeDocument,
-                requestDTO.getCategorieComptable(),
-                requestDTO.getDatePiece(),
-                requestDTO.getMontant(),
-                requestDTO.getFournisseur(),
-                requestDTO.getFichier(),
-                requestDTO.getSocieteId(),
-                requestDTO.getExerciceComptable().toString()
-        );
+        Timer.Sample sample = documentMetrics.start();
+        Document document;
+        try {
+            document = documentService.createDocument(
+                    requestDTO.getNumeroPiece(),
+                    typeDocument,
+                    requestDTO.getCategorieComptable(),
+                    requestDTO.getDatePiece(),
+                    requestDTO.getMontant(),
+                    requestDTO.getFournisseur(),
+                    requestDTO.getFichier(),
+                    requestDTO.getSocieteId(),
+                    requestDTO.getExerciceComptable().toString()
+            );
+        } catch (RuntimeException e) {
+            documentMetrics.recordUpload(sample, typeDocument, 0, DocumentMetrics.OUTCOME_ERROR);
+            throw e;
+        }
+        documentMetrics.recordUpload(sample, typeDocument,
+                document.getTailleFichier() != null ? document.getTailleFichier() : 0, DocumentMetrics.OUTCOME_SUCCESS);
 
         DocumentResponseDTO responseDTO = new DocumentResponseDTO(document);
         return ResponseEntity.status(HttpStatus.CREATED).body(responseDTO);
     }
 
     /**
-     * Get all documents
+     * Bulk upload: many files plus a manifest (CSV or JSON) describing one document per line
+     * Only SOCIETE users, for their own société. Each line is reported separately (CREE or ERREUR)
+     *
+     * POST /api/documents/bulk  (multipart: societeId, manifest, fichiers...)
+     * CSV manifest: fichier;numeroPiece;type;categorieComptable;datePiece;montant;fournisseur;exerciceComptable
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAuthority('ROLE_SOCIETE')")
+    public ResponseEntity<BulkUploadResponseDTO> bulkUploadDocuments(
+            @RequestParam Long societeId,
+            @RequestPart("manifest") MultipartFile manifest,
+            @RequestPart("fichiers") List<MultipartFile> fichiers) {
+
+        log.info("Import groupé de documents: société={}, fichiers={}", societeId, fichiers.size());
+
+        AuthenticatedUser currentUser = getCurrentUser();
+        if (currentUser.getSocieteId() == null || !currentUser.getSocieteId().equals(societeId)) {
+            throw new UnauthorizedException("Vous ne pouvez uploader des documents que pour votre propre société");
+        }
+
+        BulkUploadResponseDTO response = documentService.createDocuments(societeId, manifest, fichiers);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get all documents (keyset-paginated, see DocumentPageRequestDTO)
      * SOCIETE users see only their société's documents
      * COMPTABLE users see all documents
      * 
-     * GET /api/documents
+     * GET /api/documents?exerciceComptable=2024&cursor=...&size=50&sort=createdAt,desc
      */
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ROLE_SOCIETE', 'ROLE_COMPTABLE')")
-    public ResponseEntity<List<DocumentResponseDTO>> getAllDocuments(
-            @RequestParam(required = false) String exerciceComptable) {
+    public ResponseEntity<CursorPageResponseDTO<DocumentResponseDTO>> getAllDocuments(
+            @RequestParam(required = false) String exerciceComptable,
+            @Valid @ModelAttribute DocumentPageRequestDTO pageRequest) {
         
         log.info("Récupération de tous les documents");
 
-        User currentUser = getCurrentUser();
-        List<Document> documents;
+        AuthenticatedUser currentUser = getCurrentUser();
+        String exercice = (exerciceComptable != null && !exerciceComptable.isEmpty()) ? exerciceComptable : null;
+        Long societeId = null;
 
-        if (currentUser.getRole() == User.Role.COMPTABLE) {
-            // Comptable voit tous les documents
-            if (exerciceComptable != null && !exerciceComptable.isEmpty()) {
-                documents = documentService.getDocumentByExerciceComptable(exerciceComptable);
-            } else {
-                documents = documentService.getAllDocuments();
-            }
-        } else {
+        if (currentUser.getRole() != User.Role.COMPTABLE) {
             // Société voit seulement ses propres documents
-            if (currentUser.getSociete() == null) {
+            if (currentUser.getSocieteId() == null) {
                 throw new UnauthorizedException("L'utilisateur SOCIETE doit être associé à une société");
             }
+            societeId = currentUser.getSocieteId();
+        }
+
+        CursorPageResponseDTO<DocumentResponseDTO> page = documentService.getDocumentsPage(societeId, exercice, null, pageRequest);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Search documents: supplier name (prefix / typo tolerant), numéro de pièce prefix, catégorie, type,
+     * statut, exercice, amount and date ranges, with the number of matches per type, catégorie, statut
+     * and exercice (facettes)
+     * SOCIETE users search their own société's documents, COMPTABLE users all of them or one société (societeId)
+     *
+     * GET /api/documents/search?fournisseur=orange&montantMin=100&dateDebut=2024-01-01&page=0&size=20
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyAuthority('ROLE_SOCIETE', 'ROLE_COMPTABLE')")
+    public ResponseEntity<DocumentSearchResponseDTO> searchDocuments(@Valid @ModelAttribute DocumentSearchRequestDTO criteria) {
 
-            Long societeId = currentUser.getSociete().getId();
-            if (exerciceComptable != null && !exerciceComptable.isEmpty()) {
-                documents = documentService.getDocumentBySocieteAndExercice(societeId, exerciceComptable);
-            } else {
-                documents = documentService.getDocumentBySociete(societeId);
+        log.info("Recherche de documents: fournisseur={}, catégorie={}", criteria.getFournisseur(), criteria.getCategorieComptable());
+
+        AuthenticatedUser currentUser = getCurrentUser();
+        if (currentUser.getRole() != User.Role.COMPTABLE) {
+            if (currentUser.getSocieteId() == null) {
+                throw new UnauthorizedException("L'utilisateur SOCIETE doit être associé à une société");
             }
+            criteria.setSocieteId(currentUser.getSocieteId());
         }
 
-        List<DocumentResponseDTO> responseDTOs = documents.stream()
-                .map(DocumentResponseDTO::new)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(responseDTOs);
+        return ResponseEntity.ok(documentService.searchDocuments(criteria));
     }
 
     /**
-     * Get documents by exercice comptable
+     * Get documents by exercice comptable (keyset-paginated)
      * 
      * GET /api/documents/exercice/{exercice}
      */
     @GetMapping("/exercice/{exercice}")
     @PreAuthorize("hasAnyAuthority('ROLE_SOCIETE', 'ROLE_COMPTABLE')")
-    public ResponseEntity<List<DocumentResponseDTO>> getDocumentsByExercice(
-            @PathVariable String exercice) {
+    public ResponseEntity<CursorPageResponseDTO<DocumentResponseDTO>> getDocumentsByExercice(
+            @PathVariable String exercice,
+            @Valid @ModelAttribute DocumentPageRequestDTO pageRequest) {
         
         log.info("Récupération des documents pour l'exercice: {}", exercice);
 
-        User currentUser = getCurrentUser();
-        List<Document> documents;
+        AuthenticatedUser currentUser = getCurrentUser();
+        Long societeId = null;
 
-        if (currentUser.getRole() == User.Role.COMPTABLE) {
-            documents = documentService.getDocumentByExerciceComptable(exercice);
-        } else {
-            if (currentUser.getSociete() == null) {
+        if (currentUser.getRole() != User.Role.COMPTABLE) {
+            if (currentUser.getSocieteId() == null) {
                 throw new UnauthorizedException("L'utilisateur SOCIETE doit être associé à une société");
             }
-            documents = documentService.getDocumentBySocieteAndExercice(
-                    currentUser.getSociete().getId(), exercice);
+            societeId = currentUser.getSocieteId();
         }
 
-        List<DocumentResponseDTO> responseDTOs = documents.stream()
-                .map(DocumentResponseDTO::new)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(responseDTOs);
+        CursorPageResponseDTO<DocumentResponseDTO> page = documentService.getDocumentsPage(societeId, exercice, null, pageRequest);
+        return ResponseEntity.ok(page);
     }
 
     /**
-     * Get documents by société ID
+     * Get documents by société ID (keyset-paginated)
      * Only COMPTABLE can access this endpoint
      * 
      * GET /api/documents/societe/{societeId}
      */
     @GetMapping("/societe/{societeId}")
     @PreAuthorize("hasAuthority('ROLE_COMPTABLE')")
-    public ResponseEntity<List<DocumentResponseDTO>> getDocumentsBySociete(
-            @PathVariable Long societeId) {
+    public ResponseEntity<CursorPageResponseDTO<DocumentResponseDTO>> getDocumentsBySociete(
+            @PathVariable Long societeId,
+            @Valid @ModelAttribute DocumentPageRequestDTO pageRequest) {
         
         log.info("Récupération des documents pour la société: {}", societeId);
 
-        List<Document> documents = documentService.getDocumentBySociete(societeId);
-        List<DocumentResponseDTO> responseDTOs = documents.stream()
-                .map(DocumentResponseDTO::new)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(responseDTOs);
+        CursorPageResponseDTO<DocumentResponseDTO> page = documentService.getDocumentsPage(societeId, null, null, pageRequest);
+        return ResponseEntity.ok(page);
     }
 
 
@@ -219,14 +280,14 @@ public class DocumentController {
         Document document = documentService.getDocumentById(id)
                 .orElseThrow(() -> ResourceNotFoundException.of("Document", id));
 
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
 
         // Vérifier l'accès: SOCIETE ne peut voir que ses propres documents
         if (currentUser.getRole() == User.Role.SOCIETE) {
-            if (currentUser.getSociete() == null) {
+            if (currentUser.getSocieteId() == null) {
                 throw new UnauthorizedException("L'utilisateur SOCIETE doit être associé à une société");
             }
-            if (!document.getSociete().getId().equals(currentUser.getSociete().getId())) {
+            if (!document.getSociete().getId().equals(currentUser.getSocieteId())) {
                 throw new UnauthorizedException("Vous n'avez pas accès à ce document");
             }
         }
@@ -239,42 +300,125 @@ public class DocumentController {
      * Download document file
      * SOCIETE users can only download their own société's documents
      * COMPTABLE users can download any document
+     * The file is streamed from disk as a Resource, it is never loaded fully into memory
+     *
+     * Supports conditional requests (If-None-Match / If-Modified-Since -> 304 Not Modified)
+     * and byte ranges (Range -> 206 Partial Content, If-Range to guard against stale ranges)
+     * so PDF viewers can seek inside large bank statements without re-downloading them
+     *
+     * A file stored gzip-compressed is sent as stored (Content-Encoding: gzip) to clients that accept it,
+     * and decoded on the fly for the others and for range requests
      * 
      * GET /api/documents/{id}/download
      */
     @GetMapping("/{id}/download")
     @PreAuthorize("hasAnyAuthority('ROLE_SOCIETE', 'ROLE_COMPTABLE')")
-    public ResponseEntity<byte[]> downloadDocument(@PathVariable Long id) {
+    public ResponseEntity<Resource> downloadDocument(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            WebRequest webRequest) throws IOException {
         
         log.info("Téléchargement du document ID: {}", id);
 
         Document document = documentService.getDocumentById(id)
                 .orElseThrow(() -> ResourceNotFoundException.of("Document", id));
 
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
 
         // Vérifier l'accès: SOCIETE ne peut télécharger que ses propres documents
         if (currentUser.getRole() == User.Role.SOCIETE) {
-            if (currentUser.getSociete() == null) {
+            if (currentUser.getSocieteId() == null) {
                 throw new UnauthorizedException("L'utilisateur SOCIETE doit être associé à une société");
             }
-            if (!document.getSociete().getId().equals(currentUser.getSociete().getId())) {
+            if (!document.getSociete().getId().equals(currentUser.getSocieteId())) {
                 throw new UnauthorizedException("Vous n'avez pas accès à ce document");
             }
         }
 
-        byte[] fileContent = documentService.downloadDocument(id);
+        // Type du document pour les métriques de téléchargement (DownloadMetricsInterceptor)
+        webRequest.setAttribute(DownloadMetricsInterceptor.DOCUMENT_TYPE_ATTRIBUTE, document.getType(),
+                RequestAttributes.SCOPE_REQUEST);
+
+        // Validateurs HTTP: l'empreinte SHA-256 enregistrée à l'upload sert d'ETag,
+        // une requête conditionnelle est donc résolue sans aucun accès disque
+        Resource fileResource = null;
+        String eTag;
+        long lastModified;
+        long contentLength;
+        if (document.getHashFichier() != null && document.getTailleFichier() != null) {
+            eTag = "\"" + document.getHashFichier() + "\"";
+            LocalDateTime modifiedAt = document.getUpdatedAt() != null ? document.getUpdatedAt() : document.getCreatedAt();
+            lastModified = modifiedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            contentLength = document.getTailleFichier();
+        } else {
+            // Document sans empreinte: on se rabat sur les métadonnées du fichier
+            fileResource = documentService.downloadDocument(id);
+            contentLength = fileResource.contentLength();
+            lastModified = fileResource.lastModified();
+            eTag = buildETag(contentLength, lastModified);
+        }
 
-        // Déterminer le type MIME basé sur l'extension du fichier
-        String contentType = determineContentType(document.getNomFichierOriginal());
+        // Fichier stocké compressé et client qui accepte gzip: les octets stockés sont envoyés tels quels,
+        // sans décompression côté serveur. Une plage porte sur le contenu décodé, elle reste décodée.
+        // La représentation encodée a son propre ETag (les octets ne sont pas les mêmes)
+        boolean sendEncoded = FileCompression.isCompressed(document.getCheminFichier())
+                && range == null
+                && acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (sendEncoded) {
+            eTag = eTag.substring(0, eTag.length() - 1) + "-" + FileCompression.CONTENT_ENCODING + "\"";
+        }
+
+        // Requête conditionnelle: le client a déjà cette version, on ne relit pas le fichier
+        // (checkNotModified écrit déjà le statut 304, l'ETag et Last-Modified dans la réponse)
+        if (webRequest.checkNotModified(eTag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(DOWNLOAD_CACHE_CONTROL)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        if (fileResource == null) {
+            fileResource = documentService.downloadDocument(id);
+        }
+        if (sendEncoded && fileResource instanceof CompressedFileResource compressed) {
+            fileResource = compressed.getEncoded();
+            contentLength = fileResource.contentLength();
+        } else {
+            sendEncoded = false;
+        }
+
+        // Type MIME détecté à l'upload, sinon déduit de l'extension du fichier
+        String contentType = document.getTypeMime() != null
+                ? document.getTypeMime()
+                : determineContentType(document.getNomFichierOriginal());
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.parseMediaType(contentType));
-        headers.setContentDispositionFormData("attachment", document.getNomFichierOriginal());
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(document.getNomFichierOriginal(), StandardCharsets.UTF_8)
+                .build());
+        headers.setContentLength(contentLength);
+        headers.setLastModified(lastModified);
+        headers.setETag(eTag);
+        headers.setCacheControl(DOWNLOAD_CACHE_CONTROL);
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (sendEncoded) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, FileCompression.CONTENT_ENCODING);
+        }
+
+        // If-Range ne correspond plus à la version stockée: on ignore le Range et on renvoie tout le fichier.
+        // InputStreamResource n'est pas découpé en plages par Spring, contrairement aux autres Resource.
+        if (range != null && ifRange != null && !matchesIfRange(ifRange, eTag, lastModified)) {
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(new InputStreamResource(fileResource.getInputStream()));
+        }
 
+        // Pour un Resource, Spring traite lui-même l'en-tête Range (206, multipart/byteranges ou 416)
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(fileContent);
+                .body(fileResource);
     }
 
     /**
@@ -293,14 +437,14 @@ public class DocumentController {
         Document document = documentService.getDocumentById(id)
                 .orElseThrow(() -> ResourceNotFoundException.of("Document", id));
 
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
 
         // Vérifier l'accès: SOCIETE ne peut supprimer que ses propres documents
         if (currentUser.getRole() == User.Role.SOCIETE) {
-            if (currentUser.getSociete() == null) {
+            if (currentUser.getSocieteId() == null) {
                 throw new UnauthorizedException("L'utilisateur SOCIETE doit être associé à une société");
             }
-            if (!document.getSociete().getId().equals(currentUser.getSociete().getId())) {
+            if (!document.getSociete().getId().equals(currentUser.getSocieteId())) {
                 throw new UnauthorizedException("Vous n'avez pas accès à ce document");
             }
         }
@@ -309,6 +453,74 @@ public class DocumentController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Helper method to build a strong ETag from the stored file size and modification time
+     */
+    private String buildETag(long contentLength, long lastModified) {
+        return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(contentLength) + "\"";
+    }
+
+    /**
+     * Helper method to evaluate an Accept-Encoding header (RFC 9110 section 12.5.3)
+     * An explicit gzip entry decides, whatever its position; "*" only applies when gzip is not listed.
+     * gzip is accepted if the deciding entry has a non-zero quality value.
+     */
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim();
+            if (coding.equalsIgnoreCase(FileCompression.CONTENT_ENCODING)) {
+                gzipQuality = quality(parts);
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality(parts);
+            }
+        }
+        Double quality = gzipQuality != null ? gzipQuality : wildcardQuality;
+        return quality != null && quality > 0;
+    }
+
+    /**
+     * Helper method to read the q parameter of an Accept-Encoding element (1 when absent, 0 when invalid)
+     */
+    private double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Helper method to evaluate an If-Range header (RFC 9110 section 13.1.5)
+     * The validator is either a strong ETag or an HTTP date that must match exactly
+     */
+    private boolean matchesIfRange(String ifRange, String eTag, long lastModified) {
+        String validator = ifRange.trim();
+        if (validator.startsWith("\"") || validator.startsWith("W/")) {
+            return validator.equals(eTag);
+        }
+
+        try {
+            long ifRangeDate = ZonedDateTime.parse(validator, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+            // HTTP dates have a one second precision
+            return ifRangeDate / 1000 == lastModified / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
     /**
      * Helper method to determine content type from filename
      */
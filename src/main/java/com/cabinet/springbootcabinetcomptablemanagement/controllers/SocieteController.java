@@ -1,13 +1,12 @@
 package com.cabinet.springbootcabinetcomptablemanagement.controllers;
 
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentPageRequestDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.CursorPageResponseDTO;
 import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentResponseDTO;
-import com.cabinet.springbootcabinetcomptablemanagement.exceptions.ResourceNotFoundException;
 import com.cabinet.springbootcabinetcomptablemanagement.exceptions.UnauthorizedException;
-import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
-import com.cabinet.springbootcabinetcomptablemanagement.models.User;
-import com.cabinet.springbootcabinetcomptablemanagement.repositories.UtilisateurRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.security.AuthenticatedUser;
 import com.cabinet.springbootcabinetcomptablemanagement.services.DocumentService;
-import jakarta.transaction.Transactional;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -16,8 +15,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Société Controller
@@ -30,61 +27,49 @@ import java.util.stream.Collectors;
 public class SocieteController {
 
     private final DocumentService documentService;
-    private final UtilisateurRepository utilisateurRepository;
 
 
-    private User getCurrentUser() {
+    /**
+     * Get current authenticated user from SecurityContext
+     * The principal is built by JwtAuthenticationFilter (role and société included), no database lookup
+     */
+    private AuthenticatedUser getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof AuthenticatedUser currentUser)) {
             throw new UnauthorizedException("Utilisateur non authentifié");
         }
-
-        String email = authentication.getName();
-        User user = utilisateurRepository.findByEmail(email)
-                .orElseThrow(() -> ResourceNotFoundException.ofField("Utilisateur", "email", email));
-        
-        // Force load société to avoid LazyInitializationException
-        if (user.getSociete() != null) {
-            // Access the société to trigger lazy loading within transaction
-            user.getSociete().getId();
-            user.getSociete().getRaisonSociale();
-        }
-        
-        return user;
+        return currentUser;
     }
 
 
+    /**
+     * Get the documents of the current user's société (keyset-paginated)
+     *
+     * GET /api/societe/documents?exerciceComptable=2024&cursor=...&size=50
+     */
     @GetMapping("/documents")
     @PreAuthorize("hasAuthority('ROLE_SOCIETE')")
-    @Transactional
-    public ResponseEntity<List<DocumentResponseDTO>> getMySocieteDocuments(
-            @RequestParam(required = false) String exerciceComptable) {
+    public ResponseEntity<CursorPageResponseDTO<DocumentResponseDTO>> getMySocieteDocuments(
+            @RequestParam(required = false) String exerciceComptable,
+            @Valid @ModelAttribute DocumentPageRequestDTO pageRequest) {
         
         try {
             log.info("Récupération des documents de la société de l'utilisateur");
 
-            User currentUser = getCurrentUser();
+            AuthenticatedUser currentUser = getCurrentUser();
 
-            if (currentUser.getSociete() == null) {
+            if (currentUser.getSocieteId() == null) {
                 throw new UnauthorizedException("L'utilisateur SOCIETE doit être associé à une société");
             }
 
-            Long societeId = currentUser.getSociete().getId();
+            Long societeId = currentUser.getSocieteId();
             log.debug("Société ID: {}", societeId);
             
-            List<Document> documents;
-
-            if (exerciceComptable != null && !exerciceComptable.isEmpty()) {
-                documents = documentService.getDocumentBySocieteAndExercice(societeId, exerciceComptable);
-            } else {
-                documents = documentService.getDocumentBySociete(societeId);
-            }
-
-            List<DocumentResponseDTO> responseDTOs = documents.stream()
-                    .map(DocumentResponseDTO::new)
-                    .collect(Collectors.toList());
+            String exercice = (exerciceComptable != null && !exerciceComptable.isEmpty()) ? exerciceComptable : null;
 
-            return ResponseEntity.ok(responseDTOs);
+            CursorPageResponseDTO<DocumentResponseDTO> page = documentService.getDocumentsPage(societeId, exercice, null, pageRequest);
+            return ResponseEntity.ok(page);
         } catch (Exception e) {
             log.error("Erreur lors de la récupération des documents", e);
             throw e;
@@ -0,0 +1,46 @@
+package com.cabinet.springbootcabinetcomptablemanagement.dtos.request;
+
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One line of a bulk upload manifest (CSV or JSON)
+ * Same rules as DocumentRequestDTO; fichier is the name of the uploaded part holding the document
+ */
+@Data
+public class BulkDocumentItemDTO {
+
+    @NotBlank(message = "Nom du fichier est obligatoire")
+    private String fichier;
+
+    @NotBlank(message = "Numéro de pièce est obligatoire")
+    @Size(max = 50)
+    private String numeroPiece;
+
+    @NotBlank(message = "Type de document est obligatoire")
+    @Pattern(regexp = "FACTURE_ACHAT|FACTURE_VENTE|TICKET_CAISSE|RELEVE_BANCAIRE",
+            message = "Type de document invalide")
+    private String type;
+
+    @NotBlank(message = "Catégorie comptable est obligatoire")
+    private String categorieComptable;
+
+    @NotNull(message = "Date de la pièce est obligatoire")
+    @PastOrPresent(message = "La date ne peut pas être dans le futur")
+    private LocalDate datePiece;
+
+    @NotNull(message = "Montant est obligatoire")
+    @DecimalMin(value = "0.01", message = "Le montant doit être supérieur à 0")
+    private BigDecimal montant;
+
+    @NotBlank(message = "Fournisseur est obligatoire")
+    private String fournisseur;
+
+    @NotNull(message = "Exercice comptable est obligatoire")
+    @Min(value = 2000, message = "L'exercice comptable doit être supérieur ou égal à 2000")
+    @Max(value = 2100, message = "L'exercice comptable doit être inférieur ou égal à 2100")
+    private Integer exerciceComptable;
+}
@@ -0,0 +1,30 @@
+package com.cabinet.springbootcabinetcomptablemanagement.dtos.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Validate or reject many documents at once
+ * Either documentIds, or a filter: every EN_ATTENTE document of societeId (optionally of one exerciceComptable)
+ */
+@Data
+public class DocumentBatchDecisionDTO {
+
+    @NotBlank(message = "Action est obligatoire")
+    @Pattern(regexp = "VALIDE|REJETE", message = "Action doit être VALIDE ou REJETE")
+    private String action;
+
+    // At most documents.batch-decision.max-items, checked by the service
+    private List<@NotNull Long> documentIds;
+
+    // Filter, used when documentIds is empty
+    private Long societeId;
+    private String exerciceComptable;
+
+    // Required if action = REJETE, Optional for VALIDE
+    private String commentaire;
+}
@@ -0,0 +1,39 @@
+package com.cabinet.springbootcabinetcomptablemanagement.dtos.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+/**
+ * Pagination parameters shared by every document listing endpoint
+ * ?cursor=...&size=50&sort=createdAt,desc
+ */
+@Data
+public class DocumentPageRequestDTO {
+
+    public static final int DEFAULT_SIZE = 50;
+    public static final int MAX_SIZE = 200;
+
+    // nextCursor of the previous page, absent for the first page
+    private String cursor;
+
+    @Min(value = 1, message = "La taille de page doit être supérieure à 0")
+    private Integer size;
+
+    @Pattern(regexp = "createdAt,(asc|desc)", message = "Tri invalide. Valeurs acceptées: createdAt,asc ou createdAt,desc")
+    private String sort;
+
+    /**
+     * Requested page size, capped at MAX_SIZE
+     */
+    public int getEffectiveSize() {
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    public boolean isAscending() {
+        return "createdAt,asc".equals(sort);
+    }
+}
@@ -0,0 +1,90 @@
+package com.cabinet.springbootcabinetcomptablemanagement.dtos.request;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Search criteria, every one optional (absent = no filter)
+ * GET /api/documents/search?fournisseur=orang&montantMin=100&montantMax=5000&dateDebut=2024-01-01&categorieComptable=6061
+ */
+@Data
+public class DocumentSearchRequestDTO {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+    /**
+     * Deepest result reachable by page/size: a search is refined, not scrolled through
+     */
+    public static final int MAX_RESULT_WINDOW = 10_000;
+
+    // Words of the supplier name, each one matched as a prefix or with a typo ("orang telecom", "ornage")
+    private String fournisseur;
+
+    // Words of the file content (text layer or OCR), each one matched exactly or as a prefix
+    @Size(max = 200, message = "Le texte recherché ne doit pas dépasser 200 caractères")
+    private String texte;
+
+    // Prefix of the numéro de pièce, case-insensitive
+    private String numeroPiece;
+
+    private String categorieComptable;
+
+    private Document.TypeDocument type;
+
+    private Document.StatutDocument statut;
+
+    private String exerciceComptable;
+
+    @DecimalMin(value = "0.00", message = "Le montant minimum doit être positif")
+    private BigDecimal montantMin;
+
+    private BigDecimal montantMax;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dateDebut;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dateFin;
+
+    // COMPTABLE only, a SOCIETE user always searches its own société
+    private Long societeId;
+
+    @Min(value = 0, message = "Le numéro de page doit être positif")
+    private Integer page;
+
+    @Min(value = 1, message = "La taille de page doit être supérieure à 0")
+    @Max(value = MAX_SIZE, message = "La taille de page ne peut pas dépasser " + MAX_SIZE)
+    private Integer size;
+
+    public int getEffectivePage() {
+        return page != null ? page : 0;
+    }
+
+    public int getEffectiveSize() {
+        return size != null ? size : DEFAULT_SIZE;
+    }
+
+    @AssertTrue(message = "Le montant minimum doit être inférieur ou égal au montant maximum")
+    public boolean isMontantRangeValid() {
+        return montantMin == null || montantMax == null || montantMin.compareTo(montantMax) <= 0;
+    }
+
+    @AssertTrue(message = "La date de début doit précéder la date de fin")
+    public boolean isDateRangeValid() {
+        return dateDebut == null || dateFin == null || !dateDebut.isAfter(dateFin);
+    }
+
+    @AssertTrue(message = "Résultats au-delà des " + MAX_RESULT_WINDOW + " premiers: affinez la recherche")
+    public boolean isWithinResultWindow() {
+        return (long) (getEffectivePage() + 1) * getEffectiveSize() <= MAX_RESULT_WINDOW;
+    }
+}
@@ -17,4 +17,7 @@ public class DocumentValidationDTO {
 
     // Required if action = REJETE, Optional for VALIDE
     private String commentaire;
+
+    // Optional: version of the document the decision is based on, a newer version gives 409
+    private Long version;
 }
@@ -0,0 +1,30 @@
+package com.cabinet.springbootcabinetcomptablemanagement.dtos.response;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Report of a batch validation / rejection, one result per document
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchDecisionResponseDTO {
+
+    private Document.StatutDocument action;
+    private int total;
+    private int appliques;
+    private int ignores;
+    private List<DocumentDecisionResultDTO> resultats;
+
+    public static BatchDecisionResponseDTO of(Document.StatutDocument action, List<DocumentDecisionResultDTO> resultats) {
+        int appliques = (int) resultats.stream()
+                .filter(r -> r.getResultat() == DocumentDecisionResultDTO.Resultat.APPLIQUE)
+                .count();
+        return new BatchDecisionResponseDTO(action, resultats.size(), appliques, resultats.size() - appliques, resultats);
+    }
+}
@@ -0,0 +1,32 @@
+package com.cabinet.springbootcabinetcomptablemanagement.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of one manifest line of a bulk upload
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUploadItemResultDTO {
+
+    public enum Statut {
+        CREE, ERREUR
+    }
+
+    private int ligne; // 1-based position in the manifest (header excluded)
+    private String numeroPiece;
+    private String fichier;
+    private Statut statut;
+    private Long documentId; // set when statut = CREE
+
+    @Builder.Default
+    private List<String> erreurs = new ArrayList<>();
+}
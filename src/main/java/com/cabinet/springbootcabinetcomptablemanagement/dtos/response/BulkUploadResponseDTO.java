@@ -0,0 +1,28 @@
+package com.cabinet.springbootcabinetcomptablemanagement.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Report of a bulk upload, one result per manifest line
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUploadResponseDTO {
+
+    private int total;
+    private int crees;
+    private int erreurs;
+    private List<BulkUploadItemResultDTO> resultats;
+
+    public static BulkUploadResponseDTO of(List<BulkUploadItemResultDTO> resultats) {
+        int crees = (int) resultats.stream()
+                .filter(r -> r.getStatut() == BulkUploadItemResultDTO.Statut.CREE)
+                .count();
+        return new BulkUploadResponseDTO(resultats.size(), crees, resultats.size() - crees, resultats);
+    }
+}
@@ -0,0 +1,28 @@
+package com.cabinet.springbootcabinetcomptablemanagement.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing
+ * Pass nextCursor back as the "cursor" parameter to get the following page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponseDTO<T> {
+
+    private List<T> content;
+    private int size;
+    private String nextCursor; // null on the last page
+    private boolean hasNext;
+
+    public <R> CursorPageResponseDTO<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = content.stream().<R>map(mapper).toList();
+        return new CursorPageResponseDTO<>(mapped, size, nextCursor, hasNext);
+    }
+}
@@ -0,0 +1,88 @@
+package com.cabinet.springbootcabinetcomptablemanagement.dtos.response;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accountant dashboard: number and total amount of the documents per société and fiscal year,
+ * broken down by statut and by type
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardResponseDTO {
+
+    private String exerciceComptable; // Fiscal year filter, null for all years
+    private Totaux totaux;
+    private List<SocieteTotaux> societes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Compteur {
+
+        private long nombre;
+        private BigDecimal montant;
+
+        public static Compteur zero() {
+            return new Compteur(0, BigDecimal.ZERO);
+        }
+
+        public void add(long nombre, BigDecimal montant) {
+            this.nombre += nombre;
+            this.montant = this.montant.add(montant);
+        }
+    }
+
+    /**
+     * Every statut and every type is present, with zero when there is no document
+     */
+    @Data
+    public static class Totaux {
+
+        private Compteur total = Compteur.zero();
+        private Map<Document.StatutDocument, Compteur> parStatut = zeros(Document.StatutDocument.class);
+        private Map<Document.TypeDocument, Compteur> parType = zeros(Document.TypeDocument.class);
+
+        public void add(Document.StatutDocument statut, Document.TypeDocument type, long nombre, BigDecimal montant) {
+            total.add(nombre, montant);
+            parStatut.get(statut).add(nombre, montant);
+            parType.get(type).add(nombre, montant);
+        }
+
+        private static <E extends Enum<E>> Map<E, Compteur> zeros(Class<E> keys) {
+            Map<E, Compteur> zeros = new EnumMap<>(keys);
+            for (E key : keys.getEnumConstants()) {
+                zeros.put(key, Compteur.zero());
+            }
+            return zeros;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SocieteTotaux {
+
+        private Long societeId;
+        private String raisonSociale;
+        private Totaux totaux;
+        private List<ExerciceTotaux> exercices; // Most recent fiscal year first
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ExerciceTotaux {
+
+        private String exerciceComptable;
+        private Totaux totaux;
+    }
+}
@@ -0,0 +1,25 @@
+package com.cabinet.springbootcabinetcomptablemanagement.dtos.response;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a batch decision for one document
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentDecisionResultDTO {
+
+    public enum Resultat {
+        APPLIQUE,    // statut changed by this request
+        DEJA_TRAITE, // no longer EN_ATTENTE (already decided, possibly by another accountant)
+        INTROUVABLE
+    }
+
+    private Long documentId;
+    private Resultat resultat;
+    private Document.StatutDocument statut; // statut after the request, null if INTROUVABLE
+}
@@ -18,11 +18,14 @@ public class DocumentResponseDTO {
     private BigDecimal montant;
     private String fournisseur;
     private String nomFichierOriginal;
+    private Long tailleFichier;
+    private String typeMime;
     private String statut;
     private String commentaireComptable;
     private LocalDateTime dateValidation;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
 
     // Societe info
     private Long societeId;
@@ -37,16 +40,50 @@ public class DocumentResponseDTO {
         this.montant = document.getMontant();
         this.fournisseur = document.getFournisseur();
         this.nomFichierOriginal = document.getNomFichierOriginal();
+        this.tailleFichier = document.getTailleFichier();
+        this.typeMime = document.getTypeMime();
         this.statut = document.getStatut().name();
         this.commentaireComptable = document.getCommentaireComptable();
         this.dateValidation = document.getDateValidation();
         this.createdAt = document.getCreatedAt();
         this.updatedAt = document.getUpdatedAt();
+        this.version = document.getVersion();
 
         if (document.getSociete() != null) {
             this.societeId = document.getSociete().getId();
             this.societeRaisonSociale = document.getSociete().getRaisonSociale();
         }
     }
+
+    /**
+     * Constructor-expression projection used by the list queries
+     * (see DocumentRepositoryCustomImpl): rows are built straight from the selected
+     * columns, without hydrating Document/Societe entities in the persistence context.
+     */
+    public DocumentResponseDTO(Long id, String numeroPiece, Document.TypeDocument type, String categorieComptable,
+                               LocalDate datePiece, BigDecimal montant, String fournisseur,
+                               String nomFichierOriginal, Long tailleFichier, String typeMime,
+                               Document.StatutDocument statut, String commentaireComptable,
+                               LocalDateTime dateValidation, LocalDateTime createdAt, LocalDateTime updatedAt,
+                               Long version, Long societeId, String societeRaisonSociale) {
+        this.id = id;
+        this.numeroPiece = numeroPiece;
+        this.type = type.name();
+        this.categorieComptable = categorieComptable;
+        this.datePiece = datePiece;
+        this.montant = montant;
+        this.fournisseur = fournisseur;
+        this.nomFichierOriginal = nomFichierOriginal;
+        this.tailleFichier = tailleFichier;
+        this.typeMime = typeMime;
+        this.statut = statut.name();
+        this.commentaireComptable = commentaireComptable;
+        this.dateValidation = dateValidation;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.version = version;
+        this.societeId = societeId;
+        this.societeRaisonSociale = societeRaisonSociale;
+    }
 }
 
@@ -0,0 +1,24 @@
+package com.cabinet.springbootcabinetcomptablemanagement.dtos.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of search results, best match first (most recent pièce first without supplier criterion)
+ * facettes: number of matching documents per value of type, categorieComptable, statut and exerciceComptable
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSearchResponseDTO {
+
+    private long total;
+    private int page;
+    private int size;
+    private List<DocumentResponseDTO> documents;
+    private Map<String, Map<String, Long>> facettes;
+}
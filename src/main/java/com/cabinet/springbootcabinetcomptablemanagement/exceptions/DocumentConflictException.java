@@ -0,0 +1,47 @@
+package com.cabinet.springbootcabinetcomptablemanagement.exceptions;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+
+/**
+ * Exception thrown when a document changed between the moment it was read and the moment it is written
+ * Examples: document already validated by another accountant, stale version sent by the client
+ *
+ * HTTP Status: 409 CONFLICT
+ */
+public class DocumentConflictException extends RuntimeException {
+
+    /**
+     * Constructor with message
+     * @param message Error message describing the conflict
+     */
+    public DocumentConflictException(String message) {
+        super(message);
+    }
+
+    /**
+     * Factory method for a transition that is not allowed from the current statut
+     * @param id The document ID
+     * @param actuel The statut the document is in
+     * @param cible The requested statut
+     * @return DocumentConflictException with formatted message
+     */
+    public static DocumentConflictException forTransition(Long id, Document.StatutDocument actuel,
+                                                          Document.StatutDocument cible) {
+        return new DocumentConflictException(
+            String.format("Le document %d est déjà %s, passage à %s impossible", id, actuel, cible)
+        );
+    }
+
+    /**
+     * Factory method for a write based on an outdated version
+     * @param id The document ID
+     * @param attendue The version the client based its decision on
+     * @param actuelle The current version
+     * @return DocumentConflictException with formatted message
+     */
+    public static DocumentConflictException forVersion(Long id, Long attendue, Long actuelle) {
+        return new DocumentConflictException(
+            String.format("Le document %d a été modifié (version %d, attendue %d)", id, actuelle, attendue)
+        );
+    }
+}
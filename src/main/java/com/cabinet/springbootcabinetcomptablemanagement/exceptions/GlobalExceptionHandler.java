@@ -1,6 +1,8 @@
 package com.cabinet.springbootcabinetcomptablemanagement.exceptions;
 
 import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.ApiErrorResponseDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -23,6 +25,7 @@ import java.util.Map;
  * and automatically convert return values to JSON
  */
 @RestControllerAdvice
+@Slf4j
 public class GlobalExceptionHandler {
 
     // ========== CUSTOM EXCEPTIONS ==========
@@ -100,6 +103,34 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    /**
+     * Handle DocumentConflictException and optimistic locking failures
+     * Returns HTTP 409 CONFLICT
+     *
+     * Example triggers:
+     * - Document validated or rejected concurrently by another accountant
+     * - Document saved from a stale copy (@Version mismatch)
+     */
+    @ExceptionHandler({DocumentConflictException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<ApiErrorResponseDTO> handleConflict(
+            RuntimeException ex,
+            WebRequest request) {
+
+        String message = ex instanceof DocumentConflictException
+                ? ex.getMessage()
+                : "La ressource a été modifiée entre-temps, veuillez recharger et réessayer";
+
+        ApiErrorResponseDTO error = ApiErrorResponseDTO.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .error(HttpStatus.CONFLICT.getReasonPhrase())
+                .message(message)
+                .path(extractPath(request))
+                .build();
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     /**
      * Handle InvalidFileException
      * Returns HTTP 400 BAD REQUEST
@@ -150,6 +181,30 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
 
+    /**
+     * Handle InvalidRequestException (and InvalidCursorException)
+     * Returns HTTP 400 BAD REQUEST
+     *
+     * Example triggers:
+     * - Invalid pagination cursor
+     * - Unknown export format
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ApiErrorResponseDTO> handleInvalidRequest(
+            InvalidRequestException ex,
+            WebRequest request) {
+
+        ApiErrorResponseDTO error = ApiErrorResponseDTO.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.BAD_REQUEST.value())
+                .error(HttpStatus.BAD_REQUEST.getReasonPhrase())
+                .message(ex.getMessage())
+                .path(extractPath(request))
+                .build();
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
     // ========== SPRING SECURITY EXCEPTIONS ==========
 
     /**
@@ -233,8 +288,7 @@ public class GlobalExceptionHandler {
             org.hibernate.LazyInitializationException ex,
             WebRequest request) {
 
-        System.err.println("❌ LazyInitializationException: " + ex.getMessage());
-        ex.printStackTrace();
+        log.error("LazyInitializationException: {}", ex.getMessage(), ex);
 
         ApiErrorResponseDTO error = ApiErrorResponseDTO.builder()
                 .timestamp(LocalDateTime.now())
@@ -261,11 +315,8 @@ public class GlobalExceptionHandler {
             Exception ex,
             WebRequest request) {
 
-        // Log the exception for debugging (in production, use proper logging)
-        System.err.println("❌ Unexpected error: " + ex.getClass().getSimpleName());
-        System.err.println("   Message: " + ex.getMessage());
-        System.err.println("   Cause: " + (ex.getCause() != null ? ex.getCause().getClass().getSimpleName() + ": " + ex.getCause().getMessage() : "null"));
-        ex.printStackTrace();
+        // Log the exception with its stack trace (correlation ID comes from the MDC)
+        log.error("Erreur inattendue: {} - {}", ex.getClass().getSimpleName(), ex.getMessage(), ex);
 
         // Include exception details in response for debugging (remove in production)
         String errorMessage = "Une erreur inattendue s'est produite. Veuillez contacter l'administrateur.";
@@ -0,0 +1,27 @@
+package com.cabinet.springbootcabinetcomptablemanagement.exceptions;
+
+/**
+ * Exception thrown when a pagination cursor was not produced by the API
+ * Examples: truncated cursor, cursor edited by the client
+ *
+ * HTTP Status: 400 BAD REQUEST
+ */
+public class InvalidCursorException extends InvalidRequestException {
+
+    /**
+     * Constructor with message
+     * @param message Error message describing the invalid cursor
+     */
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    /**
+     * Factory method for a cursor that cannot be decoded
+     * @param cursor The cursor sent by the client
+     * @return InvalidCursorException with formatted message
+     */
+    public static InvalidCursorException of(String cursor) {
+        return new InvalidCursorException("Curseur de pagination invalide: " + cursor);
+    }
+}
@@ -0,0 +1,18 @@
+package com.cabinet.springbootcabinetcomptablemanagement.exceptions;
+
+/**
+ * Exception thrown when request parameters are well-formed but cannot be used
+ * Examples: unknown export format, batch without documents nor société
+ *
+ * HTTP Status: 400 BAD REQUEST
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    /**
+     * Constructor with message
+     * @param message Error message describing the invalid parameter
+     */
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
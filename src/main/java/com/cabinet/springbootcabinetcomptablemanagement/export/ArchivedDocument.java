@@ -0,0 +1,44 @@
+package com.cabinet.springbootcabinetcomptablemanagement.export;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * One document of an audit archive: its manifest line and where its file is, read by a JPQL constructor
+ * expression like DocumentExportRow
+ */
+public record ArchivedDocument(Long id,
+                               String exerciceComptable,
+                               String numeroPiece,
+                               LocalDate datePiece,
+                               Document.TypeDocument type,
+                               String categorieComptable,
+                               String fournisseur,
+                               BigDecimal montant,
+                               Document.StatutDocument statut,
+                               String nomFichierOriginal,
+                               String cheminFichier,
+                               String hashFichier,
+                               Long tailleFichier) {
+
+    /**
+     * Path of the file in the archive: exercice/TYPE/numeroPiece-id.extension, the id keeps two pièces with
+     * the same (sanitized) number apart
+     */
+    public String entryName() {
+        String extension = "";
+        int dot = nomFichierOriginal != null ? nomFichierOriginal.lastIndexOf('.') : -1;
+        if (dot >= 0 && dot < nomFichierOriginal.length() - 1) {
+            extension = "." + safe(nomFichierOriginal.substring(dot + 1)).toLowerCase(Locale.ROOT);
+        }
+        return safe(exerciceComptable) + "/" + type.name() + "/" + safe(numeroPiece) + "-" + id + extension;
+    }
+
+    // Letters, digits, '-' and '_' only: no path separators, no "..", portable on every unzip tool
+    private static String safe(String value) {
+        return value.replaceAll("[^\\p{L}\\p{N}_-]+", "_");
+    }
+}
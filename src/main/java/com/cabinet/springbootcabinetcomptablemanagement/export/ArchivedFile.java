@@ -0,0 +1,12 @@
+package com.cabinet.springbootcabinetcomptablemanagement.export;
+
+/**
+ * What the audit archive keeps of a document between the manifest and the copy of the files: enough to read
+ * the stored file, name its entry and report it as missing
+ */
+public record ArchivedFile(Long id,
+                           String entryName,
+                           String numeroPiece,
+                           String cheminFichier,
+                           Long tailleFichier) {
+}
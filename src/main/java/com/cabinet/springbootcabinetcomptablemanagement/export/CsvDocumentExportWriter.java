@@ -0,0 +1,85 @@
+package com.cabinet.springbootcabinetcomptablemanagement.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * CSV as the spreadsheet and ledger imports of the cabinet expect it: UTF-8 with a BOM (accents read
+ * correctly by Excel), ';' separator, CRLF line ends, ISO dates and amounts with a decimal point
+ * Text starting with = + - @ is prefixed with ' so that it is never run as a formula (CSV injection).
+ */
+class CsvDocumentExportWriter implements DocumentExportWriter {
+
+    private static final char SEPARATOR = ';';
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer writer;
+
+    CsvDocumentExportWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write('\uFEFF');
+        line(DocumentExportRow.HEADERS);
+    }
+
+    @Override
+    public void write(DocumentExportRow row) throws IOException {
+        line(String.valueOf(row.id()),
+                text(row.numeroPiece()),
+                row.datePiece().toString(),
+                row.type().name(),
+                text(row.categorieComptable()),
+                text(row.fournisseur()),
+                row.montant().toPlainString(),
+                row.statut().name(),
+                row.dateValidation() != null ? DATE_TIME.format(row.dateValidation()) : "",
+                text(row.commentaireComptable()),
+                text(row.nomFichierOriginal()));
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        // Nothing of its own: the output stream belongs to the caller
+    }
+
+    private void line(String... values) throws IOException {
+        line(writer, values);
+    }
+
+    /**
+     * One CSV line, also used for the manifest of the audit archive
+     */
+    static void line(Writer writer, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(SEPARATOR);
+            }
+            writer.write(quote(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    static String text(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        char first = value.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' ? "'" + value : value;
+    }
+
+    private static String quote(String value) {
+        if (value.indexOf(SEPARATOR) < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
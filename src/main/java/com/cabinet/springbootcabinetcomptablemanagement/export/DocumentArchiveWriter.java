@@ -0,0 +1,230 @@
+package com.cabinet.springbootcabinetcomptablemanagement.export;
+
+import com.cabinet.springbootcabinetcomptablemanagement.services.FileStorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Audit archive written straight to the response: manifest.csv, then the file of every document, then
+ * fichiers-absents.csv when some stored files could not be read
+ *
+ * The documents are read once, by writeManifest, which returns the few fields needed to copy the files:
+ * the database can be released before the files (the long part of the download) are written.
+ * Each file is copied from its storage channel into the ZIP stream through one reused buffer, nothing is
+ * written to disk and no file is held in memory. With a read-ahead of N, the next N files (those up to
+ * readAheadMaxBytes) are read in parallel on the storage executor while the current one is written,
+ * which hides the latency of a remote store; memory stays bounded by N x readAheadMaxBytes.
+ */
+@Slf4j
+public class DocumentArchiveWriter implements Closeable {
+
+    public static final String MANIFEST = "manifest.csv";
+    public static final String MISSING_FILES = "fichiers-absents.csv";
+
+    private static final String[] MANIFEST_HEADERS = {
+            "Fichier", "ID", "Exercice", "Numéro pièce", "Date pièce", "Type", "Catégorie comptable", "Fournisseur",
+            "Montant", "Statut", "Fichier d'origine", "SHA-256", "Taille"
+    };
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ZipOutputStream zip;
+    private final WritableByteChannel zipChannel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final FileStorageService fileStorageService;
+    private final Executor executor;
+    private final int readAhead;
+    private final long readAheadMaxBytes;
+    private final Deque<Pending> pending = new ArrayDeque<>();
+    private final List<String[]> missing = new ArrayList<>();
+
+    public DocumentArchiveWriter(OutputStream out, FileStorageService fileStorageService, Executor executor,
+                                 int readAhead, long readAheadMaxBytes) {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        // PDFs and images are already compressed: the fastest level, deflating them again gains next to nothing
+        this.zip.setLevel(Deflater.BEST_SPEED);
+        this.zipChannel = Channels.newChannel(zip);
+        this.fileStorageService = fileStorageService;
+        this.executor = executor;
+        this.readAhead = readAhead;
+        this.readAheadMaxBytes = readAheadMaxBytes;
+    }
+
+    /**
+     * @return The files to copy with writeFiles, in manifest order
+     */
+    public List<ArchivedFile> writeManifest(Stream<ArchivedDocument> documents) throws IOException {
+        List<ArchivedFile> files = new ArrayList<>();
+        zip.putNextEntry(new ZipEntry(MANIFEST));
+        Writer manifest = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        manifest.write('\uFEFF');
+        CsvDocumentExportWriter.line(manifest, MANIFEST_HEADERS);
+        for (Iterator<ArchivedDocument> it = documents.iterator(); it.hasNext(); ) {
+            ArchivedDocument document = it.next();
+            String entryName = document.entryName();
+            files.add(new ArchivedFile(document.id(), entryName, document.numeroPiece(), document.cheminFichier(),
+                    document.tailleFichier()));
+            CsvDocumentExportWriter.line(manifest,
+                    entryName,
+                    String.valueOf(document.id()),
+                    CsvDocumentExportWriter.text(document.exerciceComptable()),
+                    CsvDocumentExportWriter.text(document.numeroPiece()),
+                    document.datePiece().toString(),
+                    document.type().name(),
+                    CsvDocumentExportWriter.text(document.categorieComptable()),
+                    CsvDocumentExportWriter.text(document.fournisseur()),
+                    document.montant().toPlainString(),
+                    document.statut().name(),
+                    CsvDocumentExportWriter.text(document.nomFichierOriginal()),
+                    document.hashFichier() != null ? document.hashFichier() : "",
+                    document.tailleFichier() != null ? document.tailleFichier().toString() : "");
+        }
+        // Flushes the writer's encoder into the entry, the ZIP stream itself stays open
+        manifest.flush();
+        zip.closeEntry();
+        return files;
+    }
+
+    /**
+     * @return Number of files written (documents whose file could not be read are listed in MISSING_FILES)
+     */
+    public long writeFiles(List<ArchivedFile> files) throws IOException {
+        long written = 0;
+        Iterator<ArchivedFile> it = files.iterator();
+        fill(it);
+        while (!pending.isEmpty()) {
+            Pending next = pending.poll();
+            fill(it);
+            if (write(next)) {
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Write the list of missing files if any and the end of the archive; the output itself is left open
+     */
+    public void finish() throws IOException {
+        if (!missing.isEmpty()) {
+            zip.putNextEntry(new ZipEntry(MISSING_FILES));
+            Writer report = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+            report.write('\uFEFF');
+            CsvDocumentExportWriter.line(report, "Fichier", "ID", "Numéro pièce", "Erreur");
+            for (String[] line : missing) {
+                CsvDocumentExportWriter.line(report, line);
+            }
+            report.flush();
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    public int getMissingCount() {
+        return missing.size();
+    }
+
+    @Override
+    public void close() {
+        // Archive interrupted (client gone, database error): drop the files read ahead
+        pending.forEach(next -> {
+            if (next.content() != null) {
+                next.content().cancel(false);
+            }
+        });
+        pending.clear();
+    }
+
+    private void fill(Iterator<ArchivedFile> files) {
+        while (pending.size() <= readAhead && files.hasNext()) {
+            ArchivedFile document = files.next();
+            boolean small = document.tailleFichier() != null && document.tailleFichier() <= readAheadMaxBytes;
+            pending.add(new Pending(document, readAhead > 0 && small
+                    ? CompletableFuture.supplyAsync(() -> readAll(document), executor)
+                    : null));
+        }
+    }
+
+    private boolean write(Pending next) throws IOException {
+        ArchivedFile document = next.document();
+        if (next.content() != null) {
+            byte[] content;
+            try {
+                content = next.content().join();
+            } catch (CompletionException e) {
+                recordMissing(document, e.getCause());
+                return false;
+            }
+            zip.putNextEntry(new ZipEntry(document.entryName()));
+            zip.write(content);
+            zip.closeEntry();
+            return true;
+        }
+
+        // Opened before the entry is started: a missing file leaves no empty entry behind. A failure once
+        // the copy has started cannot be undone in the stream and interrupts the archive.
+        ReadableByteChannel channel;
+        try {
+            channel = fileStorageService.loadFileAsResource(document.cheminFichier()).readableChannel();
+        } catch (IOException | RuntimeException e) {
+            recordMissing(document, e);
+            return false;
+        }
+        try (channel) {
+            zip.putNextEntry(new ZipEntry(document.entryName()));
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    zipChannel.write(buffer);
+                }
+                buffer.clear();
+            }
+            zip.closeEntry();
+        }
+        return true;
+    }
+
+    private byte[] readAll(ArchivedFile document) {
+        Resource resource = fileStorageService.loadFileAsResource(document.cheminFichier());
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private void recordMissing(ArchivedFile document, Throwable error) {
+        log.warn("Fichier du document {} absent de l'archive ({}): {}", document.id(), document.cheminFichier(),
+                error.getMessage());
+        missing.add(new String[]{document.entryName(), String.valueOf(document.id()),
+                CsvDocumentExportWriter.text(document.numeroPiece()),
+                CsvDocumentExportWriter.text(error.getClass().getSimpleName() + ": " + error.getMessage())});
+    }
+
+    private record Pending(ArchivedFile document, CompletableFuture<byte[]> content) {
+    }
+}
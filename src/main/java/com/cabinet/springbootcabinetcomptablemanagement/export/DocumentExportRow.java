@@ -0,0 +1,29 @@
+package com.cabinet.springbootcabinetcomptablemanagement.export;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One exported document, read by a JPQL constructor expression: no managed entity, so the persistence
+ * context does not grow with the number of rows streamed
+ */
+public record DocumentExportRow(Long id,
+                                String numeroPiece,
+                                LocalDate datePiece,
+                                Document.TypeDocument type,
+                                String categorieComptable,
+                                String fournisseur,
+                                BigDecimal montant,
+                                Document.StatutDocument statut,
+                                LocalDateTime dateValidation,
+                                String commentaireComptable,
+                                String nomFichierOriginal) {
+
+    static final String[] HEADERS = {
+            "ID", "Numéro pièce", "Date pièce", "Type", "Catégorie comptable", "Fournisseur", "Montant", "Statut",
+            "Date validation", "Commentaire comptable", "Fichier"
+    };
+}
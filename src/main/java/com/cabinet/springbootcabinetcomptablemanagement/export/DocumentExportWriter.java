@@ -0,0 +1,24 @@
+package com.cabinet.springbootcabinetcomptablemanagement.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes exported documents one row at a time, straight to the response: nothing is kept per row once
+ * written (a CSV line, or an XLSX row flushed out of the SXSSF window)
+ */
+public interface DocumentExportWriter extends Closeable {
+
+    void write(DocumentExportRow row) throws IOException;
+
+    /**
+     * Write what remains (end of the file) to the output; the output itself is left open
+     */
+    void finish() throws IOException;
+
+    /**
+     * Release the resources (temporary files), whether finish() was called or not
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,43 @@
+package com.cabinet.springbootcabinetcomptablemanagement.export;
+
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.InvalidRequestException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+public enum ExportFormat {
+    CSV("text/csv;charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * @param format "csv" or "xlsx", case-insensitive
+     */
+    public static ExportFormat of(String format) {
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Format d'export inconnu: " + format + " (csv ou xlsx)");
+        }
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public DocumentExportWriter open(OutputStream out) throws IOException {
+        return this == CSV ? new CsvDocumentExportWriter(out) : new XlsxDocumentExportWriter(out);
+    }
+}
@@ -0,0 +1,106 @@
+package com.cabinet.springbootcabinetcomptablemanagement.export;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * XLSX through POI's streaming API: only the last WINDOW rows stay in memory, older ones are flushed to a
+ * compressed temporary file, and the workbook is zipped to the output at the end
+ * A sheet holds at most about a million rows: beyond that the export continues on another sheet.
+ */
+class XlsxDocumentExportWriter implements DocumentExportWriter {
+
+    private static final int WINDOW = 200;
+    private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+    private static final int[] COLUMN_WIDTHS = {10, 20, 12, 18, 20, 30, 14, 12, 18, 40, 30};
+
+    private final OutputStream out;
+    private final SXSSFWorkbook workbook = new SXSSFWorkbook(WINDOW);
+    private final CellStyle header;
+    private final CellStyle amount;
+    private final CellStyle date;
+    private final CellStyle dateTime;
+    private Sheet sheet;
+    private int rowIndex;
+
+    XlsxDocumentExportWriter(OutputStream out) {
+        this.out = out;
+        workbook.setCompressTempFiles(true);
+
+        Font bold = workbook.createFont();
+        bold.setBold(true);
+        header = workbook.createCellStyle();
+        header.setFont(bold);
+        amount = style("#,##0.00");
+        date = style("dd/mm/yyyy");
+        dateTime = style("dd/mm/yyyy hh:mm");
+        newSheet();
+    }
+
+    @Override
+    public void write(DocumentExportRow document) {
+        if (rowIndex == MAX_ROWS) {
+            newSheet();
+        }
+        Row row = sheet.createRow(rowIndex++);
+        row.createCell(0).setCellValue(document.id());
+        row.createCell(1).setCellValue(document.numeroPiece());
+        row.createCell(2).setCellValue(document.datePiece());
+        row.getCell(2).setCellStyle(date);
+        row.createCell(3).setCellValue(document.type().name());
+        row.createCell(4).setCellValue(document.categorieComptable());
+        row.createCell(5).setCellValue(document.fournisseur());
+        row.createCell(6).setCellValue(document.montant().doubleValue());
+        row.getCell(6).setCellStyle(amount);
+        row.createCell(7).setCellValue(document.statut().name());
+        if (document.dateValidation() != null) {
+            row.createCell(8).setCellValue(document.dateValidation());
+            row.getCell(8).setCellStyle(dateTime);
+        }
+        if (document.commentaireComptable() != null) {
+            row.createCell(9).setCellValue(document.commentaireComptable());
+        }
+        row.createCell(10).setCellValue(document.nomFichierOriginal());
+    }
+
+    @Override
+    public void finish() throws IOException {
+        workbook.write(out);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            workbook.close();
+        } finally {
+            workbook.dispose();
+        }
+    }
+
+    private void newSheet() {
+        int number = workbook.getNumberOfSheets() + 1;
+        sheet = workbook.createSheet(number == 1 ? "Documents" : "Documents (" + number + ")");
+        sheet.createFreezePane(0, 1);
+        Row row = sheet.createRow(0);
+        for (int i = 0; i < DocumentExportRow.HEADERS.length; i++) {
+            row.createCell(i).setCellValue(DocumentExportRow.HEADERS[i]);
+            row.getCell(i).setCellStyle(header);
+            sheet.setColumnWidth(i, COLUMN_WIDTHS[i] * 256);
+        }
+        rowIndex = 1;
+    }
+
+    private CellStyle style(String format) {
+        CellStyle style = workbook.createCellStyle();
+        style.setDataFormat(workbook.createDataFormat().getFormat(format));
+        return style;
+    }
+}
@@ -0,0 +1,89 @@
+package com.cabinet.springbootcabinetcomptablemanagement.extraction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OCR through a local Tesseract installation (documents.extraction.ocr.command), one process per image
+ * A separate process rather than a native binding: a crash or a runaway page cannot take the JVM down,
+ * and documents.extraction.ocr.timeout bounds the time spent on one image.
+ */
+@Component
+public class TesseractOcr {
+
+    private final boolean enabled;
+    private final String command;
+    private final String languages;
+    private final Duration timeout;
+    private final int maxPages;
+    private final int dpi;
+
+    public TesseractOcr(@Value("${documents.extraction.ocr.enabled:false}") boolean enabled,
+                        @Value("${documents.extraction.ocr.command:tesseract}") String command,
+                        @Value("${documents.extraction.ocr.languages:fra+eng}") String languages,
+                        @Value("${documents.extraction.ocr.timeout:60s}") Duration timeout,
+                        @Value("${documents.extraction.ocr.max-pages:5}") int maxPages,
+                        @Value("${documents.extraction.ocr.dpi:300}") int dpi) {
+        this.enabled = enabled;
+        this.command = command;
+        this.languages = languages;
+        this.timeout = timeout;
+        this.maxPages = maxPages;
+        this.dpi = dpi;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Pages of a scanned PDF sent to OCR, the others are ignored
+     */
+    public int getMaxPages() {
+        return maxPages;
+    }
+
+    /**
+     * Resolution at which scanned PDF pages are rendered for OCR
+     */
+    public int getDpi() {
+        return dpi;
+    }
+
+    /**
+     * Text of one image file (PNG, JPEG...)
+     * @throws IOException if Tesseract cannot be started, fails or exceeds the timeout
+     */
+    public String recognize(Path image) throws IOException {
+        Path output = Files.createTempFile("ocr-", ".txt");
+        try {
+            Process process = new ProcessBuilder(command, image.toString(), "stdout", "-l", languages)
+                    .redirectOutput(output.toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            try {
+                if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    process.destroyForcibly();
+                    throw new IOException("OCR interrompu après " + timeout.toSeconds() + " s");
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new IOException("OCR interrompu", e);
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException("OCR en échec (code " + process.exitValue() + ")");
+            }
+            return Files.readString(output, StandardCharsets.UTF_8);
+        } finally {
+            Files.deleteIfExists(output);
+        }
+    }
+}
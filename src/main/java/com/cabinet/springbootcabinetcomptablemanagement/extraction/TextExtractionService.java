@@ -0,0 +1,273 @@
+package com.cabinet.springbootcabinetcomptablemanagement.extraction;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.models.DocumentText;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentTextRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.search.DocumentIndexer;
+import com.cabinet.springbootcabinetcomptablemanagement.services.FileStorageService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous text extraction of the uploaded files, feeding the search index
+ *
+ * The upload only inserts a document_texts row (EN_ATTENTE) in its own transaction; once it commits the
+ * document is handed to a bounded pool (documents.extraction.workers threads, low priority, a queue of
+ * documents.extraction.queue-capacity). When the queue is full nothing waits: the row stays pending and
+ * the periodic sweep submits it once there is room, so the table is the real queue and survives restarts.
+ * A failed extraction is retried documents.extraction.max-attempts times with an exponential delay
+ * (documents.extraction.retry-delay, then twice as long...) before the row is marked ECHEC.
+ */
+@Component
+@Slf4j
+public class TextExtractionService {
+
+    private static final List<DocumentText.Statut> REUSABLE = List.of(DocumentText.Statut.EXTRAIT, DocumentText.Statut.AUCUN_TEXTE);
+
+    private final DocumentTextRepository documentTextRepository;
+    private final DocumentRepository documentRepository;
+    private final FileStorageService fileStorageService;
+    private final TextExtractor textExtractor;
+    private final DocumentIndexer documentIndexer;
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+
+    private final ThreadPoolExecutor pool;
+    // Submitted and not finished yet: the sweep must not queue them twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final MeterRegistry registry;
+
+    public TextExtractionService(DocumentTextRepository documentTextRepository,
+                                 DocumentRepository documentRepository,
+                                 FileStorageService fileStorageService,
+                                 TextExtractor textExtractor,
+                                 DocumentIndexer documentIndexer,
+                                 @Value("${documents.extraction.enabled:true}") boolean enabled,
+                                 @Value("${documents.extraction.workers:2}") int workers,
+                                 @Value("${documents.extraction.queue-capacity:100}") int queueCapacity,
+                                 @Value("${documents.extraction.max-attempts:3}") int maxAttempts,
+                                 @Value("${documents.extraction.retry-delay:1m}") Duration retryDelay,
+                                 MeterRegistry registry) {
+        this.documentTextRepository = documentTextRepository;
+        this.documentRepository = documentRepository;
+        this.fileStorageService = fileStorageService;
+        this.textExtractor = textExtractor;
+        this.documentIndexer = documentIndexer;
+        this.enabled = enabled;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.registry = registry;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("text-extraction-");
+        // Extraction is background work: request threads go first when the CPU is busy
+        threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+        this.pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("cabinet.extraction.queue", pool, executor -> executor.getQueue().size())
+                .description("Documents en file d'attente d'extraction de texte")
+                .register(registry);
+    }
+
+    /**
+     * New documents, inside the transaction that creates them: queued for extraction once it commits
+     */
+    public void queueAfterCommit(Collection<Document> documents) {
+        if (!enabled || documents.isEmpty()) {
+            return;
+        }
+        documentTextRepository.saveAll(documents.stream()
+                .map(document -> DocumentText.pending(document.getId(), document.getCheminFichier()))
+                .toList());
+        submitAfterCommit(documents.stream().map(Document::getId).toList());
+    }
+
+    /**
+     * The file of a document was replaced: its text is extracted again
+     */
+    public void requeueAfterCommit(Document document) {
+        if (!enabled) {
+            return;
+        }
+        if (documentTextRepository.reset(document.getId(), document.getCheminFichier(), LocalDateTime.now()) == 0) {
+            documentTextRepository.save(DocumentText.pending(document.getId(), document.getCheminFichier()));
+        }
+        submitAfterCommit(List.of(document.getId()));
+    }
+
+    /**
+     * The document is deleted, in the same transaction
+     */
+    public void forget(Long documentId) {
+        documentTextRepository.deleteByDocumentId(documentId);
+    }
+
+    private void submitAfterCommit(List<Long> documentIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            documentIds.forEach(this::submit);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    documentIds.forEach(TextExtractionService.this::submit);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return false if the queue is full (the document stays pending for the next sweep)
+     */
+    private boolean submit(Long documentId) {
+        if (!inFlight.add(documentId)) {
+            return true;
+        }
+        try {
+            pool.execute(() -> extract(documentId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(documentId);
+            return false;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int queued = documentTextRepository.queueMissing(LocalDateTime.now());
+            if (queued > 0) {
+                log.info("Extraction de texte: {} document(s) existant(s) mis en file", queued);
+            }
+        } catch (Exception e) {
+            log.error("Mise en file des documents existants pour l'extraction de texte impossible", e);
+        }
+        sweep();
+    }
+
+    /**
+     * Submit the pending documents that are due, as many as the queue can take
+     */
+    @Scheduled(fixedDelayString = "${documents.extraction.sweep-interval:30s}", initialDelayString = "${documents.extraction.sweep-interval:30s}")
+    public void sweep() {
+        int room = pool.getQueue().remainingCapacity();
+        if (!enabled || room == 0 || pool.isShutdown()) {
+            return;
+        }
+        try {
+            List<Long> due = documentTextRepository.findDueIds(DocumentText.Statut.EN_ATTENTE, LocalDateTime.now(), Limit.of(room));
+            for (Long documentId : due) {
+                if (!submit(documentId)) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Lecture de la file d'extraction de texte impossible", e);
+        }
+    }
+
+    private void extract(Long documentId) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "skipped";
+        DocumentText row = null;
+        try {
+            row = documentTextRepository.findById(documentId).orElse(null);
+            if (row == null || row.getStatut() != DocumentText.Statut.EN_ATTENTE) {
+                return;
+            }
+            Document document = documentRepository.findById(documentId).orElse(null);
+            if (document == null) {
+                // Document deleted without going through DocumentService: the row would be swept forever
+                documentTextRepository.deleteById(documentId);
+                return;
+            }
+
+            // Same stored file as an already extracted document (content-addressed duplicates): reuse its text
+            TextExtractor.Extraction extraction = documentTextRepository
+                    .findFirstByCheminFichierAndStatutIn(row.getCheminFichier(), REUSABLE)
+                    .map(done -> new TextExtractor.Extraction(done.getTexte(), done.getMethode()))
+                    .orElse(null);
+            if (extraction == null) {
+                extraction = textExtractor.extract(fileStorageService.loadFileAsResource(row.getCheminFichier()),
+                        document.getTypeMime());
+            }
+
+            DocumentText.Statut statut = extraction.hasText() ? DocumentText.Statut.EXTRAIT : DocumentText.Statut.AUCUN_TEXTE;
+            int saved = documentTextRepository.saveResult(documentId, row.getCheminFichier(), statut,
+                    extraction.methode(), extraction.text(), LocalDateTime.now());
+            if (saved > 0 && extraction.hasText()) {
+                documentIndexer.reindexAfterCommit(List.of(documentId));
+            }
+            outcome = statut.name().toLowerCase();
+            log.debug("Extraction de texte du document {}: {}", documentId, statut);
+        } catch (Exception e) {
+            outcome = "error";
+            recordFailure(documentId, row, e);
+        } finally {
+            inFlight.remove(documentId);
+            sample.stop(Timer.builder("cabinet.extraction.duration")
+                    .description("Durée d'extraction du texte d'un document")
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+    }
+
+    private void recordFailure(Long documentId, DocumentText row, Exception error) {
+        if (row == null) {
+            log.warn("Extraction de texte du document {} impossible", documentId, error);
+            return;
+        }
+        int attempt = row.getTentatives() + 1;
+        boolean giveUp = attempt >= maxAttempts;
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        try {
+            documentTextRepository.recordFailure(documentId, row.getCheminFichier(),
+                    giveUp ? DocumentText.Statut.ECHEC : DocumentText.Statut.EN_ATTENTE,
+                    message.length() > 500 ? message.substring(0, 500) : message,
+                    LocalDateTime.now().plus(retryDelay.multipliedBy(1L << Math.min(attempt - 1, 20))));
+        } catch (Exception e) {
+            log.warn("Enregistrement de l'échec d'extraction du document {} impossible", documentId, e);
+        }
+        if (giveUp) {
+            log.warn("Extraction de texte du document {} abandonnée après {} tentative(s)", documentId, attempt, error);
+        } else {
+            log.info("Extraction de texte du document {} en échec (tentative {}), nouvel essai plus tard: {}",
+                    documentId, attempt, message);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Rows of interrupted extractions are still EN_ATTENTE: picked up again at the next start
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
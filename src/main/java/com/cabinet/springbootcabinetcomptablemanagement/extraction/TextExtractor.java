@@ -0,0 +1,125 @@
+package com.cabinet.springbootcabinetcomptablemanagement.extraction;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.DocumentText;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+
+/**
+ * Text of a stored file: the text layer of a PDF, or OCR (TesseractOcr, when enabled) for images and
+ * for PDFs made of scanned pages. The text is normalized (blank runs collapsed) and capped at
+ * documents.extraction.max-chars, the first pages of an invoice hold what is searched for.
+ */
+@Component
+public class TextExtractor {
+
+    private static final String PDF = "application/pdf";
+    private static final Pattern BLANKS = Pattern.compile("[\\h\\x0B\\f\\r\\x00]+");
+    private static final Pattern EMPTY_LINES = Pattern.compile("\\n\\s*\\n+");
+
+    /**
+     * @param text    Extracted text, null if there is none
+     * @param methode How it was obtained
+     */
+    public record Extraction(String text, DocumentText.Methode methode) {
+
+        public boolean hasText() {
+            return text != null && !text.isBlank();
+        }
+    }
+
+    private final TesseractOcr ocr;
+    private final int maxChars;
+    private final int maxPages;
+
+    public TextExtractor(TesseractOcr ocr,
+                         @Value("${documents.extraction.max-chars:32000}") int maxChars,
+                         @Value("${documents.extraction.max-pages:50}") int maxPages) {
+        this.ocr = ocr;
+        this.maxChars = maxChars;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * @param file     Decoded content of the stored file
+     * @param typeMime Type detected at upload (Document.typeMime)
+     */
+    public Extraction extract(Resource file, String typeMime) throws IOException {
+        if (PDF.equals(typeMime)) {
+            return extractPdf(file);
+        }
+        if (typeMime != null && typeMime.startsWith("image/") && ocr.isEnabled()) {
+            Path image = Files.createTempFile("extraction-", typeMime.endsWith("png") ? ".png" : ".jpg");
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, image, StandardCopyOption.REPLACE_EXISTING);
+                return new Extraction(normalize(ocr.recognize(image)), DocumentText.Methode.OCR);
+            } finally {
+                Files.deleteIfExists(image);
+            }
+        }
+        return new Extraction(null, null);
+    }
+
+    private Extraction extractPdf(Resource file) throws IOException {
+        try (InputStream in = file.getInputStream();
+             PDDocument pdf = Loader.loadPDF(new RandomAccessReadBuffer(in))) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            // Reading order of the page rather than the order of the drawing operators (columns of an invoice)
+            stripper.setSortByPosition(true);
+            stripper.setEndPage(maxPages);
+            String text = normalize(stripper.getText(pdf));
+            if (text != null || !ocr.isEnabled()) {
+                return new Extraction(text, DocumentText.Methode.PDF);
+            }
+
+            // No text layer: scanned pages, rendered one by one for OCR
+            PDFRenderer renderer = new PDFRenderer(pdf);
+            StringBuilder pages = new StringBuilder();
+            int lastPage = Math.min(pdf.getNumberOfPages(), ocr.getMaxPages());
+            for (int page = 0; page < lastPage && pages.length() < maxChars; page++) {
+                BufferedImage image = renderer.renderImageWithDPI(page, ocr.getDpi(), ImageType.GRAY);
+                Path png = Files.createTempFile("extraction-", ".png");
+                try {
+                    ImageIO.write(image, "png", png.toFile());
+                    pages.append(ocr.recognize(png)).append('\n');
+                } finally {
+                    Files.deleteIfExists(png);
+                }
+            }
+            return new Extraction(normalize(pages.toString()), DocumentText.Methode.OCR);
+        }
+    }
+
+    /**
+     * Collapse blank runs and empty lines, cap the length; null when nothing is left
+     */
+    String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+        String normalized = EMPTY_LINES.matcher(BLANKS.matcher(text).replaceAll(" ")).replaceAll("\n").strip();
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        if (normalized.length() > maxChars) {
+            int end = Character.isHighSurrogate(normalized.charAt(maxChars - 1)) ? maxChars - 1 : maxChars;
+            normalized = normalized.substring(0, end);
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,105 @@
+package com.cabinet.springbootcabinetcomptablemanagement.metrics;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Business metrics of the document flow, exposed on /actuator/prometheus
+ *
+ * cabinet.documents.upload / .download   latency histograms per TypeDocument
+ * cabinet.documents.upload.bytes / .download.bytes   byte counters per TypeDocument
+ * cabinet.documents.decisions   validations / rejections (rate = throughput), one per document of a batch
+ * cabinet.documents.decisions.batch   latency of a batch decision (POST /api/comptable/documents/decisions)
+ */
+@Component
+@RequiredArgsConstructor
+public class DocumentMetrics {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_ERROR = "error";
+    // Decision lost against a concurrent one (409)
+    public static final String OUTCOME_CONFLICT = "conflict";
+
+    private final MeterRegistry registry;
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    public void recordUpload(Timer.Sample sample, Document.TypeDocument type, long bytes, String outcome) {
+        sample.stop(Timer.builder("cabinet.documents.upload")
+                .description("Upload d'un document (stockage + enregistrement)")
+                .tag("type", type.name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry));
+        if (bytes > 0) {
+            bytesCounter("cabinet.documents.upload.bytes", type).increment(bytes);
+        }
+    }
+
+    public void recordDownload(Document.TypeDocument type, int status, long bytes, long durationNanos) {
+        Timer.builder("cabinet.documents.download")
+                .description("Téléchargement d'un document, jusqu'à la fin de l'écriture de la réponse")
+                .tag("type", type.name())
+                .tag("status", String.valueOf(status))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        if (bytes > 0) {
+            bytesCounter("cabinet.documents.download.bytes", type).increment(bytes);
+        }
+    }
+
+    public void recordDecision(Timer.Sample sample, Document.StatutDocument decision, String outcome) {
+        sample.stop(decisionTimer(decision, outcome));
+    }
+
+    /**
+     * Batch decision: the batch latency, and one cabinet.documents.decisions sample per document so that
+     * the decision throughput does not depend on how the accountant sent them (the batch duration is
+     * shared between its documents)
+     */
+    public void recordDecisions(Timer.Sample sample, Document.StatutDocument decision, String outcome,
+                                int appliques, int conflits) {
+        long nanos = sample.stop(Timer.builder("cabinet.documents.decisions.batch")
+                .description("Validation ou rejet groupé de documents par le comptable")
+                .tag("decision", decision.name())
+                .tag("outcome", outcome)
+                .register(registry));
+        int total = appliques + conflits;
+        if (total == 0) {
+            return;
+        }
+        long share = nanos / total;
+        Timer success = decisionTimer(decision, OUTCOME_SUCCESS);
+        for (int i = 0; i < appliques; i++) {
+            success.record(share, TimeUnit.NANOSECONDS);
+        }
+        Timer conflict = decisionTimer(decision, OUTCOME_CONFLICT);
+        for (int i = 0; i < conflits; i++) {
+            conflict.record(share, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer decisionTimer(Document.StatutDocument decision, String outcome) {
+        return Timer.builder("cabinet.documents.decisions")
+                .description("Validation ou rejet d'un document par le comptable")
+                .tag("decision", decision.name())
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Counter bytesCounter(String name, Document.TypeDocument type) {
+        return Counter.builder(name)
+                .baseUnit("bytes")
+                .tag("type", type.name())
+                .register(registry);
+    }
+}
@@ -0,0 +1,46 @@
+package com.cabinet.springbootcabinetcomptablemanagement.metrics;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Times document downloads until the body has been written (the file is streamed after the
+ * controller returns) and counts the bytes actually sent, taken from the Content-Length of the
+ * response so 206 partial responses count only the requested range.
+ * The controller publishes the TypeDocument through {@link #DOCUMENT_TYPE_ATTRIBUTE}.
+ */
+@Component
+@RequiredArgsConstructor
+public class DownloadMetricsInterceptor implements HandlerInterceptor {
+
+    public static final String DOCUMENT_TYPE_ATTRIBUTE = DownloadMetricsInterceptor.class.getName() + ".type";
+    private static final String START_ATTRIBUTE = DownloadMetricsInterceptor.class.getName() + ".start";
+
+    private final DocumentMetrics documentMetrics;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // Pas de type: la requête a échoué avant de trouver le document (404, 403...)
+        if (!(request.getAttribute(DOCUMENT_TYPE_ATTRIBUTE) instanceof Document.TypeDocument type)
+                || !(request.getAttribute(START_ATTRIBUTE) instanceof Long start)) {
+            return;
+        }
+        long bytes = 0;
+        String contentLength = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength != null && response.getStatus() < 300) {
+            bytes = Long.parseLong(contentLength);
+        }
+        documentMetrics.recordDownload(type, response.getStatus(), bytes, System.nanoTime() - start);
+    }
+}
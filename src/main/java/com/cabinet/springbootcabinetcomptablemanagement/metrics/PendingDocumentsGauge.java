@@ -0,0 +1,42 @@
+package com.cabinet.springbootcabinetcomptablemanagement.metrics;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentCounterRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * cabinet.documents.pending{societe=...}: depth of the validation queue per société
+ * Refreshed on a schedule rather than on every scrape, from the dashboard counters (one row per société,
+ * fiscal year and type) rather than from the documents.
+ * Sociétés whose queue is empty disappear from the gauge.
+ */
+@Component
+@Slf4j
+public class PendingDocumentsGauge {
+
+    private final DocumentCounterRepository documentCounterRepository;
+    private final MultiGauge pendingDocuments;
+
+    public PendingDocumentsGauge(DocumentCounterRepository documentCounterRepository, MeterRegistry registry) {
+        this.documentCounterRepository = documentCounterRepository;
+        this.pendingDocuments = MultiGauge.builder("cabinet.documents.pending")
+                .description("Documents en attente de validation par société")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.pending-documents.refresh:30s}")
+    public void refresh() {
+        List<Object[]> counts = documentCounterRepository.sumBySocieteAndStatut(Document.StatutDocument.EN_ATTENTE);
+        pendingDocuments.register(counts.stream()
+                .map(row -> MultiGauge.Row.of(Tags.of("societe", String.valueOf(row[0])), (Number) row[1]))
+                .toList(), true);
+        log.debug("File d'attente mise à jour pour {} société(s)", counts.size());
+    }
+}
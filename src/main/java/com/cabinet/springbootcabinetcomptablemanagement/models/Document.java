@@ -9,13 +9,32 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        // Keyset pagination: ORDER BY created_at, id with optional société filter
+        @Index(name = "idx_documents_created_at", columnList = "created_at, id"),
+        @Index(name = "idx_documents_societe_created_at", columnList = "societe_id, created_at, id"),
+        // Fiscal-year view of a company, also serves the keyset order inside that view
+        @Index(name = "idx_documents_societe_exercice", columnList = "societe_id, exercice_comptable, created_at, id"),
+        @Index(name = "idx_documents_exercice_created_at", columnList = "exercice_comptable, created_at, id"),
+        // Pending queue (statut = EN_ATTENTE) in arrival order
+        @Index(name = "idx_documents_statut_created_at", columnList = "statut, created_at, id"),
+        @Index(name = "idx_documents_societe_statut", columnList = "societe_id, statut, created_at, id"),
+        // Documents sharing a stored file (content-addressed keys), storage tier mover
+        @Index(name = "idx_documents_chemin_fichier", columnList = "chemin_fichier, exercice_comptable")
+})
 @Data
 public class Document {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence rather than IDENTITY: Hibernate knows the ids before inserting, so inserts can be batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documents_seq")
+    @SequenceGenerator(name = "documents_seq", sequenceName = "documents_seq", allocationSize = 50)
     private Long id;
 
+    // Optimistic locking: every update bumps it, a write based on a stale copy fails instead of overwriting
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
         @Column(nullable = false, unique = true)
         private String numeroPiece;
 
@@ -41,6 +60,13 @@ public class Document {
         @Column(nullable = false)
         private String nomFichierOriginal;
 
+        @Column(length = 64)
+        private String hashFichier; // SHA-256 (hex) of the stored content, also used as ETag
+
+        private Long tailleFichier; // Size in bytes
+
+        private String typeMime; // Detected from the file signature, not from the client Content-Type
+
         @Enumerated(EnumType.STRING)
         @Column(nullable = false)
         private StatutDocument statut = StatutDocument.EN_ATTENTE;
@@ -85,7 +111,14 @@ public class Document {
     public enum StatutDocument {
         EN_ATTENTE,
         VALIDE,
-        REJETE
+        REJETE;
+
+        /**
+         * Decisions are taken once, on a pending document: EN_ATTENTE -> VALIDE | REJETE
+         */
+        public boolean canTransitionTo(StatutDocument cible) {
+            return this == EN_ATTENTE && (cible == VALIDE || cible == REJETE);
+        }
     }
 }
 
@@ -0,0 +1,52 @@
+package com.cabinet.springbootcabinetcomptablemanagement.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Number and total amount of the documents of one société, fiscal year, type and statut
+ * Maintained in the transaction that creates, decides or deletes the documents (see DocumentCounters),
+ * so the dashboard reads these rows instead of the documents.
+ */
+@Entity
+@Table(name = "document_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentCounter {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private long nombre;
+
+    @Column(nullable = false, precision = 17, scale = 2)
+    private BigDecimal montantTotal;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        @Column(name = "societe_id", nullable = false)
+        private Long societeId;
+
+        @Column(nullable = false)
+        private String exerciceComptable;
+
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false)
+        private Document.TypeDocument type;
+
+        @Enumerated(EnumType.STRING)
+        @Column(nullable = false)
+        private Document.StatutDocument statut;
+    }
+}
@@ -0,0 +1,89 @@
+package com.cabinet.springbootcabinetcomptablemanagement.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Text extracted from the file of a document (PDF text layer, or OCR), indexed for search
+ * Kept apart from documents so that listings never read it; the row is also the work queue of
+ * TextExtractionService: EN_ATTENTE rows are extracted, at the earliest at prochainEssai.
+ */
+@Entity
+@Table(name = "document_texts", indexes = {
+        // Extraction queue: pending rows by next attempt
+        @Index(name = "idx_document_texts_statut_essai", columnList = "statut, prochain_essai")
+})
+@Data
+public class DocumentText implements Persistable<Long> {
+
+    @Id
+    private Long documentId;
+
+    // File the text is (to be) extracted from: a result for a file replaced meanwhile is dropped
+    @Column(nullable = false)
+    private String cheminFichier;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 15)
+    private Statut statut = Statut.EN_ATTENTE;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private Methode methode;
+
+    @Lob
+    private String texte;
+
+    @Column(nullable = false)
+    private int tentatives;
+
+    private LocalDateTime prochainEssai;
+
+    @Column(length = 500)
+    private String erreur;
+
+    private LocalDateTime extraitLe;
+
+    // Rows are created with their id (the document's): persist directly instead of a merge (SELECT + INSERT)
+    @Transient
+    private boolean nouveau = true;
+
+    public static DocumentText pending(Long documentId, String cheminFichier) {
+        DocumentText text = new DocumentText();
+        text.setDocumentId(documentId);
+        text.setCheminFichier(cheminFichier);
+        text.setProchainEssai(LocalDateTime.now());
+        return text;
+    }
+
+    @Override
+    public Long getId() {
+        return documentId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nouveau;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        nouveau = false;
+    }
+
+    public enum Statut {
+        EN_ATTENTE,
+        EXTRAIT,
+        AUCUN_TEXTE, // Image without OCR, or nothing readable
+        ECHEC        // Still failing after documents.extraction.max-attempts
+    }
+
+    public enum Methode {
+        PDF,
+        OCR
+    }
+}
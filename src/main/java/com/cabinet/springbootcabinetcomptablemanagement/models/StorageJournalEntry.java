@@ -0,0 +1,38 @@
+package com.cabinet.springbootcabinetcomptablemanagement.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A storage write or delete whose outcome is not known to be consistent with the documents table yet
+ * Entries are replayed at startup and dropped as soon as the stored file and its documents agree,
+ * so the journal only ever holds the recent operations (see StorageJournalReplayer)
+ */
+@Entity
+@Table(name = "storage_journal", indexes = {
+        @Index(name = "idx_storage_journal_created_at", columnList = "created_at, id")
+})
+@Data
+public class StorageJournalEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String cleStockage; // Storage key, as saved in Document.cheminFichier
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Operation operation;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public enum Operation {
+        PUT,
+        DELETE
+    }
+}
@@ -0,0 +1,32 @@
+package com.cabinet.springbootcabinetcomptablemanagement.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A file stored once in the content-addressed store, shared by every document with the same content
+ * The blob is removed from disk when its last reference is released
+ */
+@Entity
+@Table(name = "stored_blobs")
+@Data
+public class StoredBlob {
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private Long taille;
+
+    @Column(nullable = false)
+    private Long nombreReferences = 1L;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Last reference added: a recently referenced blob may belong to a document not committed yet
+    private LocalDateTime derniereReference = LocalDateTime.now();
+}
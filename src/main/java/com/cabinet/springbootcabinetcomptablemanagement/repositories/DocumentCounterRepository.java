@@ -0,0 +1,53 @@
+package com.cabinet.springbootcabinetcomptablemanagement.repositories;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.models.DocumentCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface DocumentCounterRepository extends JpaRepository<DocumentCounter, DocumentCounter.Key> {
+
+    /**
+     * Add to a counter, created on first use; a single statement, so concurrent first uses cannot both insert
+     */
+    @Modifying
+    @Query("INSERT INTO DocumentCounter (id.societeId, id.exerciceComptable, id.type, id.statut, nombre, montantTotal) "
+            + "VALUES (:societeId, :exerciceComptable, :type, :statut, :nombre, :montant) "
+            + "ON CONFLICT(id) DO UPDATE SET nombre = nombre + excluded.nombre, montantTotal = montantTotal + excluded.montantTotal")
+    int add(@Param("societeId") Long societeId,
+            @Param("exerciceComptable") String exerciceComptable,
+            @Param("type") Document.TypeDocument type,
+            @Param("statut") Document.StatutDocument statut,
+            @Param("nombre") long nombre,
+            @Param("montant") BigDecimal montant);
+
+    /**
+     * Dashboard rows, optionally for one fiscal year and / or one société (empty counters left out)
+     */
+    @Query("SELECT c FROM DocumentCounter c WHERE c.nombre <> 0 "
+            + "AND (:exerciceComptable IS NULL OR c.id.exerciceComptable = :exerciceComptable) "
+            + "AND (:societeId IS NULL OR c.id.societeId = :societeId)")
+    List<DocumentCounter> findNonEmpty(@Param("exerciceComptable") String exerciceComptable,
+                                       @Param("societeId") Long societeId);
+
+    @Query("SELECT c.id.societeId, SUM(c.nombre) FROM DocumentCounter c WHERE c.id.statut = :statut AND c.nombre <> 0 "
+            + "GROUP BY c.id.societeId")
+    List<Object[]> sumBySocieteAndStatut(@Param("statut") Document.StatutDocument statut);
+
+    @Query("SELECT COALESCE(SUM(c.nombre), 0) FROM DocumentCounter c")
+    long sumNombre();
+
+    /**
+     * Recompute every counter from the documents (after deleteAllInBatch)
+     */
+    @Modifying
+    @Query("INSERT INTO DocumentCounter (id.societeId, id.exerciceComptable, id.type, id.statut, nombre, montantTotal) "
+            + "SELECT d.societe.id, d.exerciceComptable, d.type, d.statut, COUNT(d), SUM(d.montant) FROM Document d "
+            + "GROUP BY d.societe.id, d.exerciceComptable, d.type, d.statut")
+    int insertCountsFromDocuments();
+}
@@ -0,0 +1,42 @@
+package com.cabinet.springbootcabinetcomptablemanagement.repositories;
+
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a document listing: the (createdAt, id) of the last row of the previous page
+ * Sent to clients as an opaque Base64 string
+ */
+@Getter
+@AllArgsConstructor
+public class DocumentCursor {
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws InvalidCursorException if the cursor was not produced by {@link #encode()}
+     */
+    public static DocumentCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new DocumentCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+            throw InvalidCursorException.of(cursor);
+        }
+    }
+}
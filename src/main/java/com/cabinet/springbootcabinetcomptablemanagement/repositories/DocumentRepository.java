@@ -1,29 +1,192 @@
 package com.cabinet.springbootcabinetcomptablemanagement.repositories;
 
+import com.cabinet.springbootcabinetcomptablemanagement.export.ArchivedDocument;
+import com.cabinet.springbootcabinetcomptablemanagement.export.DocumentExportRow;
 import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.search.IndexedDocument;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
-public interface DocumentRepository extends JpaRepository<Document,Long> {
+public interface DocumentRepository extends JpaRepository<Document,Long>, DocumentRepositoryCustom {
 
     @Query("SELECT d FROM Document d LEFT JOIN FETCH d.societe WHERE d.numeroPiece = :numeroPiece")
     Optional<Document> findByNumeroPiece(@Param("numeroPiece") String numeroPiece);
 
-    @Query("SELECT d FROM Document d LEFT JOIN FETCH d.societe WHERE d.societe.id = :societeId AND d.statut = :statut")
+    @Query("SELECT d FROM Document d JOIN FETCH d.societe WHERE d.societe.id = :societeId AND d.statut = :statut")
     List<Document> findBySocieteIdAndStatut(@Param("societeId") Long societeId, @Param("statut") Document.StatutDocument statut);
 
-    @Query("SELECT d FROM Document d LEFT JOIN FETCH d.societe WHERE d.societe.id = :societeId")
+    @Query("SELECT d FROM Document d JOIN FETCH d.societe WHERE d.societe.id = :societeId")
     List<Document> findBySocieteId(@Param("societeId") Long societeId);
 
+    @Query("SELECT d FROM Document d JOIN FETCH d.societe WHERE d.societe.id = :societeId AND d.exerciceComptable = :exerciceComptable")
+    List<Document> findBySocieteIdAndExerciceComptable(@Param("societeId") Long societeId,
+                                                       @Param("exerciceComptable") String exerciceComptable);
+
     @Query("SELECT d FROM Document d LEFT JOIN FETCH d.societe WHERE d.statut = :statut")
     List<Document> findByStatut(@Param("statut") Document.StatutDocument statut);
 
     boolean existsByNumeroPiece(String numeroPiece);
 
+    // Bulk upload: which of these numéros de pièce are already taken, in one query
+    @Query("SELECT d.numeroPiece FROM Document d WHERE d.numeroPiece IN :numerosPiece")
+    Set<String> findExistingNumeroPieces(@Param("numerosPiece") Collection<String> numerosPiece);
+
+    // Batch decisions on a société: the ids still in this statut, in id order
+    @Query("SELECT d.id FROM Document d WHERE d.societe.id = :societeId AND d.statut = :statut "
+            + "AND (:exerciceComptable IS NULL OR d.exerciceComptable = :exerciceComptable) ORDER BY d.id")
+    List<Long> findIdsBySocieteAndStatut(@Param("societeId") Long societeId,
+                                         @Param("exerciceComptable") String exerciceComptable,
+                                         @Param("statut") Document.StatutDocument statut,
+                                         Limit limit);
+
+    @Query("SELECT d.id, d.statut FROM Document d WHERE d.id IN :ids")
+    List<Object[]> findStatutsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Guarded by the expected statut: a row decided in the meantime is left untouched
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Document d SET d.statut = :decision, d.commentaireComptable = :commentaire, "
+            + "d.dateValidation = :date, d.updatedAt = :date, d.version = d.version + 1 "
+            + "WHERE d.id IN :ids AND d.statut = :statutAttendu")
+    int updateStatutByIdIn(@Param("ids") Collection<Long> ids,
+                           @Param("statutAttendu") Document.StatutDocument statutAttendu,
+                           @Param("decision") Document.StatutDocument decision,
+                           @Param("commentaire") String commentaire,
+                           @Param("date") LocalDateTime date);
+
+    /**
+     * Read-back of updateStatutByIdIn: the ids that carry this decision at this date. The date is unique
+     * to one batch, so these are the rows that batch changed, not the ones decided the same way by
+     * a concurrent accountant.
+     */
+    @Query("SELECT d.id FROM Document d WHERE d.id IN :ids AND d.statut = :decision AND d.dateValidation = :date")
+    List<Long> findIdsDecidedAt(@Param("ids") Collection<Long> ids,
+                                @Param("decision") Document.StatutDocument decision,
+                                @Param("date") LocalDateTime date);
+
+    /**
+     * Compare-and-set of the statut, no row lock taken: the row only changes if it is still in
+     * {@code statutAttendu} (and at {@code versionAttendue} when given), so among concurrent transitions
+     * exactly one matches and the others update 0 rows
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Document d SET d.statut = :cible, d.commentaireComptable = :commentaire, "
+            + "d.dateValidation = :date, d.updatedAt = :date, d.version = d.version + 1 "
+            + "WHERE d.id = :id AND d.statut = :statutAttendu "
+            + "AND (:versionAttendue IS NULL OR d.version = :versionAttendue)")
+    int compareAndSetStatut(@Param("id") Long id,
+                            @Param("statutAttendu") Document.StatutDocument statutAttendu,
+                            @Param("versionAttendue") Long versionAttendue,
+                            @Param("cible") Document.StatutDocument cible,
+                            @Param("commentaire") String commentaire,
+                            @Param("date") LocalDateTime date);
+
+    /**
+     * Storage keys (with their SHA-256) only referenced by documents of fiscal years before premierExerciceChaud,
+     * in key order after {@code apres}; a file shared with a document of a recent year is left out.
+     * exerciceComptable starts with the year ("2024" or "2024-2025") so the string order is the year order.
+     */
+    @Query("SELECT d.cheminFichier, MAX(d.hashFichier) FROM Document d "
+            + "WHERE d.exerciceComptable < :premierExerciceChaud AND d.cheminFichier > :apres "
+            + "AND NOT EXISTS (SELECT h.id FROM Document h WHERE h.cheminFichier = d.cheminFichier "
+            + "AND h.exerciceComptable >= :premierExerciceChaud) "
+            + "GROUP BY d.cheminFichier ORDER BY d.cheminFichier")
+    List<Object[]> findColdStorageKeys(@Param("premierExerciceChaud") String premierExerciceChaud,
+                                       @Param("apres") String apres,
+                                       Limit limit);
+
+    boolean existsByCheminFichier(String cheminFichier);
+
+    long countByCheminFichier(String cheminFichier);
+
+    /**
+     * Distinct storage keys after a given one, in key order (keyset pages for StorageReconciler)
+     */
+    @Query("SELECT DISTINCT d.cheminFichier FROM Document d WHERE d.cheminFichier > :apres ORDER BY d.cheminFichier")
+    List<String> findStorageKeysAfter(@Param("apres") String apres, Limit limit);
+
+    String INDEXED_DOCUMENT = "SELECT new com.cabinet.springbootcabinetcomptablemanagement.search.IndexedDocument("
+            + "d.id, d.societe.id, d.numeroPiece, d.type, d.categorieComptable, d.datePiece, d.montant, d.fournisseur, "
+            + "d.statut, d.exerciceComptable, t.texte) FROM Document d LEFT JOIN DocumentText t ON t.documentId = d.id ";
+
+    /**
+     * Search index: current state of the given documents (a missing id means the document was deleted)
+     */
+    @Query(INDEXED_DOCUMENT + "WHERE d.id IN :ids")
+    List<IndexedDocument> findIndexedByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Search index rebuild: keyset pages by id inside the slice (apres, jusqua] read by one rebuild thread
+     */
+    @Query(INDEXED_DOCUMENT + "WHERE d.id > :apres AND d.id <= :jusqua ORDER BY d.id")
+    List<IndexedDocument> findIndexedPage(@Param("apres") long apres, @Param("jusqua") long jusqua, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(d.id), 0) FROM Document d")
+    long findMaxId();
+
+    /**
+     * Documents created or changed since a given time, to catch up the search index after a restart
+     */
+    @Query("SELECT d.id FROM Document d WHERE d.createdAt >= :depuis OR d.updatedAt >= :depuis")
+    List<Long> findIdsChangedSince(@Param("depuis") LocalDateTime depuis);
+
+    /**
+     * Number and total amount of the given documents per société, fiscal year and type (dashboard counters
+     * of a batch decision)
+     */
+    @Query("SELECT d.societe.id, d.exerciceComptable, d.type, COUNT(d), SUM(d.montant) FROM Document d "
+            + "WHERE d.id IN :ids GROUP BY d.societe.id, d.exerciceComptable, d.type")
+    List<Object[]> sumByCounterKey(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Export of a fiscal year, read through a JDBC cursor: the driver fetches EXPORT_FETCH_SIZE rows at a
+     * time and nothing is kept once a row is written. The ORDER BY repeats the full key of
+     * idx_documents_societe_exercice (the two equality columns first): only then does the database read
+     * the rows in index order instead of sorting the whole year first.
+     * To be consumed (and closed) inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.cabinet.springbootcabinetcomptablemanagement.export.DocumentExportRow(d.id, d.numeroPiece, "
+            + "d.datePiece, d.type, d.categorieComptable, d.fournisseur, d.montant, d.statut, d.dateValidation, "
+            + "d.commentaireComptable, d.nomFichierOriginal) FROM Document d "
+            + "WHERE d.societe.id = :societeId AND d.exerciceComptable = :exerciceComptable "
+            + "ORDER BY d.societe.id, d.exerciceComptable, d.createdAt, d.id")
+    Stream<DocumentExportRow> streamForExport(@Param("societeId") Long societeId,
+                                              @Param("exerciceComptable") String exerciceComptable);
+
+    /**
+     * Audit archive of one or more fiscal years, streamed like streamForExport and in the same index order
+     * (read once: the manifest is written from it, the files are copied afterwards outside the transaction)
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.cabinet.springbootcabinetcomptablemanagement.export.ArchivedDocument(d.id, d.exerciceComptable, "
+            + "d.numeroPiece, d.datePiece, d.type, d.categorieComptable, d.fournisseur, d.montant, d.statut, "
+            + "d.nomFichierOriginal, d.cheminFichier, d.hashFichier, d.tailleFichier) FROM Document d "
+            + "WHERE d.societe.id = :societeId AND d.exerciceComptable IN :exercices "
+            + "ORDER BY d.societe.id, d.exerciceComptable, d.createdAt, d.id")
+    Stream<ArchivedDocument> streamForArchive(@Param("societeId") Long societeId,
+                                              @Param("exercices") Collection<String> exercices);
+
+    String EXPORT_FETCH_SIZE = "500";
+
     @Query("SELECT d FROM Document d LEFT JOIN FETCH d.societe WHERE d.exerciceComptable = :exerciceComptable")
     List<Document> findByExerciceComptable(@Param("exerciceComptable") String exerciceComptable);
 
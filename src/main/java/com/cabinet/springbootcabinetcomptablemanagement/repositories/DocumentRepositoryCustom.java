@@ -0,0 +1,27 @@
+package com.cabinet.springbootcabinetcomptablemanagement.repositories;
+
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface DocumentRepositoryCustom {
+
+    /**
+     * Keyset (seek) pagination ordered by (createdAt, id), projected straight into
+     * DocumentResponseDTO (only the columns the DTO needs, no managed entities).
+     * Every filter is optional (null = no filter). No OFFSET is used, so the cost of a page
+     * does not depend on how deep the client has scrolled.
+     *
+     * @param after Position of the last row already returned, null for the first page
+     * @param limit Maximum number of rows to return
+     */
+    List<DocumentResponseDTO> findPage(Long societeId, String exerciceComptable, Document.StatutDocument statut,
+                                       DocumentCursor after, boolean ascending, int limit);
+
+    /**
+     * The given documents projected into DocumentResponseDTO, in no particular order (search results)
+     */
+    List<DocumentResponseDTO> findResponsesByIdIn(Collection<Long> ids);
+}
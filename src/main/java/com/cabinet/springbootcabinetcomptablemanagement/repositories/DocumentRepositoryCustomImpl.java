@@ -0,0 +1,125 @@
+package com.cabinet.springbootcabinetcomptablemanagement.repositories;
+
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Societe;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class DocumentRepositoryCustomImpl implements DocumentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<DocumentResponseDTO> findPage(Long societeId, String exerciceComptable, Document.StatutDocument statut,
+                                              DocumentCursor after, boolean ascending, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DocumentResponseDTO> query = cb.createQuery(DocumentResponseDTO.class);
+        Root<Document> document = query.from(Document.class);
+        Join<Document, Societe> societe = document.join("societe", JoinType.INNER);
+
+        Path<LocalDateTime> createdAt = document.get("createdAt");
+        Path<Long> id = document.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        // Columns fixed by an equality filter, in the column order of the composite indexes
+        List<Expression<?>> equalityColumns = new ArrayList<>();
+        if (societeId != null) {
+            predicates.add(cb.equal(document.get("societe").get("id"), societeId));
+            equalityColumns.add(document.get("societe").get("id"));
+        }
+        if (exerciceComptable != null) {
+            predicates.add(cb.equal(document.get("exerciceComptable"), exerciceComptable));
+            equalityColumns.add(document.get("exerciceComptable"));
+        }
+        if (statut != null) {
+            predicates.add(cb.equal(document.get("statut"), statut));
+            equalityColumns.add(document.get("statut"));
+        }
+        if (after != null) {
+            // (createdAt, id) > (:createdAt, :id) written so that the first term is a plain range on created_at
+            if (ascending) {
+                predicates.add(cb.greaterThanOrEqualTo(createdAt, after.getCreatedAt()));
+                predicates.add(cb.or(
+                        cb.greaterThan(createdAt, after.getCreatedAt()),
+                        cb.greaterThan(id, after.getId())));
+            } else {
+                predicates.add(cb.lessThanOrEqualTo(createdAt, after.getCreatedAt()));
+                predicates.add(cb.or(
+                        cb.lessThan(createdAt, after.getCreatedAt()),
+                        cb.lessThan(id, after.getId())));
+            }
+        }
+
+        query.select(responseColumns(cb, document, societe))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(orderBy(cb, equalityColumns, createdAt, id, ascending));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<DocumentResponseDTO> findResponsesByIdIn(Collection<Long> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DocumentResponseDTO> query = cb.createQuery(DocumentResponseDTO.class);
+        Root<Document> document = query.from(Document.class);
+        Join<Document, Societe> societe = document.join("societe", JoinType.INNER);
+        query.select(responseColumns(cb, document, societe))
+                .where(document.get("id").in(ids));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * Constructor expression: Hibernate reads the columns into the DTO directly,
+     * nothing is put in the persistence context and there is no dirty checking to do
+     */
+    private static CompoundSelection<DocumentResponseDTO> responseColumns(CriteriaBuilder cb, Root<Document> document,
+                                                                          Join<Document, Societe> societe) {
+        return cb.construct(DocumentResponseDTO.class,
+                document.get("id"),
+                document.get("numeroPiece"),
+                document.get("type"),
+                document.get("categorieComptable"),
+                document.get("datePiece"),
+                document.get("montant"),
+                document.get("fournisseur"),
+                document.get("nomFichierOriginal"),
+                document.get("tailleFichier"),
+                document.get("typeMime"),
+                document.get("statut"),
+                document.get("commentaireComptable"),
+                document.get("dateValidation"),
+                document.get("createdAt"),
+                document.get("updatedAt"),
+                document.get("version"),
+                societe.get("id"),
+                societe.get("raisonSociale"));
+    }
+
+    /**
+     * ORDER BY [equality columns,] created_at, id
+     * Sorting on columns fixed by the WHERE clause does not change the result, but it lets the
+     * database read the rows already sorted from the composite index (H2 only recognises an
+     * "index sorted" plan when the ORDER BY starts with the index prefix) and stop after LIMIT rows,
+     * instead of sorting every document of the société.
+     */
+    private static List<Order> orderBy(CriteriaBuilder cb, List<Expression<?>> equalityColumns,
+                                       Path<LocalDateTime> createdAt, Path<Long> id, boolean ascending) {
+        List<Order> orders = new ArrayList<>();
+        for (Expression<?> column : equalityColumns) {
+            orders.add(ascending ? cb.asc(column) : cb.desc(column));
+        }
+        orders.add(ascending ? cb.asc(createdAt) : cb.desc(createdAt));
+        orders.add(ascending ? cb.asc(id) : cb.desc(id));
+        return orders;
+    }
+}
@@ -0,0 +1,87 @@
+package com.cabinet.springbootcabinetcomptablemanagement.repositories;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.DocumentText;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface DocumentTextRepository extends JpaRepository<DocumentText, Long> {
+
+    /**
+     * Extraction queue: pending documents whose next attempt is due, oldest first
+     */
+    @Query("SELECT t.documentId FROM DocumentText t WHERE t.statut = :statut AND t.prochainEssai <= :maintenant "
+            + "ORDER BY t.prochainEssai, t.documentId")
+    List<Long> findDueIds(@Param("statut") DocumentText.Statut statut,
+                          @Param("maintenant") LocalDateTime maintenant,
+                          Limit limit);
+
+    /**
+     * Result already extracted for the same stored file (content-addressed storage: same content)
+     */
+    Optional<DocumentText> findFirstByCheminFichierAndStatutIn(String cheminFichier, Collection<DocumentText.Statut> statuts);
+
+    /**
+     * Record the extracted text, unless the document's file was replaced (or the document deleted) meanwhile
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE DocumentText t SET t.statut = :statut, t.methode = :methode, t.texte = :texte, t.erreur = NULL, "
+            + "t.extraitLe = :maintenant WHERE t.documentId = :documentId AND t.cheminFichier = :cheminFichier "
+            + "AND t.statut = com.cabinet.springbootcabinetcomptablemanagement.models.DocumentText.Statut.EN_ATTENTE")
+    int saveResult(@Param("documentId") Long documentId,
+                   @Param("cheminFichier") String cheminFichier,
+                   @Param("statut") DocumentText.Statut statut,
+                   @Param("methode") DocumentText.Methode methode,
+                   @Param("texte") String texte,
+                   @Param("maintenant") LocalDateTime maintenant);
+
+    /**
+     * Failed attempt: retried at prochainEssai, or given up (statut ECHEC)
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE DocumentText t SET t.statut = :statut, t.tentatives = t.tentatives + 1, t.erreur = :erreur, "
+            + "t.prochainEssai = :prochainEssai WHERE t.documentId = :documentId AND t.cheminFichier = :cheminFichier "
+            + "AND t.statut = com.cabinet.springbootcabinetcomptablemanagement.models.DocumentText.Statut.EN_ATTENTE")
+    int recordFailure(@Param("documentId") Long documentId,
+                      @Param("cheminFichier") String cheminFichier,
+                      @Param("statut") DocumentText.Statut statut,
+                      @Param("erreur") String erreur,
+                      @Param("prochainEssai") LocalDateTime prochainEssai);
+
+    /**
+     * New file for an existing document: extract again from scratch
+     */
+    @Modifying
+    @Query("UPDATE DocumentText t SET t.cheminFichier = :cheminFichier, "
+            + "t.statut = com.cabinet.springbootcabinetcomptablemanagement.models.DocumentText.Statut.EN_ATTENTE, "
+            + "t.methode = NULL, t.texte = NULL, t.tentatives = 0, t.erreur = NULL, t.extraitLe = NULL, "
+            + "t.prochainEssai = :maintenant WHERE t.documentId = :documentId")
+    int reset(@Param("documentId") Long documentId,
+              @Param("cheminFichier") String cheminFichier,
+              @Param("maintenant") LocalDateTime maintenant);
+
+    @Modifying
+    @Query("DELETE FROM DocumentText t WHERE t.documentId = :documentId")
+    int deleteByDocumentId(@Param("documentId") Long documentId);
+
+    /**
+     * Queue the documents that have no text row yet (stored before text extraction existed)
+     */
+    @Transactional
+    @Modifying
+    @Query("INSERT INTO DocumentText (documentId, cheminFichier, statut, tentatives, prochainEssai) "
+            + "SELECT d.id, d.cheminFichier, "
+            + "com.cabinet.springbootcabinetcomptablemanagement.models.DocumentText.Statut.EN_ATTENTE, 0, :maintenant "
+            + "FROM Document d WHERE NOT EXISTS (SELECT t.documentId FROM DocumentText t WHERE t.documentId = d.id)")
+    int queueMissing(@Param("maintenant") LocalDateTime maintenant);
+}
@@ -0,0 +1,15 @@
+package com.cabinet.springbootcabinetcomptablemanagement.repositories;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.StorageJournalEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StorageJournalRepository extends JpaRepository<StorageJournalEntry, Long> {
+
+    List<StorageJournalEntry> findByIdGreaterThanOrderById(Long id, Limit limit);
+
+    List<StorageJournalEntry> findByCreatedAtBeforeAndIdGreaterThanOrderById(LocalDateTime createdAt, Long id, Limit limit);
+}
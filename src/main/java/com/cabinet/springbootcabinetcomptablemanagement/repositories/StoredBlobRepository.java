@@ -0,0 +1,33 @@
+package com.cabinet.springbootcabinetcomptablemanagement.repositories;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.StoredBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.nombreReferences = b.nombreReferences + 1, b.derniereReference = :maintenant "
+            + "WHERE b.sha256 = :sha256")
+    int incrementReferences(@Param("sha256") String sha256, @Param("maintenant") LocalDateTime maintenant);
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.nombreReferences = b.nombreReferences - 1 WHERE b.sha256 = :sha256 AND b.nombreReferences > 0")
+    int decrementReferences(@Param("sha256") String sha256);
+
+    @Modifying
+    @Query("UPDATE StoredBlob b SET b.nombreReferences = :references WHERE b.sha256 = :sha256")
+    int updateReferences(@Param("sha256") String sha256, @Param("references") long references);
+
+    @Modifying
+    @Query("DELETE FROM StoredBlob b WHERE b.sha256 = :sha256 "
+            + "AND (b.derniereReference IS NULL OR b.derniereReference < :avant)")
+    int deleteIfUnreferencedSince(@Param("sha256") String sha256, @Param("avant") LocalDateTime avant);
+
+    @Query("SELECT b.nombreReferences FROM StoredBlob b WHERE b.sha256 = :sha256")
+    Long findReferenceCount(@Param("sha256") String sha256);
+}
@@ -0,0 +1,324 @@
+package com.cabinet.springbootcabinetcomptablemanagement.search;
+
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps DocumentSearchIndex in step with the documents table
+ *
+ * - Incremental: the ids of the documents a transaction created, decided or deleted are queued once it
+ *   commits; one writer thread reads their current state from the database and upserts or removes them
+ *   (coalesced, search.index.batch-size ids per read). Visible to searches at once, made durable every
+ *   search.index.commit-interval.
+ * - Rebuild: a new index generation is filled from the database by search.index.rebuild-parallelism
+ *   threads, each one reading its own id slice by keyset pages, then replaces the current generation.
+ *   Changes committed during the rebuild are applied to the new generation before it is published.
+ * - Startup: documents changed since the last index commit (minus search.index.catch-up-margin) are
+ *   indexed again; if the index still does not hold the same number of documents as the database
+ *   (new or lost index, deletions missed by a crash) it is rebuilt.
+ */
+@Component
+@Slf4j
+public class DocumentIndexer {
+
+    private final DocumentSearchIndex index;
+    private final DocumentRepository documentRepository;
+    private final int batchSize;
+    private final int rebuildParallelism;
+    private final Duration catchUpMargin;
+
+    // Single writer thread: incremental updates, commits and the publication of a rebuild are serialized
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("search-index-"));
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("search-rebuild-"));
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    // No periodic commit before the startup catch-up: it would move indexedUntil past changes not yet indexed
+    private volatile boolean caughtUp;
+    // Ids indexed while a rebuild runs (writer thread only), null otherwise
+    private Set<Long> changedDuringRebuild;
+
+    private final Timer rebuildTimer;
+
+    public DocumentIndexer(DocumentSearchIndex index,
+                           DocumentRepository documentRepository,
+                           @Value("${search.index.batch-size:500}") int batchSize,
+                           @Value("${search.index.rebuild-parallelism:4}") int rebuildParallelism,
+                           @Value("${search.index.catch-up-margin:5m}") Duration catchUpMargin,
+                           MeterRegistry registry) {
+        this.index = index;
+        this.documentRepository = documentRepository;
+        this.batchSize = batchSize;
+        this.rebuildParallelism = Math.max(rebuildParallelism, 1);
+        this.catchUpMargin = catchUpMargin;
+        this.rebuildTimer = Timer.builder("cabinet.search.index.rebuild")
+                .description("Durée de reconstruction de l'index de recherche")
+                .register(registry);
+        Gauge.builder("cabinet.search.index.pending", pending, Set::size)
+                .description("Documents modifiés en attente d'indexation")
+                .register(registry);
+        Gauge.builder("cabinet.search.index.documents", index, DocumentSearchIndex::numDocs)
+                .description("Documents présents dans l'index de recherche")
+                .register(registry);
+    }
+
+    /**
+     * Index the current state of these documents once the current transaction commits
+     * (nothing if it rolls back: the index never shows uncommitted data)
+     */
+    public void reindexAfterCommit(Collection<Long> documentIds) {
+        if (documentIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(documentIds);
+            return;
+        }
+        List<Long> ids = List.copyOf(documentIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    enqueue(ids);
+                }
+            }
+        });
+    }
+
+    private void enqueue(Collection<Long> documentIds) {
+        if (writer.isShutdown()) {
+            // Shutting down: caught up from the database at the next start
+            return;
+        }
+        pending.addAll(documentIds);
+        if (drainScheduled.compareAndSet(false, true)) {
+            writer.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        while (!pending.isEmpty()) {
+            List<Long> ids = new ArrayList<>(batchSize);
+            Iterator<Long> iterator = pending.iterator();
+            while (iterator.hasNext() && ids.size() < batchSize) {
+                ids.add(iterator.next());
+                iterator.remove();
+            }
+            try {
+                reindex(index::apply, ids);
+            } catch (Exception e) {
+                log.error("Indexation de {} document(s) impossible, reconstruire l'index pour les retrouver", ids.size(), e);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexUpdate {
+        void apply(List<IndexedDocument> documents, Collection<Long> deletedIds) throws Exception;
+    }
+
+    /**
+     * Reads the documents again: the state indexed is the committed one, whatever the order of the commits
+     */
+    private void reindex(IndexUpdate update, Collection<Long> ids) throws Exception {
+        List<IndexedDocument> documents = documentRepository.findIndexedByIdIn(ids);
+        Set<Long> deleted = new HashSet<>(ids);
+        documents.forEach(document -> deleted.remove(document.id()));
+        update.apply(documents, deleted);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.addAll(ids);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.commit-interval:30s}")
+    public void commit() {
+        if (caughtUp && !writer.isShutdown()) {
+            writer.execute(this::commitNow);
+        }
+    }
+
+    private void commitNow() {
+        try {
+            if (index.hasUncommittedChanges()) {
+                index.commit(Instant.now());
+            }
+        } catch (Exception e) {
+            log.error("Échec du commit de l'index de recherche", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        writer.execute(this::catchUp);
+    }
+
+    private void catchUp() {
+        try {
+            Instant indexedUntil = index.indexedUntil();
+            if (indexedUntil != null) {
+                LocalDateTime since = LocalDateTime.ofInstant(indexedUntil.minus(catchUpMargin), ZoneId.systemDefault());
+                List<Long> changed = documentRepository.findIdsChangedSince(since);
+                for (int from = 0; from < changed.size(); from += batchSize) {
+                    reindex(index::apply, changed.subList(from, Math.min(from + batchSize, changed.size())));
+                }
+                log.info("Index de recherche: {} document(s) modifié(s) depuis {} réindexé(s)", changed.size(), since);
+            }
+            long documents = documentRepository.count();
+            if (index.numDocs() != documents) {
+                log.info("Index de recherche incomplet ({} document(s) indexé(s) sur {}), reconstruction", index.numDocs(), documents);
+                rebuild();
+            } else {
+                commitNow();
+            }
+        } catch (Exception e) {
+            log.error("Vérification de l'index de recherche au démarrage impossible", e);
+        } finally {
+            caughtUp = true;
+        }
+    }
+
+    /**
+     * Start a rebuild in the background
+     * @return false if a rebuild is already running
+     */
+    public boolean rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuilder.execute(() -> {
+            try {
+                rebuildTimer.record(this::rebuildNow);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    private void rebuildNow() {
+        log.info("Reconstruction de l'index de recherche ({} thread(s))", rebuildParallelism);
+        DocumentSearchIndex.Generation generation = null;
+        try {
+            onWriter(() -> changedDuringRebuild = new HashSet<>());
+            generation = index.newGeneration();
+
+            // Ids are allocated by a pooled sequence: equal id slices hold about as many documents
+            long maxId = documentRepository.findMaxId();
+            long sliceSize = maxId / rebuildParallelism + 1;
+            ExecutorService slices = Executors.newFixedThreadPool(rebuildParallelism, new CustomizableThreadFactory("search-rebuild-slice-"));
+            long total = 0;
+            try {
+                List<Future<Long>> results = new ArrayList<>();
+                for (int i = 0; i < rebuildParallelism; i++) {
+                    long after = i * sliceSize;
+                    long until = Math.min(after + sliceSize, maxId);
+                    DocumentSearchIndex.Generation target = generation;
+                    results.add(slices.submit(() -> indexSlice(target, after, until)));
+                }
+                for (Future<Long> result : results) {
+                    total += result.get();
+                }
+            } finally {
+                slices.shutdownNow();
+            }
+
+            DocumentSearchIndex.Generation rebuilt = generation;
+            onWriter(() -> {
+                // Committed while the slices were read: their page may hold an older state
+                Set<Long> changed = changedDuringRebuild;
+                changedDuringRebuild = null;
+                List<Long> ids = new ArrayList<>(changed);
+                for (int from = 0; from < ids.size(); from += batchSize) {
+                    List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+                    reindex((documents, deleted) -> index.apply(rebuilt, documents, deleted), batch);
+                }
+                index.publish(rebuilt, Instant.now());
+                return null;
+            });
+            log.info("Index de recherche reconstruit: {} document(s)", total);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Reconstruction de l'index de recherche interrompue", e);
+            if (generation != null) {
+                index.discard(generation);
+            }
+            try {
+                onWriter(() -> changedDuringRebuild = null);
+            } catch (Exception ignored) {
+                // Writer stopped: the application is shutting down
+            }
+        }
+    }
+
+    private long indexSlice(DocumentSearchIndex.Generation generation, long after, long until) throws Exception {
+        long count = 0;
+        List<IndexedDocument> page;
+        do {
+            page = documentRepository.findIndexedPage(after, until, Limit.of(batchSize));
+            index.add(generation, page);
+            count += page.size();
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).id();
+            }
+        } while (page.size() == batchSize);
+        return count;
+    }
+
+    @FunctionalInterface
+    private interface WriterTask {
+        Object run() throws Exception;
+    }
+
+    private void onWriter(WriterTask task) throws InterruptedException, ExecutionException {
+        writer.submit(task::run).get();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        rebuilder.shutdownNow();
+        writer.execute(this::commitNow);
+        writer.shutdown();
+        if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Indexation encore en cours à l'arrêt, reprise au prochain démarrage");
+            writer.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package com.cabinet.springbootcabinetcomptablemanagement.search;
+
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentSearchRequestDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.facet.FacetResult;
+import org.apache.lucene.facet.FacetsCollector;
+import org.apache.lucene.facet.FacetsCollectorManager;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.LabelAndValue;
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MultiCollectorManager;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopFieldCollectorManager;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Lucene index over the searchable metadata of the documents: fournisseur (words, prefix / fuzzy match),
+ * the text extracted from the file (words, prefix match; see TextExtractionService), numeroPiece (prefix), categorieComptable, type, statut, exerciceComptable (exact, with facet counts),
+ * montant and datePiece (ranges) and the société (access filter).
+ *
+ * The index only holds ids: results are read back from the database, so a stale entry can never show a
+ * document as it no longer is. It is kept up to date by DocumentIndexer.
+ *
+ * On disk (search.index.dir) the index lives in a generation directory (gen-N): a rebuild writes a new
+ * generation next to the current one and replaces it once complete, searches keep using the previous one
+ * meanwhile. Without search.index.dir the index is kept in memory, like the default in-memory database.
+ */
+@Component
+@Slf4j
+public class DocumentSearchIndex {
+
+    public static final String DIM_TYPE = "type";
+    public static final String DIM_CATEGORIE = "categorieComptable";
+    public static final String DIM_STATUT = "statut";
+    public static final String DIM_EXERCICE = "exerciceComptable";
+    private static final List<String> FACET_DIMS = List.of(DIM_TYPE, DIM_CATEGORIE, DIM_STATUT, DIM_EXERCICE);
+    private static final int MAX_FACET_VALUES = 50;
+
+    private static final String ID = "id";
+    private static final String ID_SORT = "idTri";
+    private static final String SOCIETE = "societeId";
+    private static final String FOURNISSEUR = "fournisseur";
+    private static final String CONTENU = "contenu";
+    private static final String NUMERO_PIECE = "numeroPiece";
+    private static final String MONTANT = "montantCentimes";
+    private static final String DATE_PIECE = "datePiece";
+
+    // Commit user data: database changes up to this time are in the index (see DocumentIndexer)
+    private static final String INDEXED_UNTIL = "indexedUntil";
+    private static final String GENERATION_PREFIX = "gen-";
+
+    /**
+     * One page of matches
+     * @param total  Number of matching documents
+     * @param ids    Document ids of the requested page, in result order
+     * @param facets Matching documents per value, for each facet dimension
+     */
+    public record SearchResult(long total, List<Long> ids, Map<String, Map<String, Long>> facets) {
+    }
+
+    private final Path root;
+    private final Analyzer analyzer = new FoldingAnalyzer();
+    private final FacetsConfig facetsConfig = new FacetsConfig();
+    private final AtomicLong lastGeneration = new AtomicLong();
+    private final AtomicReference<Generation> current;
+
+    public DocumentSearchIndex(@Value("${search.index.dir:}") String indexDir) throws IOException {
+        this.root = StringUtils.hasText(indexDir) ? Paths.get(indexDir).toAbsolutePath().normalize() : null;
+        this.current = new AtomicReference<>(openCurrent());
+    }
+
+    /**
+     * An index directory with its writer and near-real-time searchers
+     */
+    public static final class Generation {
+
+        private final Path path;
+        private final Directory directory;
+        private final IndexWriter writer;
+        private final SearcherManager searcherManager;
+        private volatile FacetState facetState;
+
+        private Generation(Path path, Directory directory, IndexWriter writer) throws IOException {
+            this.path = path;
+            this.directory = directory;
+            this.writer = writer;
+            this.searcherManager = new SearcherManager(writer, null);
+        }
+    }
+
+    /**
+     * Facet ordinals of one reader, computed again only when the searcher is refreshed
+     */
+    private record FacetState(IndexReader reader, SortedSetDocValuesReaderState state) {
+    }
+
+    /**
+     * Latest complete generation; older ones and unfinished rebuilds left by a crash are deleted
+     */
+    private Generation openCurrent() throws IOException {
+        if (root == null) {
+            return open(null);
+        }
+        Files.createDirectories(root);
+        List<Path> generations;
+        try (Stream<Path> children = Files.list(root)) {
+            generations = children
+                    .filter(path -> path.getFileName().toString().startsWith(GENERATION_PREFIX))
+                    .filter(path -> generationNumber(path) >= 0)
+                    .sorted(Comparator.comparingLong(DocumentSearchIndex::generationNumber).reversed())
+                    .toList();
+        }
+        Path latest = null;
+        for (Path path : generations) {
+            lastGeneration.accumulateAndGet(generationNumber(path), Math::max);
+            if (latest == null) {
+                try (Directory directory = FSDirectory.open(path)) {
+                    if (DirectoryReader.indexExists(directory)) {
+                        latest = path;
+                        continue;
+                    }
+                }
+            }
+            log.info("Suppression de l'ancienne génération d'index {}", path);
+            IOUtils.rm(path);
+        }
+        if (latest == null) {
+            latest = root.resolve(GENERATION_PREFIX + lastGeneration.incrementAndGet());
+        }
+        log.info("Index de recherche: {}", latest);
+        return open(latest);
+    }
+
+    private static long generationNumber(Path path) {
+        try {
+            return Long.parseLong(path.getFileName().toString().substring(GENERATION_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Generation open(Path path) throws IOException {
+        Directory directory = path == null ? new ByteBuffersDirectory() : FSDirectory.open(path);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        return new Generation(path, directory, new IndexWriter(directory, config));
+    }
+
+    // ---------------------------------------------------------------- writes
+
+    /**
+     * Upsert the given documents and remove the deleted ones in the current generation, visible to the
+     * next searches (not committed yet, see commit)
+     */
+    public void apply(List<IndexedDocument> documents, Collection<Long> deletedIds) throws IOException {
+        Generation generation = current.get();
+        apply(generation, documents, deletedIds);
+        generation.searcherManager.maybeRefreshBlocking();
+    }
+
+    public void apply(Generation generation, List<IndexedDocument> documents, Collection<Long> deletedIds) throws IOException {
+        for (IndexedDocument document : documents) {
+            generation.writer.updateDocument(new Term(ID, document.id().toString()), toLucene(document));
+        }
+        for (Long id : deletedIds) {
+            generation.writer.deleteDocuments(new Term(ID, id.toString()));
+        }
+    }
+
+    /**
+     * Rebuild: append documents to a new generation (thread-safe, no lookup of a previous version)
+     */
+    public void add(Generation generation, List<IndexedDocument> documents) throws IOException {
+        List<Iterable<? extends org.apache.lucene.index.IndexableField>> batch = new ArrayList<>(documents.size());
+        for (IndexedDocument document : documents) {
+            batch.add(toLucene(document));
+        }
+        generation.writer.addDocuments(batch);
+    }
+
+    /**
+     * Durable commit of the current generation, recording up to when database changes are indexed
+     */
+    public void commit(Instant indexedUntil) throws IOException {
+        commit(current.get(), indexedUntil);
+    }
+
+    private static void commit(Generation generation, Instant indexedUntil) throws IOException {
+        generation.writer.setLiveCommitData(Map.of(INDEXED_UNTIL, indexedUntil.toString()).entrySet());
+        generation.writer.commit();
+    }
+
+    public boolean hasUncommittedChanges() {
+        return current.get().writer.hasUncommittedChanges();
+    }
+
+    /**
+     * @return The time recorded by the last commit, null for an index never committed (new or lost)
+     */
+    public Instant indexedUntil() {
+        Iterable<Map.Entry<String, String>> commitData = current.get().writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (INDEXED_UNTIL.equals(entry.getKey())) {
+                    return Instant.parse(entry.getValue());
+                }
+            }
+        }
+        return null;
+    }
+
+    public long numDocs() {
+        return current.get().writer.getDocStats().numDocs;
+    }
+
+    /**
+     * Empty generation for a rebuild, not searched until publish
+     */
+    public Generation newGeneration() throws IOException {
+        return open(root == null ? null : root.resolve(GENERATION_PREFIX + lastGeneration.incrementAndGet()));
+    }
+
+    /**
+     * Commit a rebuilt generation and make it the current one; the previous generation is closed and deleted
+     * (searches still holding its reader finish on it)
+     */
+    public void publish(Generation generation, Instant indexedUntil) throws IOException {
+        generation.writer.forceMerge(1);
+        commit(generation, indexedUntil);
+        generation.searcherManager.maybeRefreshBlocking();
+        Generation previous = current.getAndSet(generation);
+        close(previous, false);
+        deleteQuietly(previous);
+    }
+
+    /**
+     * Drop a rebuild that failed
+     */
+    public void discard(Generation generation) {
+        try {
+            generation.writer.rollback();
+            generation.searcherManager.close();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Fermeture de la génération d'index abandonnée {}", generation.path, e);
+        }
+        deleteQuietly(generation);
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            close(current.get(), true);
+        } catch (IOException e) {
+            log.warn("Fermeture de l'index de recherche", e);
+        }
+        analyzer.close();
+    }
+
+    private static void close(Generation generation, boolean commit) throws IOException {
+        generation.searcherManager.close();
+        if (commit) {
+            generation.writer.close();
+        } else {
+            generation.writer.rollback();
+        }
+        generation.directory.close();
+    }
+
+    private static void deleteQuietly(Generation generation) {
+        if (generation.path == null) {
+            return;
+        }
+        try {
+            IOUtils.rm(generation.path);
+        } catch (IOException e) {
+            // Open files (Windows): deleted at the next start
+            log.warn("Impossible de supprimer la génération d'index {}", generation.path, e);
+        }
+    }
+
+    private Iterable<org.apache.lucene.index.IndexableField> toLucene(IndexedDocument document) throws IOException {
+        org.apache.lucene.document.Document fields = new org.apache.lucene.document.Document();
+        fields.add(new StringField(ID, document.id().toString(), Field.Store.YES));
+        fields.add(new NumericDocValuesField(ID_SORT, document.id()));
+        fields.add(new LongField(SOCIETE, document.societeId(), Field.Store.NO));
+        fields.add(new TextField(FOURNISSEUR, document.fournisseur(), Field.Store.NO));
+        if (document.texte() != null) {
+            fields.add(new TextField(CONTENU, document.texte(), Field.Store.NO));
+        }
+        fields.add(new StringField(NUMERO_PIECE, document.numeroPiece().toLowerCase(Locale.ROOT), Field.Store.NO));
+        fields.add(new LongField(MONTANT, toCentimes(document.montant(), RoundingMode.HALF_UP), Field.Store.NO));
+        fields.add(new LongField(DATE_PIECE, document.datePiece().toEpochDay(), Field.Store.NO));
+        addFacet(fields, DIM_TYPE, document.type().name());
+        addFacet(fields, DIM_CATEGORIE, document.categorieComptable());
+        addFacet(fields, DIM_STATUT, document.statut().name());
+        addFacet(fields, DIM_EXERCICE, document.exerciceComptable());
+        return facetsConfig.build(fields);
+    }
+
+    private static void addFacet(org.apache.lucene.document.Document fields, String dim, String value) {
+        fields.add(new StringField(dim, value, Field.Store.NO));
+        fields.add(new SortedSetDocValuesFacetField(dim, value));
+    }
+
+    private static long toCentimes(BigDecimal montant, RoundingMode rounding) {
+        return montant.movePointRight(2).setScale(0, rounding).longValueExact();
+    }
+
+    // ---------------------------------------------------------------- search
+
+    public SearchResult search(DocumentSearchRequestDTO criteria) throws IOException {
+        Query query = toQuery(criteria);
+        Sort sort = StringUtils.hasText(criteria.getFournisseur()) || StringUtils.hasText(criteria.getTexte())
+                ? new Sort(SortField.FIELD_SCORE, byDatePieceDesc(), new SortField(ID_SORT, SortField.Type.LONG, true))
+                : new Sort(byDatePieceDesc(), new SortField(ID_SORT, SortField.Type.LONG, true));
+        int from = criteria.getEffectivePage() * criteria.getEffectiveSize();
+        int to = from + criteria.getEffectiveSize();
+
+        while (true) {
+            Generation generation = current.get();
+            IndexSearcher searcher;
+            try {
+                searcher = generation.searcherManager.acquire();
+            } catch (AlreadyClosedException e) {
+                // Replaced by a rebuild between get() and acquire()
+                continue;
+            }
+            try {
+                return search(generation, searcher, query, sort, from, to);
+            } finally {
+                generation.searcherManager.release(searcher);
+            }
+        }
+    }
+
+    private SearchResult search(Generation generation, IndexSearcher searcher, Query query, Sort sort,
+                                int from, int to) throws IOException {
+        // Exact total (threshold = MAX_VALUE) and facet counts in the same pass over the matches
+        Object[] collected = searcher.search(query, new MultiCollectorManager(
+                new TopFieldCollectorManager(sort, to, null, Integer.MAX_VALUE),
+                new FacetsCollectorManager()));
+        TopFieldDocs top = (TopFieldDocs) collected[0];
+        FacetsCollector facetsCollector = (FacetsCollector) collected[1];
+
+        List<Long> ids = new ArrayList<>();
+        StoredFields storedFields = searcher.storedFields();
+        ScoreDoc[] hits = top.scoreDocs;
+        for (int i = from; i < hits.length; i++) {
+            ids.add(Long.valueOf(storedFields.document(hits[i].doc, Set.of(ID)).get(ID)));
+        }
+        return new SearchResult(top.totalHits.value, ids, facets(generation, searcher.getIndexReader(), facetsCollector));
+    }
+
+    private Map<String, Map<String, Long>> facets(Generation generation, IndexReader reader,
+                                                  FacetsCollector facetsCollector) throws IOException {
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        FACET_DIMS.forEach(dim -> facets.put(dim, new LinkedHashMap<>()));
+        if (reader.maxDoc() == 0) {
+            return facets;
+        }
+        FacetState state = generation.facetState;
+        if (state == null || state.reader() != reader) {
+            state = new FacetState(reader, new DefaultSortedSetDocValuesReaderState(reader, facetsConfig));
+            generation.facetState = state;
+        }
+        SortedSetDocValuesFacetCounts counts = new SortedSetDocValuesFacetCounts(state.state(), facetsCollector);
+        for (FacetResult result : counts.getAllDims(MAX_FACET_VALUES)) {
+            Map<String, Long> values = facets.get(result.dim);
+            if (values != null) {
+                for (LabelAndValue labelAndValue : result.labelValues) {
+                    values.put(labelAndValue.label, labelAndValue.value.longValue());
+                }
+            }
+        }
+        return facets;
+    }
+
+    private static SortField byDatePieceDesc() {
+        return LongField.newSortField(DATE_PIECE, true, SortedNumericSelector.Type.MIN);
+    }
+
+    private Query toQuery(DocumentSearchRequestDTO criteria) throws IOException {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        boolean any = false;
+
+        if (StringUtils.hasText(criteria.getFournisseur())) {
+            for (String word : analyze(criteria.getFournisseur())) {
+                query.add(supplierWord(word), BooleanClause.Occur.MUST);
+                any = true;
+            }
+        }
+        if (StringUtils.hasText(criteria.getTexte())) {
+            for (String word : analyze(criteria.getTexte())) {
+                query.add(contentWord(word), BooleanClause.Occur.MUST);
+                any = true;
+            }
+        }
+        // Filters: no effect on the score
+        List<Query> filters = new ArrayList<>();
+        if (criteria.getSocieteId() != null) {
+            filters.add(LongField.newExactQuery(SOCIETE, criteria.getSocieteId()));
+        }
+        if (StringUtils.hasText(criteria.getNumeroPiece())) {
+            filters.add(new PrefixQuery(new Term(NUMERO_PIECE, criteria.getNumeroPiece().trim().toLowerCase(Locale.ROOT))));
+        }
+        if (StringUtils.hasText(criteria.getCategorieComptable())) {
+            filters.add(new TermQuery(new Term(DIM_CATEGORIE, criteria.getCategorieComptable().trim())));
+        }
+        if (criteria.getType() != null) {
+            filters.add(new TermQuery(new Term(DIM_TYPE, criteria.getType().name())));
+        }
+        if (criteria.getStatut() != null) {
+            filters.add(new TermQuery(new Term(DIM_STATUT, criteria.getStatut().name())));
+        }
+        if (StringUtils.hasText(criteria.getExerciceComptable())) {
+            filters.add(new TermQuery(new Term(DIM_EXERCICE, criteria.getExerciceComptable().trim())));
+        }
+        if (criteria.getMontantMin() != null || criteria.getMontantMax() != null) {
+            filters.add(LongField.newRangeQuery(MONTANT,
+                    criteria.getMontantMin() != null ? toCentimes(criteria.getMontantMin(), RoundingMode.CEILING) : Long.MIN_VALUE,
+                    criteria.getMontantMax() != null ? toCentimes(criteria.getMontantMax(), RoundingMode.FLOOR) : Long.MAX_VALUE));
+        }
+        if (criteria.getDateDebut() != null || criteria.getDateFin() != null) {
+            filters.add(LongField.newRangeQuery(DATE_PIECE,
+                    criteria.getDateDebut() != null ? criteria.getDateDebut().toEpochDay() : Long.MIN_VALUE,
+                    criteria.getDateFin() != null ? criteria.getDateFin().toEpochDay() : Long.MAX_VALUE));
+        }
+        for (Query filter : filters) {
+            query.add(filter, BooleanClause.Occur.FILTER);
+            any = true;
+        }
+        return any ? query.build() : new MatchAllDocsQuery();
+    }
+
+    /**
+     * One word of the supplier name: exact word first, then words starting with it ("orang" finds "orange"),
+     * then words one or two typos away ("ornage"); the first letter has to be right, which keeps the fuzzy
+     * expansion small
+     */
+    private static Query supplierWord(String word) {
+        Term term = new Term(FOURNISSEUR, word);
+        BooleanQuery.Builder alternatives = new BooleanQuery.Builder()
+                .add(new BoostQuery(new TermQuery(term), 3f), BooleanClause.Occur.SHOULD)
+                .add(new BoostQuery(new PrefixQuery(term), 2f), BooleanClause.Occur.SHOULD);
+        if (word.length() >= 4) {
+            alternatives.add(new FuzzyQuery(term, word.length() >= 8 ? 2 : 1, 1), BooleanClause.Occur.SHOULD);
+        }
+        return alternatives.build();
+    }
+
+    /**
+     * One word of the file content: exact word, or a word starting with it. No fuzzy match here, OCR noise
+     * and the length of the text would make it match almost anything
+     */
+    private static Query contentWord(String word) {
+        Term term = new Term(CONTENU, word);
+        return new BooleanQuery.Builder()
+                .add(new BoostQuery(new TermQuery(term), 2f), BooleanClause.Occur.SHOULD)
+                .add(new PrefixQuery(term), BooleanClause.Occur.SHOULD)
+                .build();
+    }
+
+    /**
+     * Words of a query string, through the same analysis as the indexed fournisseur and contenu
+     */
+    private List<String> analyze(String text) throws IOException {
+        List<String> words = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(FOURNISSEUR, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                words.add(term.toString());
+            }
+            stream.end();
+        }
+        return words;
+    }
+
+    /**
+     * Words split on the Unicode rules, lower-cased and without accents: "Société Générale" and
+     * "societe generale" are the same supplier
+     */
+    private static final class FoldingAnalyzer extends Analyzer {
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new StandardTokenizer();
+            return new TokenStreamComponents(tokenizer, new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer)));
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+    }
+}
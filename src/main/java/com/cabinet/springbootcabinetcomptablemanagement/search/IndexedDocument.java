@@ -0,0 +1,24 @@
+package com.cabinet.springbootcabinetcomptablemanagement.search;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The columns of a document that go into the search index, read by a JPQL constructor expression
+ * (no managed entity: societeId is the foreign key column, texte comes from document_texts and is
+ * null until the text extraction has run)
+ */
+public record IndexedDocument(Long id,
+                              Long societeId,
+                              String numeroPiece,
+                              Document.TypeDocument type,
+                              String categorieComptable,
+                              LocalDate datePiece,
+                              BigDecimal montant,
+                              String fournisseur,
+                              Document.StatutDocument statut,
+                              String exerciceComptable,
+                              String texte) {
+}
@@ -0,0 +1,84 @@
+package com.cabinet.springbootcabinetcomptablemanagement.security;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.User;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Principal placed in the SecurityContext by JwtAuthenticationFilter
+ * Carries everything the controllers need (id, role, société, actif) so they never
+ * have to reload the user from the database. Immutable, safe to share through the cache.
+ * The password hash is deliberately not kept: login goes through AuthService.
+ */
+@Getter
+@ToString
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final User.Role role;
+    private final Long societeId;
+    private final boolean actif;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String email, User.Role role, Long societeId, boolean actif) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.societeId = societeId;
+        this.actif = actif;
+        // Role is prefixed with "ROLE_" as required by Spring Security
+        this.authorities = role != null
+                ? List.of(new SimpleGrantedAuthority("ROLE_" + role.name()))
+                : List.of();
+    }
+
+    /**
+     * Build the principal from a user loaded with its société (see UtilisateurRepository.findByEmail)
+     */
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getEmail(),
+                user.getRole(),
+                user.getSociete() != null ? user.getSociete().getId() : null,
+                Boolean.TRUE.equals(user.getActif()));
+    }
+
+    /**
+     * True if both principals grant the same access (same user, role and société)
+     * Used to reject tokens whose embedded claims no longer match the user record.
+     */
+    public boolean hasSameAccessAs(AuthenticatedUser other) {
+        return Objects.equals(id, other.id)
+                && role == other.role
+                && Objects.equals(societeId, other.societeId);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return actif;
+    }
+}
@@ -2,25 +2,50 @@ package com.cabinet.springbootcabinetcomptablemanagement.security;
 
 import com.cabinet.springbootcabinetcomptablemanagement.models.User;
 import com.cabinet.springbootcabinetcomptablemanagement.repositories.UtilisateurRepository;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Custom UserDetailsService implementation for Spring Security
  * Loads user details from database and converts them to Spring Security's UserDetails format
+ *
+ * Authenticated requests go through {@link #loadAuthenticatedUser(String)}, backed by a bounded
+ * TTL cache keyed by email, so an API call does not cost a user lookup once the principal is cached.
+ * UserServiceImpl evicts an entry whenever the user is updated, (de)activated or deleted.
  */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UtilisateurRepository utilisateurRepository;
+    private final AsyncCache<String, AuthenticatedUser> principalCache;
 
+    public CustomUserDetailsService(UtilisateurRepository utilisateurRepository,
+                                    @Value("${security.principal-cache.ttl:5m}") Duration ttl,
+                                    @Value("${security.principal-cache.max-size:10000}") long maxSize) {
+        this.utilisateurRepository = utilisateurRepository;
+        this.principalCache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .buildAsync();
+    }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -51,5 +76,59 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .disabled(!isEnabled) // Account is enabled if user is active
                 .build();
     }
-}
 
+    /**
+     * Principal for an already authenticated request (the JWT has been verified)
+     * Inactive users are cached too (actif = false) so a disabled account does not hit the database
+     * on every call; callers must check {@link AuthenticatedUser#isEnabled()}.
+     *
+     * @throws UsernameNotFoundException if no user has this email
+     */
+    public AuthenticatedUser loadAuthenticatedUser(String email) {
+        // The pending load is published in the cache before the query runs, on this thread: the query does not
+        // run under the map lock (Cache.get(key, loader) would pin the carrier of a virtual thread), and an
+        // evict during the query drops the pending entry, so a row read before an update commits is never
+        // written back. Concurrent misses for the same email wait for the same load.
+        CompletableFuture<AuthenticatedUser> loading = new CompletableFuture<>();
+        CompletableFuture<AuthenticatedUser> cached = principalCache.asMap().putIfAbsent(email, loading);
+        if (cached == null) {
+            try {
+                // A null value is not cached: an unknown email is looked up again next time
+                loading.complete(utilisateurRepository.findByEmail(email).map(AuthenticatedUser::from).orElse(null));
+            } catch (RuntimeException | Error e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+            cached = loading;
+        }
+
+        AuthenticatedUser principal;
+        try {
+            principal = cached.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        if (principal == null) {
+            throw new UsernameNotFoundException("Utilisateur non trouvé avec l'email: " + email);
+        }
+        return principal;
+    }
+
+    /**
+     * Drop the cached principal(s). When called inside a transaction the entry is evicted again
+     * after commit, so a request that reloaded the user before the commit cannot keep stale data.
+     */
+    public void evict(String... emails) {
+        List<String> keys = Arrays.stream(emails).filter(Objects::nonNull).toList();
+        principalCache.synchronous().invalidateAll(keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    principalCache.synchronous().invalidateAll(keys);
+                }
+            });
+        }
+        log.debug("Principal(s) retiré(s) du cache: {}", keys);
+    }
+}
@@ -1,18 +1,22 @@
 package com.cabinet.springbootcabinetcomptablemanagement.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 /**
  * JWT Authentication Filter
@@ -20,6 +24,7 @@ import java.io.IOException;
  * If valid, it sets the authentication in the SecurityContext
  */
 @Component
+@Slf4j
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
@@ -33,8 +38,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     /**
      * Filter method that is executed once per request
      * 1. Extracts JWT token from Authorization header
-     * 2. Validates the token
-     * 3. Loads user details
+     * 2. Validates the token and reads its claims (single signature check)
+     * 3. Builds the principal from the claims, checked against the cached user record
      * 4. Sets authentication in SecurityContext
      */
     @Override
@@ -46,24 +51,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Step 1: Extract JWT from request header
             String jwt = getJwtFromRequest(request);
 
-            // Step 2: Validate token and set authentication
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
+            // Step 2: Verify the token once (signature + expiration) and read its claims
+            Optional<Claims> claims = StringUtils.hasText(jwt) ? tokenProvider.parseToken(jwt) : Optional.empty();
+            if (claims.isPresent()) {
                 // Step 3: Get email from token
-                String email = tokenProvider.getEmailFromToken(jwt);
-
-                // Step 4: Load user details from database
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-
-                // Debug: Log authorities
-                System.out.println("DEBUG: User authorities: " + userDetails.getAuthorities());
-                System.out.println("DEBUG: User enabled: " + userDetails.isEnabled());
+                String email = claims.get().getSubject();
+
+                // Step 4: Principal from the token claims (role, société). The cached user record
+                // (database only on a cache miss) still decides whether the account is active and
+                // rejects tokens issued before a change of role or société
+                AuthenticatedUser current = userDetailsService.loadAuthenticatedUser(email);
+                if (!current.isEnabled()) {
+                    throw new DisabledException("Utilisateur désactivé: " + email);
+                }
+                AuthenticatedUser principal = tokenProvider.toPrincipal(claims.get()).orElse(current);
+                if (!principal.hasSameAccessAs(current)) {
+                    throw new BadCredentialsException("Jeton obsolète pour l'utilisateur: " + email);
+                }
 
                 // Step 5: Create authentication object
                 UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        principal,
                         null,
-                        userDetails.getAuthorities()
+                        principal.getAuthorities()
                     );
 
                 // Step 6: Set request details
@@ -71,11 +82,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                 // Step 7: Set authentication in SecurityContext
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                
-                System.out.println("DEBUG: Authentication set in SecurityContext");
+                log.debug("Authentification établie pour {} (autorités: {})", email, principal.getAuthorities());
             }
         } catch (Exception ex) {
-            System.err.println("Could not set user authentication in security context: " + ex.getMessage());
+            log.warn("Impossible d'établir l'authentification: {}", ex.getMessage());
         }
 
         // Continue filter chain
@@ -1,86 +1,127 @@
 package com.cabinet.springbootcabinetcomptablemanagement.security;
 
+import com.cabinet.springbootcabinetcomptablemanagement.models.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT Token Provider - Responsible for generating, validating, and extracting information from JWT tokens
+ *
+ * The signing key and the parser are built once: both are immutable and thread-safe.
+ * A request is authenticated with a single {@link #parseToken(String)} call
+ * (one signature check) that returns every claim needed to build the principal.
  */
 @Component
+@Slf4j
 public class JwtTokenProvider {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_SOCIETE_ID = "sid";
 
-    @Value("${jwt.expiration}")
-    private long jwtExpiration;
+    private final long jwtExpiration;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
 
-    /**
-     * Generate a secret key from the configured JWT secret string
-     * This key is used to sign and verify JWT tokens
-     */
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    // cabinet.security.jwt.validation{outcome}: signature + expiration check of each request token
+    private final Timer validTokenTimer;
+    private final Timer expiredTokenTimer;
+    private final Timer invalidTokenTimer;
+
+    public JwtTokenProvider(@Value("${jwt.secret}") String jwtSecret,
+                            @Value("${jwt.expiration}") long jwtExpiration,
+                            MeterRegistry meterRegistry) {
+        this.jwtExpiration = jwtExpiration;
+        // HMAC key derived from the configured secret, used to sign and verify JWT tokens
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.validTokenTimer = validationTimer(meterRegistry, "valid");
+        this.expiredTokenTimer = validationTimer(meterRegistry, "expired");
+        this.invalidTokenTimer = validationTimer(meterRegistry, "invalid");
+    }
+
+    private static Timer validationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("cabinet.security.jwt.validation")
+                .description("Vérification du jeton JWT d'une requête")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     /**
-     * Generate a JWT token for a user (identified by email)
-     * Token contains: subject (email), issued date, expiration date
+     * Generate a JWT token for a user
+     * Token contains: subject (email), user id, role and société id, issued date, expiration date
      * Token is valid for 24 hours (as per requirements)
      */
-    public String generateToken(String email) {
+    public String generateToken(User user) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpiration);
 
-        return Jwts.builder()
-                .subject(email)
+        JwtBuilder builder = Jwts.builder()
+                .subject(user.getEmail())
+                .claim(CLAIM_USER_ID, user.getId())
+                .claim(CLAIM_ROLE, user.getRole().name())
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
-                .compact();
+                .signWith(signingKey);
+        if (user.getSociete() != null) {
+            builder.claim(CLAIM_SOCIETE_ID, user.getSociete().getId());
+        }
+        return builder.compact();
     }
 
     /**
-     * Extract the email (subject) from a JWT token
-     * This is used to identify which user the token belongs to
+     * Verify the signature and expiration once and return the claims
+     * Returns an empty Optional if the token is malformed, expired, unsupported or badly signed
      */
-    public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-
-        return claims.getSubject();
+    public Optional<Claims> parseToken(String token) {
+        long start = System.nanoTime();
+        Timer timer = invalidTokenTimer;
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            timer = validTokenTimer;
+            return Optional.of(claims);
+        } catch (ExpiredJwtException e) {
+            timer = expiredTokenTimer;
+            log.debug("JWT token is expired: {}", e.getMessage());
+        } catch (JwtException e) {
+            log.debug("Invalid JWT token: {}", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            log.debug("JWT claims string is empty: {}", e.getMessage());
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return Optional.empty();
     }
 
     /**
-     * Validate a JWT token
-     * Checks if the token is properly signed and not expired
-     * Returns true if valid, false otherwise
+     * Build the principal from the claims of a verified token
+     * Returns an empty Optional for tokens issued without the role claim (older tokens):
+     * the caller then falls back to the user record.
      */
-    public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
-        } catch (MalformedJwtException e) {
-            System.err.println("Invalid JWT token: " + e.getMessage());
-        } catch (ExpiredJwtException e) {
-            System.err.println("JWT token is expired: " + e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            System.err.println("JWT token is unsupported: " + e.getMessage());
-        } catch (IllegalArgumentException e) {
-            System.err.println("JWT claims string is empty: " + e.getMessage());
+    public Optional<AuthenticatedUser> toPrincipal(Claims claims) {
+        String role = claims.get(CLAIM_ROLE, String.class);
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        if (role == null || userId == null) {
+            return Optional.empty();
         }
-        return false;
+        return Optional.of(new AuthenticatedUser(
+                userId,
+                claims.getSubject(),
+                User.Role.valueOf(role),
+                claims.get(CLAIM_SOCIETE_ID, Long.class),
+                true));
     }
 }
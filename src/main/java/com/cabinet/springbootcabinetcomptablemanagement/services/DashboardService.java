@@ -0,0 +1,19 @@
+package com.cabinet.springbootcabinetcomptablemanagement.services;
+
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DashboardResponseDTO;
+
+public interface DashboardService {
+
+    /**
+     * Read from the maintained counters: the cost depends on the number of sociétés, not of documents
+     * @param exerciceComptable Fiscal year, null for all
+     * @param societeId         Société, null for all
+     */
+    DashboardResponseDTO getDashboard(String exerciceComptable, Long societeId);
+
+    /**
+     * Recompute the counters from the documents
+     * @return Number of counters
+     */
+    int recountDashboard();
+}
@@ -1,8 +1,19 @@
 package com.cabinet.springbootcabinetcomptablemanagement.services;
 
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentPageRequestDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentSearchRequestDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.BatchDecisionResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.BulkUploadResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.CursorPageResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentSearchResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.export.ExportFormat;
 import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,6 +23,12 @@ public interface DocumentService {
                            java.time.LocalDate datePiece, java.math.BigDecimal montant, String fournisseur,
                            MultipartFile file, Long societeId, String exerciceComptable);
 
+    /**
+     * Bulk upload for one société: one manifest line (CSV or JSON) per document, files matched by name
+     * A line that fails (validation, duplicate numéro de pièce, file) is reported without blocking the others
+     */
+    BulkUploadResponseDTO createDocuments(Long societeId, MultipartFile manifest, List<MultipartFile> fichiers);
+
     Document updateDocument(Document document, MultipartFile file);
 
     Optional<Document> getDocumentById(Long id);
@@ -26,13 +43,62 @@ public interface DocumentService {
 
     List<Document> getDocumentByStatut(Document.StatutDocument statut);
 
-    Document validateDocument(Long id, String commentaireComptable);
-
-    Document rejectDocument(Long id, String commentaireComptable);
+    /**
+     * Keyset-paginated listing, newest first by default
+     * societeId, exerciceComptable and statut are optional filters (null = all)
+     */
+    CursorPageResponseDTO<DocumentResponseDTO> getDocumentsPage(Long societeId, String exerciceComptable,
+                                                                Document.StatutDocument statut, DocumentPageRequestDTO pageRequest);
+
+    /**
+     * Full-text / faceted search over the index (fournisseur, numéro de pièce, catégorie, montant, date, type...)
+     * criteria.societeId restricts the search to one société (always set for a SOCIETE user)
+     */
+    DocumentSearchResponseDTO searchDocuments(DocumentSearchRequestDTO criteria);
+
+    /**
+     * Rebuild the search index from the database in the background, searches keep using the current one
+     * @return false if a rebuild is already running
+     */
+    boolean rebuildSearchIndex();
+
+    /**
+     * Write every document of a société for a fiscal year to out, row by row as they are read from the
+     * database (memory use does not depend on the number of documents)
+     * @return Number of documents written
+     */
+    long exportDocuments(Long societeId, String exerciceComptable, ExportFormat format, OutputStream out) throws IOException;
+
+    /**
+     * Write a ZIP of the stored files of a société for the given fiscal years to out, with manifest.csv
+     * (metadata of every document) and fichiers-absents.csv (files that could not be read, if any)
+     * @return Number of files written
+     */
+    long archiveDocuments(Long societeId, List<String> exercices, OutputStream out) throws IOException;
+
+    /**
+     * EN_ATTENTE -> VALIDE as a compare-and-set; versionAttendue (optional) is the version the accountant saw
+     * @throws com.cabinet.springbootcabinetcomptablemanagement.exceptions.DocumentConflictException if the
+     * document is no longer pending or no longer at versionAttendue
+     */
+    Document validateDocument(Long id, String commentaireComptable, Long versionAttendue);
+
+    /**
+     * EN_ATTENTE -> REJETE, same guarantees as validateDocument
+     */
+    Document rejectDocument(Long id, String commentaireComptable, Long versionAttendue);
+
+    /**
+     * Validate or reject many EN_ATTENTE documents in one transaction (bulk UPDATE guarded by the statut)
+     * documentIds, or when empty every pending document of societeId (optionally of one exercice),
+     * at most documents.batch-decision.max-items per call: call again for the rest
+     */
+    BatchDecisionResponseDTO decideDocuments(Document.StatutDocument decision, List<Long> documentIds,
+                                             Long societeId, String exerciceComptable, String commentaire);
 
     void deleteDocument(Long id);
 
-    byte[] downloadDocument(Long id);
+    Resource downloadDocument(Long id);
 
 
 
@@ -1,11 +1,43 @@
 package com.cabinet.springbootcabinetcomptablemanagement.services;
 
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StoredFile;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Instant;
+import java.util.function.ToLongFunction;
+
 public interface FileStorageService {
 
-    String storeFile(MultipartFile file);
+    /**
+     * Store an upload in a single pass over its stream:
+     * SHA-256, magic-byte type check and size limit are computed while the bytes are written to disk
+     */
+    StoredFile storeFile(MultipartFile file);
     byte[] loadFile(String fileName);
+
+    /**
+     * Load a stored file as a streamable Resource (the content is not read into memory)
+     */
+    Resource loadFileAsResource(String fileName);
+
     void deleteFile(String fileName);
+
+    /**
+     * Bring a stored file back in line with the documents pointing to it (storage journal replay):
+     * deleted if no document references it any more, reported if documents reference a missing file
+     * @param references Number of documents whose cheminFichier is the given key
+     */
+    void reconcile(String fileName, ToLongFunction<String> references);
+
+    /**
+     * Delete a stored file that no document references, while uploads and deletions keep running:
+     * a file written, or a shared blob referenced, since the given time is left alone (its document
+     * may not be committed yet)
+     * @param references Number of documents whose cheminFichier is the given key
+     * @return true if the file was deleted
+     */
+    boolean deleteIfUnreferenced(String fileName, ToLongFunction<String> references, Instant unusedSince);
+
     void deteleAllFiles();
 }
@@ -50,7 +50,7 @@ public class AuthServiceImpl implements AuthService {
         }
 
         // Step 3: Generate JWT token
-        String token = tokenProvider.generateToken(user.getEmail());
+        String token = tokenProvider.generateToken(user);
 
         // Step 4: Build and return AuthResponseDTO
         AuthResponseDTO response = new AuthResponseDTO();
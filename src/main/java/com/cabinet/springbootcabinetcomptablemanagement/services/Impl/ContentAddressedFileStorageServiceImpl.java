@@ -0,0 +1,232 @@
+package com.cabinet.springbootcabinetcomptablemanagement.services.Impl;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.StorageJournalEntry;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.BlobReferenceRegistry;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.FileCompression;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StorageBackend;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StorageJournal;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StoredFile;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed, deduplicating file storage (default layout)
+ *
+ * Blobs are keyed by the SHA-256 of their content in a sharded tree: ab/cd/abcdef... (same keys in object storage)
+ * Re-uploading the same invoice under another numéro de pièce only adds a reference to the existing blob.
+ * Reference counts live in the stored_blobs table; a blob leaves the disk with its last document.
+ * A compressed blob is stored as ab/cd/abcdef....gz: the key stays derived from the original content,
+ * so a duplicate is found whether the first copy was compressed or not.
+ */
+@Service
+@ConditionalOnProperty(name = "file.storage.layout", havingValue = "content-addressed", matchIfMissing = true)
+@Slf4j
+public class ContentAddressedFileStorageServiceImpl extends FileStorageServiceImpl {
+
+    private static final Pattern BLOB_KEY = Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}(\\.gz)?");
+    private static final int LOCK_STRIPES = 64;
+
+    private final BlobReferenceRegistry blobReferenceRegistry;
+
+    // Serializes reference updates and disk operations on the same blob (ReentrantLock: safe on virtual threads)
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public ContentAddressedFileStorageServiceImpl(@Value("${file.upload-dir}") String uploadDir,
+                                                  @Value("${file.max-size:10MB}") DataSize maxFileSize,
+                                                  @Value("${file.storage.compression:none}") String compression,
+                                                  @Value("${file.storage.compression-level:6}") int compressionLevel,
+                                                  @Value("${file.storage.purge-on-shutdown:false}") boolean purgeOnShutdown,
+                                                  StorageBackend storageBackend,
+                                                  Optional<StorageJournal> storageJournal,
+                                                  BlobReferenceRegistry blobReferenceRegistry,
+                                                  MeterRegistry meterRegistry) {
+        super(uploadDir, maxFileSize, compression, compressionLevel, purgeOnShutdown, storageBackend, storageJournal,
+                meterRegistry);
+        this.blobReferenceRegistry = blobReferenceRegistry;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    protected String publish(Path stagedFile, String fileName, StagedFile staged) throws IOException {
+        StoredFile content = staged.content();
+        String sha256 = content.getSha256();
+        String blobKey = toBlobKey(sha256) + (staged.compressed() ? FileCompression.GZIP_SUFFIX : "");
+
+        ReentrantLock lock = lockFor(sha256);
+        lock.lock();
+        try {
+            boolean firstReference = blobReferenceRegistry.acquire(sha256, content.getSize());
+            try {
+                String existingKey = firstReference ? null : findStoredVariant(sha256);
+                if (existingKey == null) {
+                    storageBackend.put(blobKey, stagedFile, staged.storedSha256());
+                } else {
+                    log.debug("Contenu déjà stocké, nouvelle référence vers {}", existingKey);
+                    blobKey = existingKey;
+                }
+            } catch (IOException | RuntimeException e) {
+                // La référence est déjà validée (REQUIRES_NEW): la rendre, aucun document ne pointera vers ce blob
+                blobReferenceRegistry.release(sha256);
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Duplicate content: the staging file is simply dropped by storeFile
+        return blobKey;
+    }
+
+    @Override
+    public void deleteFile(String fileName) {
+        // Recorded now: a crash between the document deletion and the release below is repaired at startup
+        journal(fileName, StorageJournalEntry.Operation.DELETE);
+        if (!BLOB_KEY.matcher(fileName).matches()) {
+            // File written with the "uuid" layout: not shared, delete it directly
+            removeFile(fileName);
+            return;
+        }
+
+        // Inside a transaction, only release the reference once the document deletion is committed,
+        // otherwise a rollback would leave the document pointing to a deleted blob
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseBlob(fileName);
+                }
+            });
+        } else {
+            releaseBlob(fileName);
+        }
+    }
+
+    /**
+     * Reconcile the blob of this content as a whole: reference count set to the number of documents
+     * pointing to it (either variant), blob deleted when there are none
+     */
+    @Override
+    public void reconcile(String fileName, ToLongFunction<String> references) {
+        if (!BLOB_KEY.matcher(fileName).matches()) {
+            super.reconcile(fileName, references);
+            return;
+        }
+
+        String sha256 = sha256Of(fileName);
+        String plainKey = toBlobKey(sha256);
+        String compressedKey = plainKey + FileCompression.GZIP_SUFFIX;
+
+        ReentrantLock lock = lockFor(sha256);
+        lock.lock();
+        try {
+            long plainDocuments = references.applyAsLong(plainKey);
+            long compressedDocuments = references.applyAsLong(compressedKey);
+            blobReferenceRegistry.reset(sha256, plainDocuments + compressedDocuments,
+                    () -> storedSize(plainDocuments > 0 ? plainKey : compressedKey));
+            reconcileFile(plainKey, plainDocuments);
+            reconcileFile(compressedKey, compressedDocuments);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * For a blob, "referenced since" is the last reference added to it: a duplicate upload reuses an old blob
+     */
+    @Override
+    public boolean deleteIfUnreferenced(String fileName, ToLongFunction<String> references, Instant unusedSince) {
+        if (!BLOB_KEY.matcher(fileName).matches()) {
+            return super.deleteIfUnreferenced(fileName, references, unusedSince);
+        }
+
+        String sha256 = sha256Of(fileName);
+        String plainKey = toBlobKey(sha256);
+        String compressedKey = plainKey + FileCompression.GZIP_SUFFIX;
+
+        ReentrantLock lock = lockFor(sha256);
+        lock.lock();
+        try {
+            if (references.applyAsLong(plainKey) + references.applyAsLong(compressedKey) > 0) {
+                return false;
+            }
+            LocalDateTime since = LocalDateTime.ofInstant(unusedSince, ZoneId.systemDefault());
+            if (!blobReferenceRegistry.forgetIfUnreferencedSince(sha256, since)) {
+                return false;
+            }
+            removeFile(plainKey);
+            removeFile(compressedKey);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long storedSize(String blobKey) {
+        try {
+            return loadFileAsResource(blobKey).contentLength();
+        } catch (IOException | RuntimeException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * The stored copy of this content, compressed or not (the compression setting may have changed since)
+     */
+    private String findStoredVariant(String sha256) {
+        String plainKey = toBlobKey(sha256);
+        if (storageBackend.exists(plainKey)) {
+            return plainKey;
+        }
+        String compressedKey = plainKey + FileCompression.GZIP_SUFFIX;
+        return storageBackend.exists(compressedKey) ? compressedKey : null;
+    }
+
+    private void releaseBlob(String blobKey) {
+        String sha256 = sha256Of(blobKey);
+
+        ReentrantLock lock = lockFor(sha256);
+        lock.lock();
+        try {
+            long remaining = blobReferenceRegistry.release(sha256);
+            if (remaining == 0) {
+                removeFile(blobKey);
+                log.info("Blob supprimé (plus aucune référence): {}", blobKey);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Impossible de libérer le blob {}", blobKey, ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String sha256Of(String blobKey) {
+        int start = blobKey.lastIndexOf('/') + 1;
+        return blobKey.substring(start, start + 64);
+    }
+
+    private static String toBlobKey(String sha256) {
+        return sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+
+    private ReentrantLock lockFor(String sha256) {
+        return locks[Integer.parseInt(sha256.substring(0, 2), 16) % LOCK_STRIPES];
+    }
+}
@@ -0,0 +1,68 @@
+package com.cabinet.springbootcabinetcomptablemanagement.services.Impl;
+
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DashboardResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.ResourceNotFoundException;
+import com.cabinet.springbootcabinetcomptablemanagement.models.DocumentCounter;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Societe;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentCounterRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.SocieteRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.services.DashboardService;
+import com.cabinet.springbootcabinetcomptablemanagement.statistics.DocumentCounters;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardServiceImpl implements DashboardService {
+
+    private final DocumentCounterRepository documentCounterRepository;
+    private final SocieteRepository societeRepository;
+    private final DocumentCounters documentCounters;
+
+    @Override
+    @Transactional(readOnly = true)
+    public DashboardResponseDTO getDashboard(String exerciceComptable, Long societeId) {
+        // Every société is listed, with zeros when it has no document (yet) for the fiscal year
+        List<Societe> societes = societeId != null
+                ? List.of(societeRepository.findById(societeId).orElseThrow(() -> ResourceNotFoundException.of("Société", societeId)))
+                : societeRepository.findAll(Sort.by("raisonSociale", "id"));
+
+        Map<Long, DashboardResponseDTO.Totaux> totauxParSociete = new HashMap<>();
+        Map<Long, Map<String, DashboardResponseDTO.Totaux>> totauxParExercice = new HashMap<>();
+        DashboardResponseDTO.Totaux totaux = new DashboardResponseDTO.Totaux();
+        for (DocumentCounter counter : documentCounterRepository.findNonEmpty(exerciceComptable, societeId)) {
+            DocumentCounter.Key key = counter.getId();
+            List<DashboardResponseDTO.Totaux> niveaux = List.of(totaux,
+                    totauxParSociete.computeIfAbsent(key.getSocieteId(), id -> new DashboardResponseDTO.Totaux()),
+                    totauxParExercice.computeIfAbsent(key.getSocieteId(), id -> new TreeMap<>(Comparator.reverseOrder()))
+                            .computeIfAbsent(key.getExerciceComptable(), exercice -> new DashboardResponseDTO.Totaux()));
+            niveaux.forEach(niveau -> niveau.add(key.getStatut(), key.getType(), counter.getNombre(), counter.getMontantTotal()));
+        }
+
+        List<DashboardResponseDTO.SocieteTotaux> lignes = societes.stream()
+                .map(societe -> new DashboardResponseDTO.SocieteTotaux(societe.getId(), societe.getRaisonSociale(),
+                        totauxParSociete.getOrDefault(societe.getId(), new DashboardResponseDTO.Totaux()),
+                        totauxParExercice.getOrDefault(societe.getId(), Map.of()).entrySet().stream()
+                                .map(exercice -> new DashboardResponseDTO.ExerciceTotaux(exercice.getKey(), exercice.getValue()))
+                                .toList()))
+                .toList();
+        return new DashboardResponseDTO(exerciceComptable, totaux, lignes);
+    }
+
+    @Override
+    public int recountDashboard() {
+        int counters = documentCounters.recount();
+        log.info("Compteurs du tableau de bord recalculés: {} compteur(s)", counters);
+        return counters;
+    }
+}
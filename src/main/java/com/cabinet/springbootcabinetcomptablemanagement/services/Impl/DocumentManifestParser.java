@@ -0,0 +1,150 @@
+package com.cabinet.springbootcabinetcomptablemanagement.services.Impl;
+
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.InvalidFileException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the manifest of a bulk upload into one map per document (keys = BulkDocumentItemDTO fields)
+ *
+ * JSON: an array of objects. CSV: a header line naming the columns, separated by ';' or ','
+ * (whichever the header uses), values optionally quoted with "; with ';' the montant may use a decimal comma.
+ * Type conversion and validation are left to the caller so a bad line only fails that line.
+ */
+@Component
+@RequiredArgsConstructor
+public class DocumentManifestParser {
+
+    private static final TypeReference<List<Map<String, Object>>> JSON_LINES = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+
+    public List<Map<String, Object>> parse(MultipartFile manifest) {
+        if (manifest == null || manifest.isEmpty()) {
+            throw new InvalidFileException("Le manifeste est requis");
+        }
+
+        String content;
+        try {
+            content = new String(manifest.getBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new InvalidFileException("Impossible de lire le manifeste", ex);
+        }
+        if (content.startsWith("\uFEFF")) {
+            content = content.substring(1);
+        }
+
+        return isJson(manifest, content) ? parseJson(content) : parseCsv(content);
+    }
+
+    private static boolean isJson(MultipartFile manifest, String content) {
+        String name = manifest.getOriginalFilename();
+        String contentType = manifest.getContentType();
+        return (name != null && name.toLowerCase(Locale.ROOT).endsWith(".json"))
+                || (contentType != null && contentType.startsWith("application/json"))
+                || content.stripLeading().startsWith("[");
+    }
+
+    private List<Map<String, Object>> parseJson(String content) {
+        try {
+            return objectMapper.readValue(content, JSON_LINES);
+        } catch (IOException ex) {
+            throw new InvalidFileException("Manifeste JSON invalide: un tableau d'objets est attendu", ex);
+        }
+    }
+
+    private static List<Map<String, Object>> parseCsv(String content) {
+        int headerEnd = content.indexOf('\n');
+        String headerLine = headerEnd < 0 ? content : content.substring(0, headerEnd);
+        char separator = count(headerLine, ';') >= count(headerLine, ',') ? ';' : ',';
+
+        List<List<String>> records = readRecords(content, separator);
+        if (records.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> header = records.get(0).stream().map(String::trim).toList();
+        List<Map<String, Object>> lines = new ArrayList<>(records.size() - 1);
+        for (List<String> record : records.subList(1, records.size())) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            for (int i = 0; i < header.size() && i < record.size(); i++) {
+                String value = record.get(i).trim();
+                if (value.isEmpty()) {
+                    continue;
+                }
+                if (separator == ';' && "montant".equals(header.get(i))) {
+                    value = value.replace(',', '.');
+                }
+                line.put(header.get(i), value);
+            }
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * RFC 4180 style records: quoted fields may contain the separator, line breaks and "" for a quote.
+     * Blank lines are skipped.
+     */
+    private static List<List<String>> readRecords(String content, char separator) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < content.length() && content.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                endRecord(records, record, field);
+                record = new ArrayList<>();
+                if (c == '\r' && i + 1 < content.length() && content.charAt(i + 1) == '\n') {
+                    i++;
+                }
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new InvalidFileException("Manifeste CSV invalide: guillemet non fermé");
+        }
+        endRecord(records, record, field);
+        return records;
+    }
+
+    private static void endRecord(List<List<String>> records, List<String> record, StringBuilder field) {
+        record.add(field.toString());
+        field.setLength(0);
+        if (record.size() > 1 || !record.get(0).isBlank()) {
+            records.add(record);
+        }
+    }
+
+    private static int count(String line, char c) {
+        return (int) line.chars().filter(ch -> ch == c).count();
+    }
+}
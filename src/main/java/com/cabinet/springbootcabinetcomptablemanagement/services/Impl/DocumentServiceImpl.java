@@ -1,24 +1,84 @@
 package com.cabinet.springbootcabinetcomptablemanagement.services.Impl;
 
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.BulkDocumentItemDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentPageRequestDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentSearchRequestDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.BatchDecisionResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.BulkUploadItemResultDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.BulkUploadResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.CursorPageResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentDecisionResultDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentSearchResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.DocumentConflictException;
 import com.cabinet.springbootcabinetcomptablemanagement.exceptions.DuplicateResourceException;
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.InvalidFileException;
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.InvalidRequestException;
 import com.cabinet.springbootcabinetcomptablemanagement.exceptions.ResourceNotFoundException;
+import com.cabinet.springbootcabinetcomptablemanagement.export.ArchivedDocument;
+import com.cabinet.springbootcabinetcomptablemanagement.export.ArchivedFile;
+import com.cabinet.springbootcabinetcomptablemanagement.export.DocumentArchiveWriter;
+import com.cabinet.springbootcabinetcomptablemanagement.export.DocumentExportRow;
+import com.cabinet.springbootcabinetcomptablemanagement.export.DocumentExportWriter;
+import com.cabinet.springbootcabinetcomptablemanagement.export.ExportFormat;
+import com.cabinet.springbootcabinetcomptablemanagement.extraction.TextExtractionService;
 import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
 import com.cabinet.springbootcabinetcomptablemanagement.models.Societe;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentCursor;
 import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentRepository;
 import com.cabinet.springbootcabinetcomptablemanagement.repositories.SocieteRepository;
 import com.cabinet.springbootcabinetcomptablemanagement.services.DocumentService;
+import com.cabinet.springbootcabinetcomptablemanagement.search.DocumentIndexer;
+import com.cabinet.springbootcabinetcomptablemanagement.search.DocumentSearchIndex;
 import com.cabinet.springbootcabinetcomptablemanagement.services.FileStorageService;
-import jakarta.transaction.Transactional;
+import com.cabinet.springbootcabinetcomptablemanagement.statistics.DocumentCounters;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.CompressedFileResource;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StoredFile;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -29,6 +89,29 @@ public class DocumentServiceImpl implements DocumentService {
     private final DocumentRepository documentRepository;
     private final FileStorageService fileStorageService;
     private final SocieteRepository societeRepository;
+    private final DocumentManifestParser documentManifestParser;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ThreadPoolTaskExecutor storageExecutor;
+    private final DocumentSearchIndex documentSearchIndex;
+    private final DocumentIndexer documentIndexer;
+    private final TextExtractionService textExtractionService;
+    private final DocumentCounters documentCounters;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${documents.bulk.max-items:500}")
+    private int bulkMaxItems;
+
+    @Value("${documents.batch-decision.max-items:1000}")
+    private int batchDecisionMaxItems;
+
+    @Value("${documents.archive.read-ahead:4}")
+    private int archiveReadAhead;
+
+    @Value("${documents.archive.read-ahead-max-size:8MB}")
+    private DataSize archiveReadAheadMaxSize;
+
+    private final AtomicReference<LocalDateTime> lastDecisionTime = new AtomicReference<>(LocalDateTime.MIN);
 
     @Override
     public Document createDocument(String numeroPiece, Document.TypeDocument type, String categorieComptable,
@@ -50,23 +133,13 @@ public class DocumentServiceImpl implements DocumentService {
             throw new IllegalArgumentException("Le fichier est requis");
         }
 
-        // Validation de la taille du fichier (10MB max)
-        if (file.getSize() > 10 * 1024 * 1024) {
-            throw new IllegalArgumentException("La taille du fichier ne doit pas dépasser 10MB");
-        }
-
-        // Validation du type de fichier
-        String contentType = file.getContentType();
-        if (contentType == null ||
-                !(contentType.equals("application/pdf") ||
-                        contentType.startsWith("image/"))) {
-            throw new IllegalArgumentException("Seuls les fichiers PDF, JPG et PNG sont acceptés");
-        }
+        // Stocker le fichier: une seule lecture du flux calcule le SHA-256,
+        // vérifie la signature PDF/JPG/PNG et la taille maximale (InvalidFileException sinon)
+        StoredFile storedFile = fileStorageService.storeFile(file);
+        // Le document n'est inséré qu'au commit: si la transaction échoue, le fichier ne doit pas rester orphelin
+        releaseOnRollback(List.of(storedFile.getFileName()));
 
         try {
-            // Stocker le fichier
-            String storedFileName = fileStorageService.storeFile(file);
-
             // Créer le document
             Document document = new Document();
             document.setNumeroPiece(numeroPiece);
@@ -75,14 +148,20 @@ public class DocumentServiceImpl implements DocumentService {
             document.setDatePiece(datePiece);
             document.setMontant(montant);
             document.setFournisseur(fournisseur);
-            document.setCheminFichier(storedFileName);
+            document.setCheminFichier(storedFile.getFileName());
             document.setNomFichierOriginal(file.getOriginalFilename());
+            document.setHashFichier(storedFile.getSha256());
+            document.setTailleFichier(storedFile.getSize());
+            document.setTypeMime(storedFile.getContentType());
             document.setStatut(Document.StatutDocument.EN_ATTENTE);
             document.setSociete(societe);
             document.setExerciceComptable(exerciceComptable);
             document.setCreatedAt(LocalDateTime.now());
 
             Document savedDocument = documentRepository.save(document);
+            documentCounters.created(List.of(savedDocument));
+            textExtractionService.queueAfterCommit(List.of(savedDocument));
+            documentIndexer.reindexAfterCommit(List.of(savedDocument.getId()));
             log.info("Document créé avec succès: ID={}, numéro={}", savedDocument.getId(), numeroPiece);
 
             return savedDocument;
@@ -93,6 +172,220 @@ public class DocumentServiceImpl implements DocumentService {
         }
     }
 
+    @Override
+    public BulkUploadResponseDTO createDocuments(Long societeId, MultipartFile manifest, List<MultipartFile> fichiers) {
+        List<Map<String, Object>> lines = documentManifestParser.parse(manifest);
+        if (lines.isEmpty()) {
+            throw new InvalidFileException("Le manifeste ne contient aucun document");
+        }
+        if (lines.size() > bulkMaxItems) {
+            throw new InvalidFileException("Le manifeste dépasse " + bulkMaxItems + " documents");
+        }
+        log.info("Import groupé: {} document(s), {} fichier(s), société={}", lines.size(), fichiers.size(), societeId);
+
+        Societe societe = societeRepository.findById(societeId)
+                .orElseThrow(() -> ResourceNotFoundException.of("Société", societeId));
+
+        Map<String, List<MultipartFile>> filesByName = new HashMap<>();
+        for (MultipartFile file : fichiers) {
+            if (file.getOriginalFilename() != null && !file.isEmpty()) {
+                filesByName.computeIfAbsent(StringUtils.cleanPath(file.getOriginalFilename()), k -> new ArrayList<>())
+                        .add(file);
+            }
+        }
+
+        // 1. Lecture et validation de chaque line, sans accès à la base
+        List<BulkItem> items = new ArrayList<>(lines.size());
+        Set<String> manifestNumeros = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            BulkItem item = readItem(i + 1, lines.get(i), filesByName);
+            if (item.isPending() && !manifestNumeros.add(item.data.getNumeroPiece())) {
+                item.fail("Numéro de pièce en double dans le manifeste: " + item.data.getNumeroPiece());
+            }
+            items.add(item);
+        }
+
+        // 2. Numéros de pièce déjà enregistrés: une seule requête pour tout le lot
+        List<String> numeros = items.stream().filter(BulkItem::isPending).map(item -> item.data.getNumeroPiece()).toList();
+        Set<String> existing = numeros.isEmpty() ? Set.of() : documentRepository.findExistingNumeroPieces(numeros);
+        for (BulkItem item : items) {
+            if (item.isPending() && existing.contains(item.data.getNumeroPiece())) {
+                item.fail("Un document avec le numéro de pièce '" + item.data.getNumeroPiece() + "' existe déjà");
+            }
+        }
+
+        // 3. Écriture des fichiers en parallèle (pool storageExecutor)
+        for (BulkItem item : items) {
+            if (item.isPending()) {
+                MultipartFile file = item.file;
+                item.pendingStore = CompletableFuture.supplyAsync(() -> fileStorageService.storeFile(file), storageExecutor);
+            }
+        }
+        List<String> storedFiles = new ArrayList<>();
+        for (BulkItem item : items) {
+            if (item.pendingStore == null) {
+                continue;
+            }
+            try {
+                item.stored = item.pendingStore.join();
+                storedFiles.add(item.stored.getFileName());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("Import groupé: fichier {} refusé: {}", item.result.getFichier(), cause.getMessage());
+                item.fail(cause.getMessage());
+            }
+        }
+        releaseOnRollback(storedFiles);
+
+        // 4. Insertion groupée (séquence + hibernate.jdbc.batch_size)
+        List<BulkItem> toCreate = items.stream().filter(BulkItem::isPending).toList();
+        List<Document> documents = toCreate.stream().map(item -> toDocument(item, societe)).toList();
+        documentRepository.saveAll(documents);
+        documentRepository.flush();
+        documentCounters.created(documents);
+        textExtractionService.queueAfterCommit(documents);
+        documentIndexer.reindexAfterCommit(documents.stream().map(Document::getId).toList());
+        for (int i = 0; i < toCreate.size(); i++) {
+            toCreate.get(i).result.setStatut(BulkUploadItemResultDTO.Statut.CREE);
+            toCreate.get(i).result.setDocumentId(documents.get(i).getId());
+        }
+
+        BulkUploadResponseDTO response = BulkUploadResponseDTO.of(items.stream()
+                .map(item -> item.result)
+                .sorted(Comparator.comparingInt(BulkUploadItemResultDTO::getLigne))
+                .toList());
+        log.info("Import groupé terminé: {} créé(s), {} erreur(s)", response.getCrees(), response.getErreurs());
+        return response;
+    }
+
+    private BulkItem readItem(int line, Map<String, Object> values, Map<String, List<MultipartFile>> filesByName) {
+        BulkItem item = new BulkItem(line, values);
+        try {
+            item.data = objectMapper.convertValue(values, BulkDocumentItemDTO.class);
+        } catch (IllegalArgumentException e) {
+            // Valeur non convertible (montant, date, exercice...): nommer le champ plutôt que le message Jackson
+            item.fail(e.getCause() instanceof JsonMappingException mapping && !mapping.getPath().isEmpty()
+                    ? mapping.getPath().get(0).getFieldName() + ": valeur invalide"
+                    : "Ligne illisible");
+            return item;
+        }
+
+        for (ConstraintViolation<BulkDocumentItemDTO> violation : validator.validate(item.data)) {
+            item.fail(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        if (!item.isPending()) {
+            return item;
+        }
+
+        List<MultipartFile> candidates = filesByName.getOrDefault(StringUtils.cleanPath(item.data.getFichier()), List.of());
+        if (candidates.isEmpty()) {
+            item.fail("Fichier absent de la requête: " + item.data.getFichier());
+        } else if (candidates.size() > 1) {
+            item.fail("Plusieurs fichiers portent le nom: " + item.data.getFichier());
+        } else {
+            item.file = candidates.get(0);
+        }
+        return item;
+    }
+
+    private static Document toDocument(BulkItem item, Societe societe) {
+        BulkDocumentItemDTO data = item.data;
+        Document document = new Document();
+        document.setNumeroPiece(data.getNumeroPiece());
+        document.setType(Document.TypeDocument.valueOf(data.getType()));
+        document.setCategorieComptable(data.getCategorieComptable());
+        document.setDatePiece(data.getDatePiece());
+        document.setMontant(data.getMontant());
+        document.setFournisseur(data.getFournisseur());
+        document.setCheminFichier(item.stored.getFileName());
+        document.setNomFichierOriginal(item.file.getOriginalFilename());
+        document.setHashFichier(item.stored.getSha256());
+        document.setTailleFichier(item.stored.getSize());
+        document.setTypeMime(item.stored.getContentType());
+        document.setStatut(Document.StatutDocument.EN_ATTENTE);
+        document.setSociete(societe);
+        document.setExerciceComptable(data.getExerciceComptable().toString());
+        document.setCreatedAt(LocalDateTime.now());
+        return document;
+    }
+
+    /**
+     * Files written for the transaction (upload, update, bulk import) are released if it does not commit
+     * (deleteFile runs after completion, outside the transaction, so the blob reference is released at once)
+     */
+    private void releaseOnRollback(List<String> storedFiles) {
+        if (storedFiles.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    log.warn("Transaction annulée, suppression de {} fichier(s) stocké(s)", storedFiles.size());
+                    storedFiles.forEach(DocumentServiceImpl.this::deleteQuietly);
+                }
+            }
+        });
+    }
+
+    /**
+     * A file no longer referenced once the current transaction commits is deleted after the commit
+     * (outside the transaction, like releaseOnRollback). A failure is only logged: the storage journal
+     * and StorageReconciler pick up the file later.
+     */
+    private void deleteOnCommit(String storedFile) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteQuietly(storedFile);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    deleteQuietly(storedFile);
+                }
+            }
+        });
+    }
+
+    private void deleteQuietly(String storedFile) {
+        try {
+            fileStorageService.deleteFile(storedFile);
+            log.info("Fichier supprimé: {}", storedFile);
+        } catch (Exception e) {
+            log.warn("Impossible de supprimer le fichier: {}", storedFile, e);
+        }
+    }
+
+    /**
+     * One manifest line while the batch is processed
+     */
+    private static final class BulkItem {
+
+        private final BulkUploadItemResultDTO result;
+        private BulkDocumentItemDTO data;
+        private MultipartFile file;
+        private CompletableFuture<StoredFile> pendingStore;
+        private StoredFile stored;
+
+        private BulkItem(int line, Map<String, Object> values) {
+            this.result = BulkUploadItemResultDTO.builder()
+                    .ligne(line)
+                    .numeroPiece(values.get("numeroPiece") != null ? values.get("numeroPiece").toString() : null)
+                    .fichier(values.get("fichier") != null ? values.get("fichier").toString() : null)
+                    .build();
+        }
+
+        private boolean isPending() {
+            return result.getErreurs().isEmpty();
+        }
+
+        private void fail(String error) {
+            result.setStatut(BulkUploadItemResultDTO.Statut.ERREUR);
+            result.getErreurs().add(error);
+        }
+    }
+
     @Override
     public Document updateDocument(Document document, MultipartFile file) {
         log.info("Mise à jour du document ID: {}", document.getId());
@@ -101,28 +394,32 @@ public class DocumentServiceImpl implements DocumentService {
             throw new IllegalArgumentException("Le fichier est requis");
         }
 
-        // Validation de la taille du fichier (10MB max)
-        if (file.getSize() > 10 * 1024 * 1024) {
-            throw new IllegalArgumentException("La taille du fichier ne doit pas dépasser 10MB");
-        }
-
-        // Validation du type de fichier
-        String contentType = file.getContentType();
-        if (contentType == null ||
-                !(contentType.equals("application/pdf") ||
-                        contentType.startsWith("image/"))) {
-            throw new IllegalArgumentException("Seuls les fichiers PDF, JPG et PNG sont acceptés");
+        StoredFile storedFile = fileStorageService.storeFile(file);
+        releaseOnRollback(List.of(storedFile.getFileName()));
+        // L'ancien fichier (ou l'ancienne référence au blob) n'est libéré qu'une fois le nouveau chemin enregistré
+        if (document.getCheminFichier() != null && !document.getCheminFichier().isEmpty()) {
+            deleteOnCommit(document.getCheminFichier());
         }
 
         try {
-            String fileName = fileStorageService.storeFile(file);
-            document.setCheminFichier(fileName);
+            Document.StatutDocument ancienStatut = document.getStatut();
+            document.setCheminFichier(storedFile.getFileName());
+            document.setHashFichier(storedFile.getSha256());
+            document.setTailleFichier(storedFile.getSize());
+            document.setTypeMime(storedFile.getContentType());
             document.setStatut(Document.StatutDocument.EN_ATTENTE);
             document.setDatePiece(LocalDate.now());
             document.setDateModification(LocalDateTime.now());
 
-            return documentRepository.save(document);
+            Document savedDocument = documentRepository.save(document);
+            documentCounters.statutChanged(savedDocument, ancienStatut, Document.StatutDocument.EN_ATTENTE);
+            textExtractionService.requeueAfterCommit(savedDocument);
+            documentIndexer.reindexAfterCommit(List.of(savedDocument.getId()));
+            return savedDocument;
 
+        } catch (OptimisticLockingFailureException | DocumentConflictException e) {
+            // Conflit de version: laisser remonter tel quel pour répondre 409
+            throw e;
         } catch (Exception e) {
             log.error("Erreur lors de la mise à jour du document", e);
             throw new RuntimeException("Erreur lors de la sauvegarde du document: " + e.getMessage(), e);
@@ -131,86 +428,265 @@ public class DocumentServiceImpl implements DocumentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Document> getDocumentById(Long id) {
         // Use custom query to eagerly fetch société to avoid LazyInitializationException
         return documentRepository.findByIdWithSociete(id);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Document> getAllDocuments() {
         // Use custom query to eagerly fetch société to avoid LazyInitializationException
         return documentRepository.findAllWithSociete();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Document> getDocumentBySociete(Long societeId) {
         return documentRepository.findBySocieteId(societeId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Document> getDocumentByExerciceComptable(String exerciseComputable) {
         log.info("Récupération des documents pour l'exercice comptable: {}", exerciseComputable);
         return documentRepository.findByExerciceComptable(exerciseComputable);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Document> getDocumentBySocieteAndExercice(Long societeId, String exerciseComputable) {
         log.info("Récupération des documents pour société {} et exercice {}", societeId, exerciseComputable);
-        return documentRepository.findBySocieteId(societeId).stream()
-                .filter(doc -> doc.getExerciceComptable() != null && doc.getExerciceComptable().equals(exerciseComputable))
-                .toList();
+        return documentRepository.findBySocieteIdAndExerciceComptable(societeId, exerciseComputable);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Document> getDocumentByStatut(Document.StatutDocument statut) {
         log.info("Récupération des documents avec le statut: {}", statut);
         return documentRepository.findByStatut(statut);
     }
 
     @Override
-    public Document validateDocument(Long id, String commentaire) {
-        log.info("Validation du document ID: {}", id);
+    @Transactional(readOnly = true)
+    public CursorPageResponseDTO<DocumentResponseDTO> getDocumentsPage(Long societeId, String exerciceComptable,
+                                                                       Document.StatutDocument statut, DocumentPageRequestDTO pageRequest) {
+        int size = pageRequest.getEffectiveSize();
+        DocumentCursor after = (pageRequest.getCursor() != null && !pageRequest.getCursor().isBlank())
+                ? DocumentCursor.decode(pageRequest.getCursor())
+                : null;
+
+        // Une ligne de plus que la taille demandée pour savoir s'il existe une page suivante
+        List<DocumentResponseDTO> rows = documentRepository.findPage(societeId, exerciceComptable, statut,
+                after, pageRequest.isAscending(), size + 1);
+
+        boolean hasNext = rows.size() > size;
+        List<DocumentResponseDTO> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            DocumentResponseDTO last = content.get(content.size() - 1);
+            nextCursor = new DocumentCursor(last.getCreatedAt(), last.getId()).encode();
+        }
 
-        Document document = documentRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Document non trouvé avec l'ID: " + id));
+        return new CursorPageResponseDTO<>(content, content.size(), nextCursor, hasNext);
+    }
 
-        if (document.getStatut() != Document.StatutDocument.EN_ATTENTE) {
-            throw new IllegalStateException("Seuls les documents en attente peuvent être validés");
+    @Override
+    @Transactional(readOnly = true)
+    public DocumentSearchResponseDTO searchDocuments(DocumentSearchRequestDTO criteria) {
+        DocumentSearchIndex.SearchResult result;
+        try {
+            result = documentSearchIndex.search(criteria);
+        } catch (IOException e) {
+            log.error("Erreur lors de la recherche de documents", e);
+            throw new RuntimeException("Erreur lors de la recherche: " + e.getMessage(), e);
         }
 
-        document.setStatut(Document.StatutDocument.VALIDE);
-        document.setCommentaire(commentaire);
-        document.setDateValidation(LocalDateTime.now());
-        document.setDateModification(LocalDateTime.now());
+        // L'index ne donne que les identifiants: les documents sont relus tels qu'ils sont en base
+        Map<Long, DocumentResponseDTO> byId = result.ids().isEmpty()
+                ? Map.of()
+                : documentRepository.findResponsesByIdIn(result.ids()).stream()
+                .collect(Collectors.toMap(DocumentResponseDTO::getId, Function.identity()));
+        List<DocumentResponseDTO> documents = result.ids().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return new DocumentSearchResponseDTO(result.total(), criteria.getEffectivePage(), documents.size(),
+                documents, result.facets());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean rebuildSearchIndex() {
+        return documentIndexer.rebuild();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportDocuments(Long societeId, String exerciceComptable, ExportFormat format, OutputStream out)
+            throws IOException {
+        long count = 0;
+        try (Stream<DocumentExportRow> rows = documentRepository.streamForExport(societeId, exerciceComptable);
+             DocumentExportWriter writer = format.open(out)) {
+            for (Iterator<DocumentExportRow> it = rows.iterator(); it.hasNext(); count++) {
+                writer.write(it.next());
+            }
+            writer.finish();
+        }
+        log.info("Export {} de la société {} pour l'exercice {}: {} document(s)", format, societeId, exerciceComptable, count);
+        return count;
+    }
 
-        Document validatedDocument = documentRepository.save(document);
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long archiveDocuments(Long societeId, List<String> exercices, OutputStream out) throws IOException {
+        // Une seule lecture des documents, dans une transaction courte: le manifeste est écrit et les fichiers relevés
+        // (id, chemin, taille) au passage. Les fichiers sont copiés ensuite, hors transaction: la connexion n'est pas
+        // gardée pendant un téléchargement au rythme du client. Un fichier supprimé entre-temps est listé dans
+        // fichiers-absents.csv.
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long count;
+        int missing;
+        try (DocumentArchiveWriter writer = new DocumentArchiveWriter(out, fileStorageService, storageExecutor,
+                archiveReadAhead, archiveReadAheadMaxSize.toBytes())) {
+            List<ArchivedFile> files;
+            try {
+                files = readOnly.execute(status -> {
+                    try (Stream<ArchivedDocument> documents = documentRepository.streamForArchive(societeId, exercices)) {
+                        return writer.writeManifest(documents);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            count = writer.writeFiles(files);
+            writer.finish();
+            missing = writer.getMissingCount();
+        }
+        log.info("Archive de la société {} pour les exercices {}: {} fichier(s), {} absent(s)", societeId, exercices,
+                count, missing);
+        return count;
+    }
+
+    @Override
+    public Document validateDocument(Long id, String commentaire, Long versionAttendue) {
+        log.info("Validation du document ID: {}", id);
+
+        Document validatedDocument = transition(id, Document.StatutDocument.VALIDE, commentaire, versionAttendue);
         log.info("Document validé avec succès: {}", id);
 
         return validatedDocument;
     }
 
     @Override
-    public Document rejectDocument(Long id, String motif) {
+    public Document rejectDocument(Long id, String motif, Long versionAttendue) {
 
         if (motif == null || motif.trim().isEmpty()) {
             throw new IllegalArgumentException("Le motif de rejet est obligatoire");
         }
 
-        Document document = documentRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Document non trouvé avec l'ID: " + id));
+        return transition(id, Document.StatutDocument.REJETE, motif, versionAttendue);
+    }
 
-        if (document.getStatut() != Document.StatutDocument.EN_ATTENTE) {
-            throw new IllegalStateException("Seuls les documents en attente peuvent être rejetés");
+    /**
+     * Single guarded UPDATE instead of read / check / save: the database decides which of two concurrent
+     * decisions wins, the loser updates 0 rows and gets a 409. The document is only read again afterwards,
+     * to return it or to explain the conflict.
+     */
+    private Document transition(Long id, Document.StatutDocument cible, String commentaire, Long versionAttendue) {
+        Document.StatutDocument source = Document.StatutDocument.EN_ATTENTE;
+        if (!source.canTransitionTo(cible)) {
+            throw new IllegalArgumentException("Transition non autorisée vers " + cible);
         }
 
-        document.setStatut(Document.StatutDocument.REJETE);
-        document.setCommentaire(motif);
-        document.setDateValidation(LocalDateTime.now());
-        document.setDateModification(LocalDateTime.now());
+        int updated = documentRepository.compareAndSetStatut(id, source, versionAttendue, cible, commentaire,
+                nextDecisionTime());
+
+        Document document = documentRepository.findByIdWithSociete(id)
+                .orElseThrow(() -> ResourceNotFoundException.of("Document", id));
+        if (updated == 0) {
+            log.warn("Conflit sur le document {}: statut {} version {}, demandé {} (version attendue {})",
+                    id, document.getStatut(), document.getVersion(), cible, versionAttendue);
+            throw document.getStatut() != source
+                    ? DocumentConflictException.forTransition(id, document.getStatut(), cible)
+                    : DocumentConflictException.forVersion(id, versionAttendue, document.getVersion());
+        }
+        documentCounters.statutChanged(document, source, cible);
+        documentIndexer.reindexAfterCommit(List.of(id));
+        return document;
+    }
 
-        return documentRepository.save(document);
+    @Override
+    public BatchDecisionResponseDTO decideDocuments(Document.StatutDocument decision, List<Long> documentIds,
+                                                    Long societeId, String exerciceComptable, String commentaire) {
+        if (decision != Document.StatutDocument.VALIDE && decision != Document.StatutDocument.REJETE) {
+            throw new InvalidRequestException("Action doit être VALIDE ou REJETE");
+        }
+        if (decision == Document.StatutDocument.REJETE && (commentaire == null || commentaire.trim().isEmpty())) {
+            throw new InvalidRequestException("Le motif de rejet est obligatoire");
+        }
+
+        List<Long> requested;
+        if (documentIds != null && !documentIds.isEmpty()) {
+            requested = documentIds.stream().distinct().toList();
+            if (requested.size() > batchDecisionMaxItems) {
+                throw new InvalidRequestException(batchDecisionMaxItems + " documents au maximum par requête");
+            }
+        } else if (societeId != null) {
+            requested = documentRepository.findIdsBySocieteAndStatut(societeId, exerciceComptable,
+                    Document.StatutDocument.EN_ATTENTE, Limit.of(batchDecisionMaxItems));
+        } else {
+            throw new InvalidRequestException("Indiquez les documents (documentIds) ou la société (societeId)");
+        }
+
+        // Aucun verrou préalable: l'UPDATE ne touche que les lignes encore EN_ATTENTE, un autre comptable qui
+        // traite les mêmes documents ne peut pas les modifier une seconde fois. La date, propre à cette décision,
+        // permet ensuite de relire exactement les lignes que cet UPDATE a changées.
+        List<Long> applied = List.of();
+        if (!requested.isEmpty()) {
+            LocalDateTime date = nextDecisionTime();
+            int updated = documentRepository.updateStatutByIdIn(requested, Document.StatutDocument.EN_ATTENTE,
+                    decision, commentaire, date);
+            if (updated > 0) {
+                applied = documentRepository.findIdsDecidedAt(requested, decision, date);
+                documentCounters.statutChanged(applied, Document.StatutDocument.EN_ATTENTE, decision);
+                documentIndexer.reindexAfterCommit(applied);
+            }
+        }
+        log.info("Décision groupée {}: {} document(s) demandé(s), {} appliqué(s)", decision, requested.size(), applied.size());
+
+        Set<Long> appliedIds = new HashSet<>(applied);
+        List<Long> notApplied = requested.stream().filter(id -> !appliedIds.contains(id)).toList();
+        Map<Long, Document.StatutDocument> currentStatuts = new HashMap<>();
+        if (!notApplied.isEmpty()) {
+            for (Object[] row : documentRepository.findStatutsByIdIn(notApplied)) {
+                currentStatuts.put((Long) row[0], (Document.StatutDocument) row[1]);
+            }
+        }
 
+        List<DocumentDecisionResultDTO> resultats = requested.stream()
+                .map(id -> appliedIds.contains(id)
+                        ? new DocumentDecisionResultDTO(id, DocumentDecisionResultDTO.Resultat.APPLIQUE, decision)
+                        : currentStatuts.containsKey(id)
+                        ? new DocumentDecisionResultDTO(id, DocumentDecisionResultDTO.Resultat.DEJA_TRAITE, currentStatuts.get(id))
+                        : new DocumentDecisionResultDTO(id, DocumentDecisionResultDTO.Resultat.INTROUVABLE, null))
+                .toList();
+        return BatchDecisionResponseDTO.of(decision, resultats);
+    }
 
+    /**
+     * Date of a validation / rejection: strictly increasing at the precision of the column (microseconds),
+     * so that no two decisions of this instance write the same dateValidation
+     */
+    private LocalDateTime nextDecisionTime() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        return lastDecisionTime.accumulateAndGet(now,
+                (last, candidate) -> candidate.isAfter(last) ? candidate : last.plus(1, ChronoUnit.MICROS));
     }
 
     @Override
@@ -218,35 +694,42 @@ public class DocumentServiceImpl implements DocumentService {
         log.info("Suppression du document ID: {}", id);
 
         Document document = documentRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Document non trouvé avec l'ID: " + id));
+                .orElseThrow(() -> ResourceNotFoundException.of("Document", id));
 
-        // Supprimer le fichier physique si présent
+        // Supprimer le fichier physique une fois la suppression du document validée
+        // (un rollback laisserait sinon un document sans fichier)
         if (document.getCheminFichier() != null && !document.getCheminFichier().isEmpty()) {
-            try {
-                fileStorageService.deleteFile(document.getCheminFichier());
-                log.info("Fichier supprimé: {}", document.getCheminFichier());
-            } catch (Exception e) {
-                log.warn("Impossible de supprimer le fichier: {}", document.getCheminFichier(), e);
-            }
+            deleteOnCommit(document.getCheminFichier());
         }
 
+        textExtractionService.forget(id);
+        documentCounters.deleted(document);
         documentRepository.delete(document);
+        documentIndexer.reindexAfterCommit(List.of(id));
         log.info("Document supprimé avec succès: {}", id);
     }
 
     @Override
-    public byte[] downloadDocument(Long id) {
+    @Transactional(readOnly = true)
+    public Resource downloadDocument(Long id) {
         log.info("Téléchargement du document ID: {}", id);
 
         Document document = documentRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Document non trouvé avec l'ID: " + id));
+                .orElseThrow(() -> ResourceNotFoundException.of("Document", id));
 
         if (document.getCheminFichier() == null || document.getCheminFichier().isEmpty()) {
             throw new IllegalStateException("Aucun fichier associé à ce document");
         }
 
         try {
-            return fileStorageService.loadFile(document.getCheminFichier());
+            Resource resource = fileStorageService.loadFileAsResource(document.getCheminFichier());
+            // Compressed file: the decoded length is already known, no need to read the gzip trailer
+            if (resource instanceof CompressedFileResource compressed && document.getTailleFichier() != null) {
+                return compressed.withContentLength(document.getTailleFichier());
+            }
+            return resource;
+        } catch (ResourceNotFoundException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Erreur lors du téléchargement du document", e);
             throw new RuntimeException("Erreur lors du téléchargement du fichier: " + e.getMessage(), e);
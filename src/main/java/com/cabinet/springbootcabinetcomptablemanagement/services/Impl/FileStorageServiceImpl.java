@@ -1,94 +1,357 @@
 package com.cabinet.springbootcabinetcomptablemanagement.services.Impl;
 
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.FileStorageException;
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.InvalidFileException;
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.ResourceNotFoundException;
+import com.cabinet.springbootcabinetcomptablemanagement.models.StorageJournalEntry;
 import com.cabinet.springbootcabinetcomptablemanagement.services.FileStorageService;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.CompressedFileResource;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.FileCompression;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StorageBackend;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StorageJournal;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StoredFile;
+import com.cabinet.springbootcabinetcomptablemanagement.validation.FileSignature;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Storage where every upload gets its own "UUID_filename" copy
+ * Enabled with file.storage.layout=uuid, see ContentAddressedFileStorageServiceImpl for the default layout
+ *
+ * Uploads are validated in a local staging file, then handed to the StorageBackend
+ * (local disk, S3-compatible object storage or both, see StorageBackendConfig).
+ * With file.storage.compression=gzip, compressible content is gzipped while it is staged
+ * and its key gets the ".gz" suffix (see FileCompression); reads decode it transparently.
+ * Stored files outlive the application unless file.storage.purge-on-shutdown is set (in-memory database);
+ * with the storage journal enabled, every write and delete is recorded for StorageJournalReplayer.
+ */
 @Service
+@ConditionalOnProperty(name = "file.storage.layout", havingValue = "uuid")
+@Slf4j
 public class FileStorageServiceImpl implements FileStorageService {
 
-    private final Path fileStorageLocation;
+    private static final int BUFFER_SIZE = 64 * 1024;
 
-    public FileStorageServiceImpl(@Value("${file.upload-dir}") String uploadDir) {
-        this.fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
+    protected final StorageBackend storageBackend;
+    private final Path stagingLocation;
+    private final long maxFileSize;
+    private final boolean compression;
+    private final int compressionLevel;
+    private final boolean purgeOnShutdown;
+    private final Optional<StorageJournal> storageJournal;
+    private final MeterRegistry meterRegistry;
+
+    public FileStorageServiceImpl(@Value("${file.upload-dir}") String uploadDir,
+                                  @Value("${file.max-size:10MB}") DataSize maxFileSize,
+                                  @Value("${file.storage.compression:none}") String compression,
+                                  @Value("${file.storage.compression-level:6}") int compressionLevel,
+                                  @Value("${file.storage.purge-on-shutdown:false}") boolean purgeOnShutdown,
+                                  StorageBackend storageBackend,
+                                  Optional<StorageJournal> storageJournal,
+                                  MeterRegistry meterRegistry) {
+        if (!"none".equals(compression) && !FileCompression.CONTENT_ENCODING.equals(compression)) {
+            throw new IllegalArgumentException("file.storage.compression doit valoir none ou gzip: " + compression);
+        }
+        // Staging lives on the same file system as the local files so publishing a file is a rename
+        this.stagingLocation = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(".staging");
+        this.storageBackend = storageBackend;
+        this.maxFileSize = maxFileSize.toBytes();
+        this.compression = FileCompression.CONTENT_ENCODING.equals(compression);
+        this.compressionLevel = compressionLevel;
+        this.purgeOnShutdown = purgeOnShutdown;
+        this.storageJournal = storageJournal;
+        this.meterRegistry = meterRegistry;
 
         try {
-            Files.createDirectories(this.fileStorageLocation);
+            Files.createDirectories(this.stagingLocation);
         } catch (IOException ex) {
             throw new RuntimeException("Impossible de créer le répertoire de stockage", ex);
         }
 
     }
+
     @Override
-    public String storeFile(MultipartFile file) {
+    public StoredFile storeFile(MultipartFile file) {
+        return timed("store", () -> doStoreFile(file));
+    }
+
+    private StoredFile doStoreFile(MultipartFile file) {
         String originalFilename = file.getOriginalFilename();
         if (originalFilename == null || originalFilename.isEmpty()) {
             throw new IllegalArgumentException("Le nom du fichier ne peut pas être vide");
         }
 
         String fileName = StringUtils.cleanPath(originalFilename);
+        if (fileName.contains("..")) {
+            throw new IllegalArgumentException("Nom de fichier invalide: " + fileName);
+        }
 
+        Path stagedFile = null;
         try {
-            if (fileName.contains("..")) {
-                throw new IllegalArgumentException("Nom de fichier invalide: " + fileName);
+            stagedFile = Files.createTempFile(this.stagingLocation, "upload-", ".part");
+            StagedFile staged;
+            try (InputStream in = file.getInputStream()) {
+                staged = copyAndInspect(in, stagedFile);
             }
 
-            String uniqueFileName = UUID.randomUUID() + "_" + fileName;
-            Path targetLocation = this.fileStorageLocation.resolve(uniqueFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            String storageKey = publish(stagedFile, fileName, staged);
+            journal(storageKey, StorageJournalEntry.Operation.PUT);
 
-            return uniqueFileName;
+            StoredFile content = staged.content();
+            return new StoredFile(storageKey, content.getSha256(), content.getSize(), content.getContentType());
 
         } catch (IOException ex) {
-            throw new RuntimeException("Impossible de stocker le fichier " + fileName, ex);
+            throw new FileStorageException("Impossible de stocker le fichier " + fileName, ex);
+        } finally {
+            deleteQuietly(stagedFile);
         }
 
     }
 
-    @Override
-    public byte[] loadFile(String fileName) {
+    /**
+     * A validated staging file
+     * @param content      What was uploaded (SHA-256, size and type of the original bytes)
+     * @param compressed   The staging file holds the gzip encoding of the content
+     * @param storedSha256 SHA-256 of the staging file itself, checked by object storage on upload
+     */
+    protected record StagedFile(StoredFile content, boolean compressed, String storedSha256) {
+    }
+
+    /**
+     * Hand a fully written and validated staging file to the storage backend
+     * This layout gives every upload its own "UUID_filename" copy
+     * @return The storage key saved in Document.cheminFichier
+     */
+    protected String publish(Path stagedFile, String fileName, StagedFile staged) throws IOException {
+        String uniqueFileName = UUID.randomUUID() + "_" + fileName
+                + (staged.compressed() ? FileCompression.GZIP_SUFFIX : "");
+        storageBackend.put(uniqueFileName, stagedFile, staged.storedSha256());
+        return uniqueFileName;
+    }
+
+    /**
+     * Copy the upload to its staging file while computing everything we need to know about it:
+     * the first bytes are checked against the accepted signatures, the size limit is enforced
+     * as bytes arrive, and the SHA-256 is updated with the same buffer that is written to disk
+     * (through gzip when the first block shows the content is worth compressing)
+     */
+    private StagedFile copyAndInspect(InputStream in, Path stagedFile) throws IOException {
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        // Read the first block before writing anything: signature check and compression probe
+        int read = in.readNBytes(buffer, 0, BUFFER_SIZE);
+        if (read == 0) {
+            throw new InvalidFileException("Le fichier ne peut pas être vide");
+        }
+        FileSignature signature = FileSignature.detect(buffer, read)
+                .orElseThrow(() -> new InvalidFileException("Seuls les fichiers PDF, JPG et PNG sont acceptés"));
+        boolean compress = compression && signature.isCompressible() && FileCompression.worthCompressing(buffer, read);
+        MessageDigest storedDigest = compress ? newSha256() : null;
+
+        long size = 0;
+        try (OutputStream out = openStaging(stagedFile, storedDigest)) {
+            do {
+                size += read;
+                if (size > maxFileSize) {
+                    throw new InvalidFileException(String.format(
+                            "La taille du fichier ne doit pas dépasser %d MB", maxFileSize / 1048576));
+                }
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            } while ((read = in.read(buffer)) != -1);
+        }
+
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        StoredFile content = new StoredFile(null, sha256, size, signature.getMimeType());
+        return new StagedFile(content, compress, compress ? HexFormat.of().formatHex(storedDigest.digest()) : sha256);
+    }
+
+    private OutputStream openStaging(Path stagedFile, MessageDigest storedDigest) throws IOException {
+        OutputStream out = Files.newOutputStream(stagedFile);
+        if (storedDigest == null) {
+            return out;
+        }
+        return new GZIPOutputStream(new DigestOutputStream(out, storedDigest), BUFFER_SIZE) {
+            {
+                def.setLevel(compressionLevel);
+            }
+        };
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 non disponible", ex);
+        }
+    }
+
+    /**
+     * cabinet.storage.io{operation, outcome, backend}: latency of the I/O operations of the storage layer
+     */
+    protected <T> T timed(String operation, Supplier<T> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            T result = action.get();
+            outcome = "success";
+            return result;
+        } finally {
+            sample.stop(Timer.builder("cabinet.storage.io")
+                    .description("Opérations d'entrée/sortie du stockage des fichiers")
+                    .tag("operation", operation)
+                    .tag("backend", storageBackend.name())
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    protected static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            return Files.readAllBytes(filePath);
+            Files.deleteIfExists(path);
         } catch (IOException ex) {
-            throw new RuntimeException("Fichier non trouvé: " + fileName, ex);
+            // The staging file is cleaned up at the latest on shutdown
         }
     }
 
+    @Override
+    public byte[] loadFile(String fileName) {
+        return timed("load", () -> {
+            try (InputStream in = decoded(fileName, storageBackend.get(fileName)).getInputStream()) {
+                return in.readAllBytes();
+            } catch (IOException ex) {
+                throw new RuntimeException("Fichier non trouvé: " + fileName, ex);
+            }
+        });
+    }
+
+    @Override
+    public Resource loadFileAsResource(String fileName) {
+        // Only the lookup is timed here, the streaming itself is part of cabinet.documents.download
+        return timed("open", () -> decoded(fileName, storageBackend.get(fileName)));
+    }
+
+    private static Resource decoded(String fileName, Resource stored) {
+        return FileCompression.isCompressed(fileName) ? new CompressedFileResource(stored) : stored;
+    }
+
     @Override
     public void deleteFile(String fileName) {
+        journal(fileName, StorageJournalEntry.Operation.DELETE);
+        removeFile(fileName);
+    }
+
+    /**
+     * Delete a stored file, without journaling (the caller already did)
+     */
+    protected void removeFile(String fileName) {
+        timed("delete", () -> storageBackend.delete(fileName));
+    }
+
+    @Override
+    public void reconcile(String fileName, ToLongFunction<String> references) {
+        reconcileFile(fileName, references.applyAsLong(fileName));
+    }
+
+    @Override
+    public boolean deleteIfUnreferenced(String fileName, ToLongFunction<String> references, Instant unusedSince) {
+        if (references.applyAsLong(fileName) > 0) {
+            return false;
+        }
+        Resource stored;
         try {
-            Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
-            Files.deleteIfExists(filePath);
-        } catch (IOException ex) {
-            // Log or handle the exception if needed
+            stored = storageBackend.get(fileName);
+            if (stored.lastModified() >= unusedSince.toEpochMilli()) {
+                return false;
+            }
+        } catch (ResourceNotFoundException | IOException ex) {
+            return false;
         }
+        removeFile(fileName);
+        return true;
+    }
 
+    /**
+     * Delete a stored file no document references, report a referenced file that is missing
+     */
+    protected void reconcileFile(String fileName, long documents) {
+        boolean stored = storageBackend.exists(fileName);
+        if (documents == 0 && stored) {
+            removeFile(fileName);
+            log.info("Fichier sans document supprimé: {}", fileName);
+        } else if (documents > 0 && !stored) {
+            log.warn("Fichier manquant, référencé par {} document(s): {}", documents, fileName);
+        }
+    }
+
+    /**
+     * Record a storage operation in the journal when it is enabled
+     * A journal failure does not fail the operation: at worst the file is left for a full reconciliation
+     */
+    protected void journal(String fileName, StorageJournalEntry.Operation operation) {
+        storageJournal.ifPresent(journal -> {
+            try {
+                journal.record(fileName, operation);
+            } catch (RuntimeException ex) {
+                log.warn("Impossible d'inscrire {} {} au journal de stockage", operation, fileName, ex);
+            }
+        });
     }
 
-    @PreDestroy
     @Override
     public void deteleAllFiles() {
-        try {
-            Files.walk(this.fileStorageLocation)
-                    .filter(Files::isRegularFile)
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            // Ignore errors during cleanup
-                        }
-                    });
+        storageBackend.deleteAll();
+        deleteStagingFiles();
+    }
+
+    /**
+     * Shutdown: staging files are partial uploads and always go; stored files only with an in-memory database
+     * (file.storage.purge-on-shutdown), since the documents pointing to them disappear with it
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (purgeOnShutdown) {
+            deteleAllFiles();
+        } else {
+            deleteStagingFiles();
+        }
+    }
+
+    private void deleteStagingFiles() {
+        try (Stream<Path> staged = Files.list(this.stagingLocation)) {
+            staged.forEach(FileStorageServiceImpl::deleteQuietly);
         } catch (IOException ex) {
             // Ignore errors during cleanup
         }
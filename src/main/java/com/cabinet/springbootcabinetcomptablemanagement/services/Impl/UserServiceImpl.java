@@ -2,6 +2,7 @@ package com.cabinet.springbootcabinetcomptablemanagement.services.Impl;
 
 import com.cabinet.springbootcabinetcomptablemanagement.models.User;
 import com.cabinet.springbootcabinetcomptablemanagement.repositories.UtilisateurRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.security.CustomUserDetailsService;
 import com.cabinet.springbootcabinetcomptablemanagement.services.UserService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -22,6 +23,7 @@ import java.util.Optional;
 public class UserServiceImpl implements UserService {
     private final UtilisateurRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CustomUserDetailsService userDetailsService;
 
 
     @Override
@@ -64,6 +66,8 @@ public class UserServiceImpl implements UserService {
 
 
         User existingUser = userRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found"));
+        // L'ancien et le nouvel email: le principal en cache est indexé par email
+        userDetailsService.evict(existingUser.getEmail(), user.getEmail());
         existingUser.setNomComplet(user.getNomComplet());
         existingUser.setEmail(user.getEmail());
         return userRepository.save(existingUser);
@@ -74,6 +78,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public void deleteUser(Long id) {
 
+        userRepository.findById(id).ifPresent(user -> userDetailsService.evict(user.getEmail()));
         userRepository.deleteById(id);
 
     }
@@ -84,6 +89,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found"));
         user.setActif(true);
         userRepository.save(user);
+        userDetailsService.evict(user.getEmail());
 
     }
 
@@ -93,6 +99,7 @@ public class UserServiceImpl implements UserService {
 
         user.setActif(false);
         userRepository.save(user);
+        userDetailsService.evict(user.getEmail());
 
     }
 }
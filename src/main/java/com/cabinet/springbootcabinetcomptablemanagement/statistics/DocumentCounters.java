@@ -0,0 +1,138 @@
+package com.cabinet.springbootcabinetcomptablemanagement.statistics;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.models.DocumentCounter;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentCounterRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the dashboard counters (document_counters) in step with the documents
+ *
+ * Every change is applied in the transaction that changes the documents (propagation MANDATORY): the
+ * counters commit or roll back with them. A change is one atomic upsert per counter, in key order so that
+ * two transactions touching the same counters lock them in the same order.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(propagation = Propagation.MANDATORY)
+public class DocumentCounters {
+
+    private static final Comparator<DocumentCounter.Key> KEY_ORDER = Comparator
+            .comparing(DocumentCounter.Key::getSocieteId)
+            .thenComparing(DocumentCounter.Key::getExerciceComptable)
+            .thenComparing(DocumentCounter.Key::getType)
+            .thenComparing(DocumentCounter.Key::getStatut);
+
+    private final DocumentCounterRepository documentCounterRepository;
+    private final DocumentRepository documentRepository;
+
+    /**
+     * Created documents, counted under their current statut
+     */
+    public void created(Collection<Document> documents) {
+        Map<DocumentCounter.Key, Delta> deltas = new TreeMap<>(KEY_ORDER);
+        for (Document document : documents) {
+            deltas.merge(key(document, document.getStatut()), new Delta(1, document.getMontant()), Delta::plus);
+        }
+        apply(deltas);
+    }
+
+    /**
+     * One document moved from one statut to another
+     */
+    public void statutChanged(Document document, Document.StatutDocument ancien, Document.StatutDocument nouveau) {
+        if (ancien == nouveau) {
+            return;
+        }
+        Map<DocumentCounter.Key, Delta> deltas = new TreeMap<>(KEY_ORDER);
+        deltas.put(key(document, ancien), new Delta(-1, document.getMontant().negate()));
+        deltas.put(key(document, nouveau), new Delta(1, document.getMontant()));
+        apply(deltas);
+    }
+
+    /**
+     * Documents moved together from one statut to another (batch decision); only ids the caller's
+     * guarded UPDATE actually changed, so that a document decided concurrently is not counted twice
+     */
+    public void statutChanged(Collection<Long> documentIds, Document.StatutDocument ancien, Document.StatutDocument nouveau) {
+        if (documentIds.isEmpty() || ancien == nouveau) {
+            return;
+        }
+        Map<DocumentCounter.Key, Delta> deltas = new TreeMap<>(KEY_ORDER);
+        for (Object[] row : documentRepository.sumByCounterKey(documentIds)) {
+            Long societeId = (Long) row[0];
+            String exercice = (String) row[1];
+            Document.TypeDocument type = (Document.TypeDocument) row[2];
+            Delta delta = new Delta((Long) row[3], (BigDecimal) row[4]);
+            deltas.put(new DocumentCounter.Key(societeId, exercice, type, ancien), delta.negate());
+            deltas.put(new DocumentCounter.Key(societeId, exercice, type, nouveau), delta);
+        }
+        apply(deltas);
+    }
+
+    public void deleted(Document document) {
+        documentCounterRepository.add(document.getSociete().getId(), document.getExerciceComptable(), document.getType(),
+                document.getStatut(), -1, document.getMontant().negate());
+    }
+
+    /**
+     * Recompute every counter from the documents table
+     * Meant for a quiet moment (startup, maintenance): documents changed while it runs may be counted twice
+     */
+    @Transactional(propagation = Propagation.REQUIRED)
+    public int recount() {
+        documentCounterRepository.deleteAllInBatch();
+        return documentCounterRepository.insertCountsFromDocuments();
+    }
+
+    /**
+     * Counters missing or out of step (first start with existing documents, data changed outside the
+     * application): recomputed before the dashboard is used
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void onStartup() {
+        long documents = documentRepository.count();
+        long counted = documentCounterRepository.sumNombre();
+        if (documents != counted) {
+            int rows = recount();
+            log.info("Compteurs du tableau de bord recalculés: {} document(s) comptés ({} auparavant), {} compteur(s)",
+                    documents, counted, rows);
+        }
+    }
+
+    private void apply(Map<DocumentCounter.Key, Delta> deltas) {
+        deltas.forEach((key, delta) -> documentCounterRepository.add(key.getSocieteId(), key.getExerciceComptable(),
+                key.getType(), key.getStatut(), delta.nombre(), delta.montant()));
+    }
+
+    private static DocumentCounter.Key key(Document document, Document.StatutDocument statut) {
+        return new DocumentCounter.Key(document.getSociete().getId(), document.getExerciceComptable(),
+                document.getType(), statut);
+    }
+
+    private record Delta(long nombre, BigDecimal montant) {
+
+        Delta plus(Delta other) {
+            return new Delta(nombre + other.nombre, montant.add(other.montant));
+        }
+
+        Delta negate() {
+            return new Delta(-nombre, montant.negate());
+        }
+    }
+}
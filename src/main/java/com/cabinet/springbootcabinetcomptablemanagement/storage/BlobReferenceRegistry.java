@@ -0,0 +1,91 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.StoredBlob;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.StoredBlobRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.function.LongSupplier;
+
+/**
+ * Reference counts of the content-addressed blobs
+ *
+ * Each operation commits in its own transaction: the count must reflect what is on disk
+ * even if the document transaction that triggered it rolls back afterwards.
+ * Callers serialize operations on the same hash (see ContentAddressedFileStorageServiceImpl).
+ */
+@Component
+@RequiredArgsConstructor
+public class BlobReferenceRegistry {
+
+    private final StoredBlobRepository storedBlobRepository;
+
+    /**
+     * Add a reference to a blob
+     * @return true if this is the first reference, i.e. the blob is new to the store
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public boolean acquire(String sha256, long size) {
+        if (storedBlobRepository.incrementReferences(sha256, LocalDateTime.now()) > 0) {
+            return false;
+        }
+
+        StoredBlob blob = new StoredBlob();
+        blob.setSha256(sha256);
+        blob.setTaille(size);
+        blob.setNombreReferences(1L);
+        storedBlobRepository.save(blob);
+        return true;
+    }
+
+    /**
+     * Remove a reference to a blob, the row is deleted with the last reference
+     * @return The number of references left (0 means the blob can be deleted from disk)
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public long release(String sha256) {
+        storedBlobRepository.decrementReferences(sha256);
+        Long remaining = storedBlobRepository.findReferenceCount(sha256);
+        if (remaining == null) {
+            return 0;
+        }
+        if (remaining == 0) {
+            storedBlobRepository.deleteById(sha256);
+        }
+        return remaining;
+    }
+
+    /**
+     * Drop the row of a blob no document points to, unless a reference was added since the given time
+     * (the upload may still be waiting for its document to be committed)
+     * @return true if the blob has no row any more and its file can be deleted
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public boolean forgetIfUnreferencedSince(String sha256, LocalDateTime since) {
+        return storedBlobRepository.deleteIfUnreferencedSince(sha256, since) > 0
+                || !storedBlobRepository.existsById(sha256);
+    }
+
+    /**
+     * Set the reference count of a blob to the number of documents pointing to it (storage journal replay)
+     * The row is deleted when there are none, and recreated if documents point to a blob that has lost it
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void reset(String sha256, long references, LongSupplier size) {
+        if (references == 0) {
+            storedBlobRepository.deleteById(sha256);
+            return;
+        }
+        if (storedBlobRepository.updateReferences(sha256, references) > 0) {
+            return;
+        }
+
+        StoredBlob blob = new StoredBlob();
+        blob.setSha256(sha256);
+        blob.setTaille(size.getAsLong());
+        blob.setNombreReferences(references);
+        storedBlobRepository.save(blob);
+    }
+}
@@ -0,0 +1,92 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decoded view of a gzip-compressed stored file
+ *
+ * getInputStream() decompresses on the fly; getEncoded() gives the stored bytes for clients that accept
+ * Content-Encoding: gzip. The decoded length is the one recorded on the document when known, otherwise
+ * the ISIZE field of the gzip trailer (last 4 bytes) for a local file.
+ */
+public class CompressedFileResource extends AbstractResource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Resource encoded;
+    private final long contentLength;
+
+    public CompressedFileResource(Resource encoded) {
+        this(encoded, -1);
+    }
+
+    private CompressedFileResource(Resource encoded, long contentLength) {
+        this.encoded = encoded;
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Same file with a known decoded length (Document.tailleFichier), avoids reading the trailer
+     */
+    public CompressedFileResource withContentLength(long contentLength) {
+        return new CompressedFileResource(encoded, contentLength);
+    }
+
+    public Resource getEncoded() {
+        return encoded;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new GZIPInputStream(encoded.getInputStream(), BUFFER_SIZE);
+    }
+
+    @Override
+    public boolean exists() {
+        return encoded.exists();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        if (contentLength >= 0) {
+            return contentLength;
+        }
+        if (encoded.isFile()) {
+            // ISIZE: decoded length modulo 2^32, exact for our file size limit
+            try (FileChannel channel = FileChannel.open(encoded.getFile().toPath(), StandardOpenOption.READ)) {
+                ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(trailer, channel.size() - 4);
+                return Integer.toUnsignedLong(trailer.getInt(0));
+            }
+        }
+        // Remote file without a known length: decode it once to count the bytes
+        return super.contentLength();
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        return encoded.lastModified();
+    }
+
+    @Override
+    public String getFilename() {
+        String name = encoded.getFilename();
+        return name != null && name.endsWith(FileCompression.GZIP_SUFFIX)
+                ? name.substring(0, name.length() - FileCompression.GZIP_SUFFIX.length())
+                : name;
+    }
+
+    @Override
+    public String getDescription() {
+        return "gzip-decoded " + encoded.getDescription();
+    }
+}
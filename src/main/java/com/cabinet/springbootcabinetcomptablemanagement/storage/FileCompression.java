@@ -0,0 +1,51 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import java.util.zip.Deflater;
+
+/**
+ * Storage compression of the stored files (file.storage.compression=gzip)
+ *
+ * A compressed file is stored in gzip format and its storage key ends with ".gz": the key is the
+ * per-blob flag, readers know how to decode a file without any lookup. gzip rather than a newer codec
+ * because every HTTP client accepts Content-Encoding: gzip, so the stored bytes can be sent as they are.
+ */
+public final class FileCompression {
+
+    public static final String GZIP_SUFFIX = ".gz";
+    public static final String CONTENT_ENCODING = "gzip";
+
+    /**
+     * Compress only if the sample shrinks to at most this share of its size: a PDF made of scanned
+     * (JPEG) pages would cost CPU on every read for a few percent of disk
+     */
+    private static final double MAX_RATIO = 0.85;
+
+    private FileCompression() {
+    }
+
+    public static boolean isCompressed(String key) {
+        return key != null && key.endsWith(GZIP_SUFFIX);
+    }
+
+    /**
+     * Deflate the first block of the file at the fastest level and look at the ratio
+     */
+    public static boolean worthCompressing(byte[] sample, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(sample, 0, length);
+            deflater.finish();
+            byte[] output = new byte[8192];
+            long compressed = 0;
+            while (!deflater.finished()) {
+                compressed += deflater.deflate(output);
+                if (compressed > length * MAX_RATIO) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            deflater.end();
+        }
+    }
+}
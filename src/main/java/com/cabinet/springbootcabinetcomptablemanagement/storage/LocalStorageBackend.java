@@ -0,0 +1,183 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.ResourceNotFoundException;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Files under a local directory (file.upload-dir), the key is the path relative to it
+ */
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path root;
+
+    public LocalStorageBackend(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Impossible de créer le répertoire de stockage " + this.root, ex);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    /**
+     * Path of a key, refusing keys that would escape the root directory
+     */
+    public Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Nom de fichier invalide: " + key);
+        }
+        return path;
+    }
+
+    /**
+     * The staging files of the storage services live on the same file system, so this is a rename
+     */
+    @Override
+    public void put(String key, Path source, String sha256) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public Resource get(String key) {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+            throw ResourceNotFoundException.ofField("Fichier", "nom", key);
+        }
+
+        // FileSystemResource streams from a FileChannel, nothing is buffered on the heap
+        return new FileSystemResource(path);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.isRegularFile(resolve(key));
+    }
+
+    @Override
+    public boolean delete(String key) {
+        try {
+            return Files.deleteIfExists(resolve(key));
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Depth-first walk where each directory is read and sorted on its own (a directory sorts as "name/"),
+     * which yields the keys in String order while holding one directory listing per level.
+     * Hidden entries (the ".staging" directory of the storage services) are not stored files.
+     */
+    @Override
+    public Stream<StoredObject> list() {
+        SortedWalk walk = new SortedWalk();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(walk,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public void deleteAll() {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile)
+                    .forEach(path -> {
+                        try {
+                            Files.delete(path);
+                        } catch (IOException e) {
+                            // Ignore errors during cleanup
+                        }
+                    });
+        } catch (IOException ex) {
+            // Ignore errors during cleanup
+        }
+    }
+
+    private class SortedWalk implements Iterator<StoredObject> {
+
+        private final Deque<Iterator<Path>> levels = new ArrayDeque<>();
+        private StoredObject next;
+
+        private SortedWalk() {
+            levels.push(sortedChildren(root));
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !levels.isEmpty()) {
+                Iterator<Path> level = levels.peek();
+                if (!level.hasNext()) {
+                    levels.pop();
+                    continue;
+                }
+                Path path = level.next();
+                if (Files.isDirectory(path)) {
+                    levels.push(sortedChildren(path));
+                } else if (Files.isRegularFile(path)) {
+                    next = new StoredObject(toKey(path), lastModified(path));
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public StoredObject next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            StoredObject current = next;
+            next = null;
+            return current;
+        }
+
+        private Iterator<Path> sortedChildren(Path directory) {
+            try (Stream<Path> children = Files.list(directory)) {
+                return children
+                        .filter(path -> !path.getFileName().toString().startsWith("."))
+                        .map(path -> Map.entry(Files.isDirectory(path)
+                                ? path.getFileName() + "/" : path.getFileName().toString(), path))
+                        .sorted(Map.Entry.comparingByKey())
+                        .map(Map.Entry::getValue)
+                        .toList()
+                        .iterator();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Lecture du répertoire " + directory + " impossible", ex);
+            }
+        }
+
+        private String toKey(Path path) {
+            String key = root.relativize(path).toString();
+            return File.separatorChar == '/' ? key : key.replace(File.separatorChar, '/');
+        }
+
+        private long lastModified(Path path) {
+            try {
+                return Files.getLastModifiedTime(path).toMillis();
+            } catch (IOException ex) {
+                return 0L;
+            }
+        }
+    }
+}
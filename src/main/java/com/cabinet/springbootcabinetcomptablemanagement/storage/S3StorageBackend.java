@@ -0,0 +1,353 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.FileStorageException;
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Objects in a bucket of an S3-compatible store (AWS S3, MinIO, Ceph RGW, Cloudflare R2...)
+ *
+ * Plain REST calls (PUT / GET / HEAD / DELETE object, ListObjectsV2) signed with SigV4 over java.net.http,
+ * no SDK. Uploads are streamed from the staging file and signed with the SHA-256 computed during
+ * the upload, downloads are streamed from the response body. The bucket must already exist.
+ */
+@Slf4j
+public class S3StorageBackend implements StorageBackend {
+
+    private static final Pattern ERROR_CODE = Pattern.compile("<Code>([^<]+)</Code>");
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    }
+
+    private final String endpoint;
+    private final String bucket;
+    private final boolean pathStyle;
+    private final Duration requestTimeout;
+    private final AwsV4Signer signer;
+    private final HttpClient httpClient;
+
+    /**
+     * @param endpoint  e.g. https://s3.eu-west-3.amazonaws.com or http://localhost:9000 (MinIO)
+     * @param pathStyle true: endpoint/bucket/key (MinIO, most self-hosted stores), false: bucket.endpoint/key
+     */
+    public S3StorageBackend(String endpoint, String region, String bucket, String accessKey, String secretKey,
+                            boolean pathStyle, Duration requestTimeout) {
+        this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        this.bucket = bucket;
+        this.pathStyle = pathStyle;
+        this.requestTimeout = requestTimeout;
+        this.signer = new AwsV4Signer(accessKey, secretKey, region, "s3");
+        // HTTP/1.1: no h2c upgrade attempt against plain-http stores, connections are pooled by the client
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return "s3";
+    }
+
+    @Override
+    public void put(String key, Path source, String sha256) throws IOException {
+        String payloadSha256 = sha256 != null ? sha256 : sha256Of(source);
+        HttpResponse<String> response = send(
+                request("PUT", key, payloadSha256, Map.of()).PUT(HttpRequest.BodyPublishers.ofFile(source)),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(String.format("Échec de l'envoi de %s vers le bucket %s: HTTP %d %s",
+                    key, bucket, response.statusCode(), errorCode(response.body())));
+        }
+    }
+
+    @Override
+    public Resource get(String key) {
+        HttpResponse<Void> head = head(key);
+        if (head.statusCode() == 404) {
+            throw ResourceNotFoundException.ofField("Fichier", "nom", key);
+        }
+        if (head.statusCode() / 100 != 2) {
+            throw new FileStorageException(String.format("Lecture de %s impossible: HTTP %d", key, head.statusCode()));
+        }
+
+        long contentLength = head.headers().firstValueAsLong("Content-Length").orElse(-1);
+        long lastModified = head.headers().firstValue("Last-Modified")
+                .map(S3StorageBackend::parseHttpDate)
+                .orElse(0L);
+        return new ObjectResource(key, contentLength, lastModified);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        int status = head(key).statusCode();
+        if (status == 404) {
+            return false;
+        }
+        if (status / 100 != 2) {
+            throw new FileStorageException(String.format("Vérification de %s impossible: HTTP %d", key, status));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean delete(String key) {
+        try {
+            HttpResponse<String> response = send(request("DELETE", key, AwsV4Signer.EMPTY_PAYLOAD_SHA256, Map.of())
+                    .DELETE(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2 && response.statusCode() != 404) {
+                log.warn("Suppression de {} refusée: HTTP {} {}", key, response.statusCode(), errorCode(response.body()));
+                return false;
+            }
+            return response.statusCode() != 404;
+        } catch (IOException ex) {
+            log.warn("Suppression de {} impossible", key, ex);
+            return false;
+        }
+    }
+
+    /**
+     * ListObjectsV2, one page of up to 1000 keys per request, fetched as the stream is consumed
+     * S3 returns the keys in UTF-8 binary order, which is String order for the keys of the storage services
+     */
+    @Override
+    public Stream<StoredObject> list() {
+        Iterator<StoredObject> objects = new Iterator<>() {
+
+            private Iterator<StoredObject> page = Collections.emptyIterator();
+            private String continuationToken;
+            private boolean truncated = true;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && truncated) {
+                    ListPage next = listPage(continuationToken);
+                    page = next.objects().iterator();
+                    continuationToken = next.nextContinuationToken();
+                    truncated = next.truncated() && continuationToken != null;
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public StoredObject next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(objects,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private record ListPage(List<StoredObject> objects, boolean truncated, String nextContinuationToken) {
+    }
+
+    private ListPage listPage(String continuationToken) {
+        String query = "list-type=2" + (continuationToken != null
+                ? "&continuation-token=" + AwsV4Signer.uriEncode(continuationToken, false)
+                : "");
+        URI uri = URI.create(bucketUri() + "?" + query);
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(requestTimeout).GET();
+        signer.sign("GET", uri, Map.of(), AwsV4Signer.EMPTY_PAYLOAD_SHA256, Instant.now()).forEach(request::header);
+
+        try {
+            HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() / 100 != 2) {
+                    throw new FileStorageException(String.format("Listage du bucket %s impossible: HTTP %d %s",
+                            bucket, response.statusCode(), errorCode(new String(body.readAllBytes(), StandardCharsets.UTF_8))));
+                }
+                return parseListPage(body);
+            }
+        } catch (IOException | XMLStreamException ex) {
+            throw new FileStorageException("Listage du bucket " + bucket + " impossible", ex);
+        }
+    }
+
+    private static ListPage parseListPage(InputStream body) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(body);
+        try {
+            List<StoredObject> objects = new ArrayList<>();
+            boolean truncated = false;
+            String nextContinuationToken = null;
+            String key = null;
+            long lastModified = 0L;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("Contents")) {
+                    objects.add(new StoredObject(key, lastModified));
+                } else if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "Key" -> key = reader.getElementText();
+                        case "LastModified" -> lastModified = Instant.parse(reader.getElementText()).toEpochMilli();
+                        case "IsTruncated" -> truncated = Boolean.parseBoolean(reader.getElementText());
+                        case "NextContinuationToken" -> nextContinuationToken = reader.getElementText();
+                        default -> {
+                        }
+                    }
+                }
+            }
+            return new ListPage(objects, truncated, nextContinuationToken);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private HttpResponse<Void> head(String key) {
+        try {
+            return send(request("HEAD", key, AwsV4Signer.EMPTY_PAYLOAD_SHA256, Map.of())
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding());
+        } catch (IOException ex) {
+            throw new FileStorageException("Stockage objet injoignable pour " + key, ex);
+        }
+    }
+
+    private HttpRequest.Builder request(String method, String key, String payloadSha256, Map<String, String> headers) {
+        URI uri = objectUri(key);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(requestTimeout);
+        headers.forEach(builder::header);
+        signer.sign(method, uri, headers, payloadSha256, Instant.now()).forEach(builder::header);
+        return builder;
+    }
+
+    URI objectUri(String key) {
+        return URI.create(bucketUri() + "/" + AwsV4Signer.uriEncode(key, true));
+    }
+
+    private String bucketUri() {
+        if (pathStyle) {
+            return endpoint + "/" + bucket;
+        }
+        URI base = URI.create(endpoint);
+        return base.getScheme() + "://" + bucket + "." + base.getRawAuthority();
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request.build(), handler);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Requête vers le stockage objet interrompue", ex);
+        }
+    }
+
+    private static String sha256Of(Path source) throws IOException {
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(source),
+                MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 non disponible", ex);
+        }
+    }
+
+    private static String errorCode(String body) {
+        Matcher matcher = ERROR_CODE.matcher(body == null ? "" : body);
+        return matcher.find() ? matcher.group(1) : "";
+    }
+
+    private static long parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ex) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Object metadata from the HEAD request, the body is only fetched when the content is actually read
+     */
+    private class ObjectResource extends AbstractResource {
+
+        private final String key;
+        private final long contentLength;
+        private final long lastModified;
+
+        private ObjectResource(String key, long contentLength, long lastModified) {
+            this.key = key;
+            this.contentLength = contentLength;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            HttpResponse<InputStream> response = send(request("GET", key, AwsV4Signer.EMPTY_PAYLOAD_SHA256, Map.of())
+                    .GET(), HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() / 100 != 2) {
+                response.body().close();
+                throw new FileNotFoundException(String.format("%s introuvable dans le bucket %s: HTTP %d",
+                        key, bucket, response.statusCode()));
+            }
+            return response.body();
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public long lastModified() {
+            return lastModified;
+        }
+
+        @Override
+        public String getFilename() {
+            return key.substring(key.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object [" + bucket + "/" + key + "]";
+        }
+    }
+}
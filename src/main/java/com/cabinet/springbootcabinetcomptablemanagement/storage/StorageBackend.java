@@ -0,0 +1,55 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Where the bytes of the stored files live (SPI of the FileStorageService implementations)
+ *
+ * A backend only knows opaque keys (the value of Document.cheminFichier): the layout of the keys,
+ * the reference counting and the validation of uploads stay in the storage services.
+ * Selected with file.storage.backend=local|s3|tiered, see StorageBackendConfig.
+ */
+public interface StorageBackend {
+
+    /**
+     * Short name used in logs and in the backend tag of cabinet.storage.io
+     */
+    String name();
+
+    /**
+     * Store a complete local file under a key, replacing any previous content
+     * The source may be moved by the backend and must not be used by the caller afterwards.
+     * @param sha256 Hex SHA-256 of the content when already known (null: computed if the backend needs it)
+     */
+    void put(String key, Path source, String sha256) throws IOException;
+
+    /**
+     * Streamable view of a stored file, the content is not read into memory
+     * @throws com.cabinet.springbootcabinetcomptablemanagement.exceptions.ResourceNotFoundException if the key is unknown
+     */
+    Resource get(String key);
+
+    boolean exists(String key);
+
+    /**
+     * @return true if something was deleted
+     */
+    boolean delete(String key);
+
+    /**
+     * Every stored key, in ascending String order, read lazily: the listing is never held in memory
+     * (StorageReconciler merges it with the sorted keys of the documents table). The stream must be closed.
+     */
+    Stream<StoredObject> list();
+
+    /**
+     * Drop everything this application instance owns (on shutdown with file.storage.purge-on-shutdown)
+     * Shared backends such as object storage keep their content.
+     */
+    default void deleteAll() {
+    }
+}
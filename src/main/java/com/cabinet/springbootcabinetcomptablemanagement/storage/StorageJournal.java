@@ -0,0 +1,30 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.StorageJournalEntry;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.StorageJournalRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Durable record of the storage operations (file.storage.journal.enabled, persistent profile)
+ *
+ * Each operation commits in its own transaction, like BlobReferenceRegistry: the entry must survive
+ * the rollback of the document transaction, that is exactly the case it is there for.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.journal.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class StorageJournal {
+
+    private final StorageJournalRepository storageJournalRepository;
+
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void record(String storageKey, StorageJournalEntry.Operation operation) {
+        StorageJournalEntry entry = new StorageJournalEntry();
+        entry.setCleStockage(storageKey);
+        entry.setOperation(operation);
+        storageJournalRepository.save(entry);
+    }
+}
@@ -0,0 +1,137 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.StorageJournalEntry;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.StorageJournalRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.services.FileStorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the stored files consistent with the documents table across restarts, in time proportional
+ * to the journal rather than to the number of stored files
+ *
+ * - At startup, before the web server accepts requests, every journal entry left by the previous run
+ *   is replayed: its file is reconciled with the documents that reference it (FileStorageService.reconcile)
+ * - While running, entries older than file.storage.journal.settle-after are dropped once their file and
+ *   documents agree (document saved and file stored, or neither); the others wait for the next startup
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.journal.enabled", havingValue = "true")
+@Slf4j
+public class StorageJournalReplayer implements SmartInitializingSingleton {
+
+    private final StorageJournalRepository storageJournalRepository;
+    private final DocumentRepository documentRepository;
+    private final FileStorageService fileStorageService;
+    private final StorageBackend storageBackend;
+    private final Duration settleAfter;
+    private final int batchSize;
+
+    public StorageJournalReplayer(StorageJournalRepository storageJournalRepository,
+                                  DocumentRepository documentRepository,
+                                  FileStorageService fileStorageService,
+                                  StorageBackend storageBackend,
+                                  @Value("${file.storage.journal.settle-after:10m}") Duration settleAfter,
+                                  @Value("${file.storage.journal.batch-size:500}") int batchSize) {
+        this.storageJournalRepository = storageJournalRepository;
+        this.documentRepository = documentRepository;
+        this.fileStorageService = fileStorageService;
+        this.storageBackend = storageBackend;
+        this.settleAfter = settleAfter;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        replay();
+    }
+
+    /**
+     * Reconcile every key of the journal, then empty it
+     * Only safe while no upload or deletion is running (startup): counts are taken as final
+     * @return The number of journal entries replayed
+     */
+    public int replay() {
+        int total = 0;
+        Long after = 0L;
+        List<StorageJournalEntry> page;
+        do {
+            page = storageJournalRepository.findByIdGreaterThanOrderById(after, Limit.of(batchSize));
+            Set<String> keys = new LinkedHashSet<>();
+            page.forEach(entry -> keys.add(entry.getCleStockage()));
+            Set<String> failed = new HashSet<>();
+            for (String key : keys) {
+                try {
+                    fileStorageService.reconcile(key, documentRepository::countByCheminFichier);
+                } catch (RuntimeException ex) {
+                    // Entries kept: retried on the next startup
+                    log.warn("Impossible de réconcilier {} avec les documents", key, ex);
+                    failed.add(key);
+                }
+            }
+            List<Long> replayed = page.stream()
+                    .filter(entry -> !failed.contains(entry.getCleStockage()))
+                    .map(StorageJournalEntry::getId)
+                    .toList();
+            if (!replayed.isEmpty()) {
+                storageJournalRepository.deleteAllByIdInBatch(replayed);
+                total += replayed.size();
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == batchSize);
+
+        if (total > 0) {
+            log.info("Journal de stockage rejoué: {} opération(s) réconciliée(s)", total);
+        }
+        return total;
+    }
+
+    /**
+     * Drop the settled entries: file stored and referenced, or neither
+     * Nothing is modified in the store here, documents may still be in flight
+     * @return The number of entries dropped
+     */
+    @Scheduled(fixedDelayString = "${file.storage.journal.settle-interval:5m}")
+    public int settle() {
+        LocalDateTime before = LocalDateTime.now().minus(settleAfter);
+        int dropped = 0;
+        Long after = 0L;
+        List<StorageJournalEntry> page;
+        do {
+            page = storageJournalRepository.findByCreatedAtBeforeAndIdGreaterThanOrderById(before, after, Limit.of(batchSize));
+            List<Long> settled = new ArrayList<>();
+            for (StorageJournalEntry entry : page) {
+                String key = entry.getCleStockage();
+                if (documentRepository.existsByCheminFichier(key) == storageBackend.exists(key)) {
+                    settled.add(entry.getId());
+                }
+            }
+            if (!settled.isEmpty()) {
+                storageJournalRepository.deleteAllByIdInBatch(settled);
+                dropped += settled.size();
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == batchSize);
+
+        log.debug("Journal de stockage: {} opération(s) soldée(s)", dropped);
+        return dropped;
+    }
+}
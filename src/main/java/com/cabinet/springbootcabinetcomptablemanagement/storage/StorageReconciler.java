@@ -0,0 +1,249 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.services.FileStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Finds the stored files no document points to (orphans) and the documents whose file is missing (dangling)
+ *
+ * Both sides are read in key order and merged like a sort-merge join: the storage listing is streamed
+ * (StorageBackend.list) and the distinct cheminFichier values are read by keyset pages, so memory does not
+ * grow with the number of files or documents. Orphans older than file.storage.reconciliation.grace are
+ * deleted at file.storage.reconciliation.deletes-per-second at most; dangling references are only reported,
+ * there is nothing to restore them from.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.reconciliation.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class StorageReconciler {
+
+    /**
+     * Outcome of one pass
+     * @param storedFiles Files listed in storage
+     * @param orphans     Files without any document
+     * @param deleted     Orphans deleted (the others are recent, or deletion is disabled / capped)
+     * @param dangling    Storage keys of documents without a file
+     */
+    public record Report(long storedFiles, long orphans, long deleted, long dangling) {
+    }
+
+    private final StorageBackend storageBackend;
+    private final DocumentRepository documentRepository;
+    private final FileStorageService fileStorageService;
+    private final Duration grace;
+    private final boolean deleteOrphans;
+    private final long deleteIntervalNanos;
+    private final int maxDeletions;
+    private final int batchSize;
+
+    private final Timer duration;
+    private final Counter deletedCounter;
+    private final AtomicLong lastOrphans = new AtomicLong();
+    private final AtomicLong lastDangling = new AtomicLong();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public StorageReconciler(StorageBackend storageBackend,
+                             DocumentRepository documentRepository,
+                             FileStorageService fileStorageService,
+                             @Value("${file.storage.reconciliation.grace:1h}") Duration grace,
+                             @Value("${file.storage.reconciliation.delete-orphans:true}") boolean deleteOrphans,
+                             @Value("${file.storage.reconciliation.deletes-per-second:20}") int deletesPerSecond,
+                             @Value("${file.storage.reconciliation.max-deletions:10000}") int maxDeletions,
+                             @Value("${file.storage.reconciliation.batch-size:1000}") int batchSize,
+                             MeterRegistry registry) {
+        this.storageBackend = storageBackend;
+        this.documentRepository = documentRepository;
+        this.fileStorageService = fileStorageService;
+        this.grace = grace;
+        this.deleteOrphans = deleteOrphans;
+        this.deleteIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(deletesPerSecond, 1);
+        this.maxDeletions = maxDeletions;
+        this.batchSize = batchSize;
+        this.duration = Timer.builder("cabinet.storage.reconciliation.duration")
+                .description("Durée d'une passe de réconciliation stockage / documents")
+                .register(registry);
+        this.deletedCounter = Counter.builder("cabinet.storage.reconciliation.deleted")
+                .description("Fichiers orphelins supprimés par la réconciliation")
+                .register(registry);
+        Gauge.builder("cabinet.storage.reconciliation.orphans", lastOrphans, AtomicLong::get)
+                .description("Fichiers sans document lors de la dernière réconciliation")
+                .register(registry);
+        Gauge.builder("cabinet.storage.reconciliation.dangling", lastDangling, AtomicLong::get)
+                .description("Documents dont le fichier est absent lors de la dernière réconciliation")
+                .register(registry);
+    }
+
+    @Scheduled(cron = "${file.storage.reconciliation.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        reconcile();
+    }
+
+    /**
+     * One pass over storage and documents
+     * @return The report, null if a pass is already running or the pass failed
+     */
+    public Report reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Réconciliation du stockage déjà en cours, passage ignoré");
+            return null;
+        }
+        try {
+            Report report = duration.recordCallable(this::mergeJoin);
+            lastOrphans.set(report.orphans());
+            lastDangling.set(report.dangling());
+            log.info("Réconciliation du stockage: {} fichier(s), {} orphelin(s) dont {} supprimé(s), {} document(s) sans fichier",
+                    report.storedFiles(), report.orphans(), report.deleted(), report.dangling());
+            return report;
+        } catch (Exception ex) {
+            log.error("Réconciliation du stockage interrompue", ex);
+            return null;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Report mergeJoin() {
+        Instant unusedSince = Instant.now().minus(grace);
+        long storedFiles = 0;
+        long orphans = 0;
+        long deleted = 0;
+        long dangling = 0;
+        long nextDeletion = System.nanoTime();
+
+        try (Stream<StoredObject> listing = storageBackend.list()) {
+            Iterator<StoredObject> stored = new OrderChecked<>(listing.iterator(), StoredObject::key, "stockage");
+            Iterator<String> referenced = new OrderChecked<>(new DocumentKeys(), key -> key, "documents");
+
+            StoredObject file = stored.hasNext() ? stored.next() : null;
+            String key = referenced.hasNext() ? referenced.next() : null;
+            while (file != null || key != null) {
+                int order = file == null ? 1 : key == null ? -1 : file.key().compareTo(key);
+                if (order < 0) {
+                    storedFiles++;
+                    orphans++;
+                    if (deleteOrphans && deleted < maxDeletions && file.lastModified() < unusedSince.toEpochMilli()) {
+                        // Rate limit: storage I/O is shared with uploads and downloads
+                        LockSupport.parkNanos(nextDeletion - System.nanoTime());
+                        nextDeletion = Math.max(nextDeletion, System.nanoTime()) + deleteIntervalNanos;
+                        if (deleteOrphan(file.key(), unusedSince)) {
+                            deleted++;
+                        }
+                    }
+                    file = stored.hasNext() ? stored.next() : null;
+                } else if (order > 0) {
+                    dangling++;
+                    log.warn("Fichier absent du stockage pour le(s) document(s) référençant {}", key);
+                    key = referenced.hasNext() ? referenced.next() : null;
+                } else {
+                    storedFiles++;
+                    file = stored.hasNext() ? stored.next() : null;
+                    key = referenced.hasNext() ? referenced.next() : null;
+                }
+            }
+        }
+        return new Report(storedFiles, orphans, deleted, dangling);
+    }
+
+    private boolean deleteOrphan(String key, Instant unusedSince) {
+        try {
+            // Checked again under the storage service rules: a document may have been committed since the page was read
+            if (fileStorageService.deleteIfUnreferenced(key, documentRepository::countByCheminFichier, unusedSince)) {
+                deletedCounter.increment();
+                log.info("Fichier orphelin supprimé: {}", key);
+                return true;
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Impossible de supprimer le fichier orphelin {}", key, ex);
+        }
+        return false;
+    }
+
+    /**
+     * Distinct cheminFichier values in key order, one keyset page in memory at a time
+     */
+    private class DocumentKeys implements Iterator<String> {
+
+        private Iterator<String> page = Collections.emptyIterator();
+        private String last = "";
+        private boolean more = true;
+
+        @Override
+        public boolean hasNext() {
+            if (!page.hasNext() && more) {
+                List<String> keys = documentRepository.findStorageKeysAfter(last, Limit.of(batchSize));
+                more = keys.size() == batchSize;
+                if (!keys.isEmpty()) {
+                    last = keys.get(keys.size() - 1);
+                }
+                page = keys.iterator();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+    }
+
+    /**
+     * The merge is only correct if both sides use the same order (String order, the database collation
+     * must agree): a pass that sees keys out of order stops before deleting anything wrongly
+     */
+    private static final class OrderChecked<T> implements Iterator<T> {
+
+        private final Iterator<T> delegate;
+        private final Function<T, String> key;
+        private final String side;
+        private String previous;
+
+        private OrderChecked(Iterator<T> delegate, Function<T, String> key, String side) {
+            this.delegate = delegate;
+            this.key = key;
+            this.side = side;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public T next() {
+            T next = delegate.next();
+            String current = key.apply(next);
+            if (previous != null && previous.compareTo(current) >= 0) {
+                throw new IllegalStateException(String.format(
+                        "Clés %s non triées (%s après %s), réconciliation arrêtée", side, current, previous));
+            }
+            previous = current;
+            return next;
+        }
+    }
+}
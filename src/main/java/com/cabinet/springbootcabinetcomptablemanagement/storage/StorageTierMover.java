@@ -0,0 +1,129 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves the files of past fiscal years from the local disk to object storage (file.storage.backend=tiered)
+ *
+ * The keys to move come from the documents table, by pages of file.storage.tiered.batch-size in key order.
+ * Each page is demoted on the storageMoverExecutor (file.storage.tiered.parallelism uploads at a time)
+ * and fully completed before the next page is read, so neither the pool queue nor the memory grows
+ * with the size of the archive. Files still on disk after a failure are simply retried on the next run.
+ */
+@Component
+@ConditionalOnProperty(name = "file.storage.backend", havingValue = "tiered")
+@Slf4j
+public class StorageTierMover {
+
+    private final TieredStorageBackend storageBackend;
+    private final DocumentRepository documentRepository;
+    private final ThreadPoolTaskExecutor storageMoverExecutor;
+    private final int hotYears;
+    private final int batchSize;
+    private final Counter moved;
+    private final Counter failed;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public StorageTierMover(TieredStorageBackend storageBackend,
+                            DocumentRepository documentRepository,
+                            ThreadPoolTaskExecutor storageMoverExecutor,
+                            @Value("${file.storage.tiered.hot-years:1}") int hotYears,
+                            @Value("${file.storage.tiered.batch-size:200}") int batchSize,
+                            MeterRegistry registry) {
+        this.storageBackend = storageBackend;
+        this.documentRepository = documentRepository;
+        this.storageMoverExecutor = storageMoverExecutor;
+        this.hotYears = hotYears;
+        this.batchSize = batchSize;
+        this.moved = Counter.builder("cabinet.storage.tier.moves")
+                .description("Fichiers déplacés du disque local vers le stockage objet")
+                .tag("outcome", "success")
+                .register(registry);
+        this.failed = Counter.builder("cabinet.storage.tier.moves")
+                .description("Fichiers déplacés du disque local vers le stockage objet")
+                .tag("outcome", "error")
+                .register(registry);
+    }
+
+    @Scheduled(cron = "${file.storage.tiered.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        moveColdFiles();
+    }
+
+    /**
+     * One pass over the files of the fiscal years before the hot ones
+     * @return The number of files moved (0 if a pass is already running)
+     */
+    public int moveColdFiles() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Déplacement vers le stockage objet déjà en cours, passage ignoré");
+            return 0;
+        }
+        try {
+            String premierExerciceChaud = String.valueOf(Year.now().getValue() - hotYears + 1);
+            log.info("Déplacement vers le stockage objet des exercices antérieurs à {}", premierExerciceChaud);
+
+            int total = 0;
+            String after = "";
+            List<Object[]> page;
+            do {
+                page = documentRepository.findColdStorageKeys(premierExerciceChaud, after, Limit.of(batchSize));
+                List<CompletableFuture<Boolean>> moves = new ArrayList<>(page.size());
+                for (Object[] row : page) {
+                    String key = (String) row[0];
+                    if (storageBackend.isHot(key)) {
+                        // hashFichier is the hash of the decoded content, not of a compressed file
+                        String sha256 = FileCompression.isCompressed(key) ? null : (String) row[1];
+                        moves.add(CompletableFuture.supplyAsync(() -> demote(key, sha256), storageMoverExecutor));
+                    }
+                }
+                for (CompletableFuture<Boolean> move : moves) {
+                    if (move.join()) {
+                        total++;
+                    }
+                }
+                if (!page.isEmpty()) {
+                    after = (String) page.get(page.size() - 1)[0];
+                }
+            } while (page.size() == batchSize);
+
+            log.info("{} fichier(s) déplacé(s) vers le stockage objet", total);
+            return total;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private boolean demote(String key, String sha256) {
+        try {
+            if (!storageBackend.demote(key, sha256)) {
+                return false;
+            }
+            // Last document deleted while the file was being copied: its deletion may have run before the copy
+            if (!documentRepository.existsByCheminFichier(key)) {
+                storageBackend.delete(key);
+            }
+            moved.increment();
+            return true;
+        } catch (Exception ex) {
+            failed.increment();
+            log.warn("Impossible de déplacer {} vers le stockage objet", key, ex);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Result of storing an upload
+ * Everything here is computed during the single read of the uploaded stream
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class StoredFile {
+
+    private final String fileName;     // Storage key, saved in Document.cheminFichier
+    private final String sha256;       // Hex encoded SHA-256 of the content
+    private final long size;           // Size in bytes
+    private final String contentType;  // MIME type detected from the magic bytes
+}
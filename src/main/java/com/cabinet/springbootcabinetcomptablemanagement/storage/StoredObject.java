@@ -0,0 +1,9 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+/**
+ * One entry of a storage listing (StorageBackend.list)
+ * @param key          Storage key, as saved in Document.cheminFichier
+ * @param lastModified Epoch milliseconds of the last write
+ */
+public record StoredObject(String key, long lastModified) {
+}
@@ -0,0 +1,137 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.ResourceNotFoundException;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Hot tier on the local disk, cold tier in object storage
+ *
+ * New files are always written to the hot tier; StorageTierMover later moves the files of past
+ * fiscal years to the cold tier. Reads try the local disk first (one stat), then object storage.
+ */
+public class TieredStorageBackend implements StorageBackend {
+
+    private final LocalStorageBackend hot;
+    private final StorageBackend cold;
+
+    public TieredStorageBackend(LocalStorageBackend hot, StorageBackend cold) {
+        this.hot = hot;
+        this.cold = cold;
+    }
+
+    @Override
+    public String name() {
+        return "tiered";
+    }
+
+    @Override
+    public void put(String key, Path source, String sha256) throws IOException {
+        hot.put(key, source, sha256);
+    }
+
+    @Override
+    public Resource get(String key) {
+        try {
+            return hot.get(key);
+        } catch (ResourceNotFoundException ex) {
+            return cold.get(key);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return hot.exists(key) || cold.exists(key);
+    }
+
+    @Override
+    public boolean delete(String key) {
+        boolean deletedHot = hot.delete(key);
+        boolean deletedCold = cold.delete(key);
+        return deletedHot || deletedCold;
+    }
+
+    /**
+     * Both tiers merged in key order; a key present in both (demotion in progress) is listed once
+     */
+    @Override
+    public Stream<StoredObject> list() {
+        Stream<StoredObject> hotObjects = hot.list();
+        Stream<StoredObject> coldObjects = cold.list();
+        Iterator<StoredObject> merged = new Iterator<>() {
+
+            private final Iterator<StoredObject> hotIterator = hotObjects.iterator();
+            private final Iterator<StoredObject> coldIterator = coldObjects.iterator();
+            private StoredObject nextHot;
+            private StoredObject nextCold;
+
+            @Override
+            public boolean hasNext() {
+                if (nextHot == null && hotIterator.hasNext()) {
+                    nextHot = hotIterator.next();
+                }
+                if (nextCold == null && coldIterator.hasNext()) {
+                    nextCold = coldIterator.next();
+                }
+                return nextHot != null || nextCold != null;
+            }
+
+            @Override
+            public StoredObject next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int order = nextHot == null ? 1 : nextCold == null ? -1 : nextHot.key().compareTo(nextCold.key());
+                StoredObject current = order <= 0 ? nextHot : nextCold;
+                if (order <= 0) {
+                    nextHot = null;
+                }
+                if (order >= 0) {
+                    nextCold = null;
+                }
+                return current;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(hotObjects::close)
+                .onClose(coldObjects::close);
+    }
+
+    /**
+     * Only the local copies are dropped, object storage is shared and keeps its content
+     */
+    @Override
+    public void deleteAll() {
+        hot.deleteAll();
+    }
+
+    public boolean isHot(String key) {
+        return hot.exists(key);
+    }
+
+    /**
+     * Copy a file to the cold tier, then drop the local copy
+     * The local file is only deleted once the object store has acknowledged the content (signed SHA-256),
+     * a reader that found it on disk just before keeps its open channel.
+     * @return false if the file is not (or no longer) on the local disk
+     */
+    public boolean demote(String key, String sha256) throws IOException {
+        Path local = hot.resolve(key);
+        if (!Files.isRegularFile(local)) {
+            return false;
+        }
+        cold.put(key, local, sha256);
+        hot.delete(key);
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+package com.cabinet.springbootcabinetcomptablemanagement.validation;
+
+import java.util.Optional;
+
+/**
+ * File signatures (magic bytes) of the accepted document formats
+ * The real type of an upload is detected from its first bytes, the Content-Type sent by the client is not trusted
+ */
+public enum FileSignature {
+
+    PDF("application/pdf", true, new byte[]{0x25, 0x50, 0x44, 0x46, 0x2D}),                      // %PDF-
+    // JPEG and PNG data is already entropy coded, deflate gains nothing on it
+    JPEG("image/jpeg", false, new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}),
+    PNG("image/png", false, new byte[]{(byte) 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A});
+
+    /**
+     * Number of leading bytes needed to recognize every signature
+     */
+    public static final int MAX_LENGTH = 8;
+
+    private final String mimeType;
+    private final boolean compressible;
+    private final byte[] magic;
+
+    FileSignature(String mimeType, boolean compressible, byte[] magic) {
+        this.mimeType = mimeType;
+        this.compressible = compressible;
+        this.magic = magic;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    /**
+     * Whether the format may benefit from storage compression (the content is still probed, see FileCompression)
+     */
+    public boolean isCompressible() {
+        return compressible;
+    }
+
+    /**
+     * Detect the format from the first bytes of a file
+     * @param header Buffer holding the beginning of the file
+     * @param length Number of valid bytes in the buffer
+     * @return The matching signature, or empty if the format is not accepted
+     */
+    public static Optional<FileSignature> detect(byte[] header, int length) {
+        for (FileSignature signature : values()) {
+            if (signature.matches(header, length)) {
+                return Optional.of(signature);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean matches(byte[] header, int length) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (header[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
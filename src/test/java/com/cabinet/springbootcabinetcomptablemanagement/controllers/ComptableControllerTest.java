@@ -0,0 +1,262 @@
+package com.cabinet.springbootcabinetcomptablemanagement.controllers;
+
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.BatchDecisionResponseDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.response.DocumentDecisionResultDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.metrics.DocumentMetrics;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Societe;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.SocieteRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Status codes and reports of the accountant decision endpoints, single and batch
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(authorities = ComptableControllerTest.COMPTABLE)
+class ComptableControllerTest {
+
+    static final String COMPTABLE = "ROLE_COMPTABLE";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private SocieteRepository societeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Societe societe;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        societe = new Societe();
+        societe.setRaisonSociale("Société décisions " + suffix);
+        societe.setIce("ICE-DEC-" + suffix);
+        societe.setAdresse("Adresse");
+        societe.setTelephone("0600000000");
+        societe.setEmailContact("dec-" + suffix + "@societe.com");
+        societe = societeRepository.save(societe);
+    }
+
+    @AfterEach
+    void tearDown() {
+        documentRepository.deleteAll(documentRepository.findBySocieteId(societe.getId()));
+        societeRepository.delete(societe);
+    }
+
+    @Test
+    void decisionOnStaleVersionIsConflict() throws Exception {
+        Document document = pendingDocument();
+
+        mockMvc.perform(post("/api/comptable/documents/{id}/valider", document.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\": " + (document.getVersion() + 1) + "}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+
+        mockMvc.perform(post("/api/comptable/documents/{id}/valider", document.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"version\": " + document.getVersion() + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statut").value("VALIDE"));
+
+        // Déjà validé: le rejet arrive trop tard
+        mockMvc.perform(post("/api/comptable/documents/{id}/rejeter", document.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"documentId\": " + document.getId() + ", \"action\": \"REJETE\", "
+                                + "\"commentaire\": \"Illisible\"}"))
+                .andExpect(status().isConflict());
+
+        assertThat(documentRepository.findById(document.getId()).orElseThrow().getStatut())
+                .isEqualTo(Document.StatutDocument.VALIDE);
+    }
+
+    @Test
+    void decisionOnUnknownDocumentIsNotFound() throws Exception {
+        mockMvc.perform(post("/api/comptable/documents/{id}/valider", Long.MAX_VALUE))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404));
+    }
+
+    @Test
+    void batchDecisionReportsEachDocument() throws Exception {
+        Document premier = pendingDocument();
+        Document second = pendingDocument();
+        Document dejaValide = pendingDocument();
+        mockMvc.perform(post("/api/comptable/documents/{id}/valider", dejaValide.getId()))
+                .andExpect(status().isOk());
+        double avant = decisions(Document.StatutDocument.REJETE, DocumentMetrics.OUTCOME_SUCCESS);
+        double conflitsAvant = decisions(Document.StatutDocument.REJETE, DocumentMetrics.OUTCOME_CONFLICT);
+
+        BatchDecisionResponseDTO response = decide(null, "REJETE",
+                List.of(premier.getId(), second.getId(), dejaValide.getId(), Long.MAX_VALUE), "Pièces illisibles");
+
+        assertThat(response.getAppliques()).isEqualTo(2);
+        assertThat(response.getIgnores()).isEqualTo(2);
+        assertThat(response.getResultats()).extracting(DocumentDecisionResultDTO::getResultat).containsExactly(
+                DocumentDecisionResultDTO.Resultat.APPLIQUE, DocumentDecisionResultDTO.Resultat.APPLIQUE,
+                DocumentDecisionResultDTO.Resultat.DEJA_TRAITE, DocumentDecisionResultDTO.Resultat.INTROUVABLE);
+        assertThat(response.getResultats().get(2).getStatut()).isEqualTo(Document.StatutDocument.VALIDE);
+        assertThat(documentRepository.findById(premier.getId()).orElseThrow().getStatut())
+                .isEqualTo(Document.StatutDocument.REJETE);
+        assertThat(decisions(Document.StatutDocument.REJETE, DocumentMetrics.OUTCOME_SUCCESS) - avant).isEqualTo(2);
+        assertThat(decisions(Document.StatutDocument.REJETE, DocumentMetrics.OUTCOME_CONFLICT) - conflitsAvant)
+                .isEqualTo(1);
+    }
+
+    @Test
+    void batchDecisionRejectsInvalidRequests() throws Exception {
+        // Rejet sans motif
+        mockMvc.perform(post("/api/comptable/documents/decisions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"action\": \"REJETE\", \"documentIds\": [1]}"))
+                .andExpect(status().isBadRequest());
+
+        // Ni documents ni société
+        mockMvc.perform(post("/api/comptable/documents/decisions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"action\": \"VALIDE\"}"))
+                .andExpect(status().isBadRequest());
+
+        // Au-delà de documents.batch-decision.max-items
+        List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().toList();
+        mockMvc.perform(post("/api/comptable/documents/decisions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("action", "VALIDE", "documentIds", ids))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("1000 documents au maximum par requête"));
+    }
+
+    @Test
+    void overlappingBatchesDecideEachDocumentOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 10; round++) {
+                List<Long> ids = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    ids.add(pendingDocument().getId());
+                }
+                CyclicBarrier start = new CyclicBarrier(2);
+                // Deux comptables, deux lots qui se recouvrent sur les documents 5 à 14
+                Future<BatchDecisionResponseDTO> validation = executor.submit(() -> {
+                    start.await(10, TimeUnit.SECONDS);
+                    return decide(comptable("comptable-a"), "VALIDE", ids.subList(0, 15), null);
+                });
+                Future<BatchDecisionResponseDTO> rejet = executor.submit(() -> {
+                    start.await(10, TimeUnit.SECONDS);
+                    return decide(comptable("comptable-b"), "REJETE", ids.subList(5, 20), "Doublon");
+                });
+
+                Map<Long, Document.StatutDocument> appliques = new HashMap<>();
+                for (BatchDecisionResponseDTO response : List.of(validation.get(30, TimeUnit.SECONDS),
+                        rejet.get(30, TimeUnit.SECONDS))) {
+                    for (DocumentDecisionResultDTO resultat : response.getResultats()) {
+                        if (resultat.getResultat() == DocumentDecisionResultDTO.Resultat.APPLIQUE) {
+                            assertThat(appliques.put(resultat.getDocumentId(), resultat.getStatut()))
+                                    .as("round %d, document %d appliqué deux fois", round, resultat.getDocumentId())
+                                    .isNull();
+                        }
+                    }
+                }
+
+                assertThat(appliques).as("round %d", round).hasSize(20);
+                for (Document document : documentRepository.findAllById(ids)) {
+                    assertThat(document.getStatut()).isEqualTo(appliques.get(document.getId()));
+                    assertThat(document.getVersion()).isEqualTo(1L);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private BatchDecisionResponseDTO decide(RequestPostProcessor comptable, String action, List<Long> ids,
+                                            String commentaire) throws Exception {
+        Map<String, Object> body = new HashMap<>();
+        body.put("action", action);
+        body.put("documentIds", ids);
+        body.put("commentaire", commentaire);
+        MockHttpServletRequestBuilder request = post("/api/comptable/documents/decisions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body));
+        if (comptable != null) {
+            request.with(comptable);
+        }
+        String json = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(json, BatchDecisionResponseDTO.class);
+    }
+
+    // Outside the test thread @WithMockUser is not visible: authenticate each request
+    private static RequestPostProcessor comptable(String username) {
+        return user(username).authorities(new SimpleGrantedAuthority(COMPTABLE));
+    }
+
+    private double decisions(Document.StatutDocument decision, String outcome) {
+        Timer timer = meterRegistry.find("cabinet.documents.decisions")
+                .tag("decision", decision.name())
+                .tag("outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private Document pendingDocument() {
+        Document document = new Document();
+        document.setNumeroPiece("DEC-" + UUID.randomUUID());
+        document.setType(Document.TypeDocument.FACTURE_ACHAT);
+        document.setCategorieComptable("Achats");
+        document.setDatePiece(LocalDate.now());
+        document.setMontant(BigDecimal.TEN);
+        document.setFournisseur("Fournisseur");
+        document.setCheminFichier("fichier.pdf");
+        document.setNomFichierOriginal("fichier.pdf");
+        document.setExerciceComptable("2024");
+        document.setSociete(societe);
+        return documentRepository.save(document);
+    }
+}
@@ -0,0 +1,234 @@
+package com.cabinet.springbootcabinetcomptablemanagement.controllers;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Societe;
+import com.cabinet.springbootcabinetcomptablemanagement.models.User;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.SocieteRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.security.AuthenticatedUser;
+import com.cabinet.springbootcabinetcomptablemanagement.services.DocumentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Headers and status codes of the document upload and download: SHA-256 of the upload as ETag, 304,
+ * If-Range and gzip passthrough of compressed files
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class DocumentControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private SocieteRepository societeRepository;
+
+    private Societe societe;
+    private byte[] content;
+    private Document document;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        societe = new Societe();
+        societe.setRaisonSociale("Société téléchargement " + suffix);
+        societe.setIce("ICE-DL-" + suffix);
+        societe.setAdresse("Adresse");
+        societe.setTelephone("0600000000");
+        societe.setEmailContact("dl-" + suffix + "@societe.com");
+        societe = societeRepository.save(societe);
+
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        pdf.write("%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < 2000; i++) {
+            pdf.write(("BT /F1 10 Tf 72 " + i + " Td (Relevé bancaire ligne " + i + ") Tj ET\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        content = pdf.toByteArray();
+        document = documentService.createDocument("DL-" + suffix, Document.TypeDocument.RELEVE_BANCAIRE, "512",
+                LocalDate.parse("2024-03-31"), new BigDecimal("0.00"), "Banque",
+                new MockMultipartFile("fichier", "releve.pdf", "application/pdf", content), societe.getId(), "2024");
+    }
+
+    @AfterEach
+    void tearDown() {
+        documentService.deleteDocument(document.getId());
+        societeRepository.delete(societe);
+    }
+
+    @Test
+    void downloadStreamsTheFileWithValidators() throws Exception {
+        mockMvc.perform(get("/api/documents/{id}/download", document.getId()).with(comptable()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + document.getHashFichier() + "\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().contentType("application/pdf"))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        String eTag = "\"" + document.getHashFichier() + "\"";
+
+        mockMvc.perform(get("/api/documents/{id}/download", document.getId()).with(comptable())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(content().bytes(new byte[0]));
+
+        mockMvc.perform(get("/api/documents/{id}/download", document.getId()).with(comptable())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"autre-version\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void ifRangeGuardsTheRange() throws Exception {
+        String eTag = "\"" + document.getHashFichier() + "\"";
+
+        // Même version: seule la plage demandée est envoyée
+        mockMvc.perform(get("/api/documents/{id}/download", document.getId()).with(comptable())
+                        .header(HttpHeaders.RANGE, "bytes=0-99")
+                        .header(HttpHeaders.IF_RANGE, eTag))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-99/" + content.length))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 0, 100)));
+
+        // Version différente: le Range est ignoré, tout le fichier est renvoyé
+        mockMvc.perform(get("/api/documents/{id}/download", document.getId()).with(comptable())
+                        .header(HttpHeaders.RANGE, "bytes=0-99")
+                        .header(HttpHeaders.IF_RANGE, "\"autre-version\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void uploadHashIsTheDownloadETag() throws Exception {
+        String json = mockMvc.perform(multipart("/api/documents")
+                        .file(new MockMultipartFile("fichier", "releve.pdf", "application/pdf", content))
+                        .param("numeroPiece", "UP-" + UUID.randomUUID())
+                        .param("type", "RELEVE_BANCAIRE")
+                        .param("categorieComptable", "512")
+                        .param("datePiece", "2024-03-31")
+                        .param("montant", "125.40")
+                        .param("fournisseur", "Banque")
+                        .param("exerciceComptable", "2024")
+                        .param("societeId", societe.getId().toString())
+                        .with(societeUser()))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Long id = objectMapper.readTree(json).get("id").asLong();
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+
+        assertThat(documentRepository.findById(id).orElseThrow().getHashFichier()).isEqualTo(sha256);
+        mockMvc.perform(get("/api/documents/{id}/download", id).with(societeUser()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + sha256 + "\""))
+                .andExpect(content().bytes(content));
+        documentService.deleteDocument(id);
+    }
+
+    @Test
+    void uploadWithForgedSignatureIsRejected() throws Exception {
+        mockMvc.perform(multipart("/api/documents")
+                        .file(new MockMultipartFile("fichier", "facture.pdf", "application/pdf",
+                                "pas un PDF".getBytes(StandardCharsets.UTF_8)))
+                        .param("numeroPiece", "UP-" + UUID.randomUUID())
+                        .param("type", "FACTURE_ACHAT")
+                        .param("categorieComptable", "606")
+                        .param("datePiece", "2024-03-31")
+                        .param("montant", "10.00")
+                        .param("fournisseur", "Fournisseur")
+                        .param("exerciceComptable", "2024")
+                        .param("societeId", societe.getId().toString())
+                        .with(societeUser()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Seuls les fichiers PDF, JPG et PNG sont acceptés"));
+    }
+
+    @Test
+    void compressedFileIsSentAsStoredToGzipClients() throws Exception {
+        String eTag = "\"" + document.getHashFichier() + "-gzip\"";
+
+        byte[] encoded = mockMvc.perform(get("/api/documents/{id}/download", document.getId()).with(comptable())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(encoded.length).isLessThan(content.length);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+
+        // L'ETag de la représentation encodée ne vaut que pour elle
+        mockMvc.perform(get("/api/documents/{id}/download", document.getId()).with(comptable())
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        mockMvc.perform(get("/api/documents/{id}/download", document.getId()).with(comptable())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().bytes(content));
+    }
+
+    private RequestPostProcessor societeUser() {
+        AuthenticatedUser user = new AuthenticatedUser(2L, "societe@test.com", User.Role.SOCIETE, societe.getId(), true);
+        return authentication(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private static RequestPostProcessor comptable() {
+        AuthenticatedUser user = new AuthenticatedUser(1L, "comptable@test.com", User.Role.COMPTABLE, null, true);
+        return authentication(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
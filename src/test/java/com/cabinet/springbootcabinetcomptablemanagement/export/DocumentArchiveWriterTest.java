@@ -0,0 +1,84 @@
+package com.cabinet.springbootcabinetcomptablemanagement.export;
+
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.ResourceNotFoundException;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.services.FileStorageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Content of the audit archive, with and without read-ahead
+ */
+class DocumentArchiveWriterTest {
+
+    private static final List<ArchivedDocument> DOCUMENTS = List.of(
+            document(1L, "FA/001", "a.pdf", 3L),
+            document(2L, "FA/002", "absent.pdf", 3L),
+            document(3L, "FA/003", "b.pdf", 100_000L));
+
+    @Test
+    void writesManifestFilesAndMissingReport() throws IOException {
+        assertArchive(0);
+    }
+
+    @Test
+    void readAheadKeepsOrderAndContent() throws IOException {
+        assertArchive(2);
+    }
+
+    private void assertArchive(int readAhead) throws IOException {
+        FileStorageService storage = mock(FileStorageService.class);
+        when(storage.loadFileAsResource("a.pdf")).thenReturn(new ByteArrayResource("abc".getBytes()));
+        when(storage.loadFileAsResource("absent.pdf")).thenThrow(new ResourceNotFoundException("Fichier introuvable"));
+        when(storage.loadFileAsResource("b.pdf")).thenReturn(new ByteArrayResource(new byte[100_000]));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DocumentArchiveWriter writer = new DocumentArchiveWriter(out, storage, executor, readAhead, 1024)) {
+            List<ArchivedFile> files = writer.writeManifest(DOCUMENTS.stream());
+            assertThat(files).extracting(ArchivedFile::cheminFichier).containsExactly("a.pdf", "absent.pdf", "b.pdf");
+            assertThat(writer.writeFiles(files)).isEqualTo(2);
+            writer.finish();
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()), StandardCharsets.UTF_8)) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                entries.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        assertThat(entries.keySet()).containsExactly(DocumentArchiveWriter.MANIFEST, "2024/FACTURE_ACHAT/FA_001-1.pdf",
+                "2024/FACTURE_ACHAT/FA_003-3.pdf", DocumentArchiveWriter.MISSING_FILES);
+        assertThat(entries.get("2024/FACTURE_ACHAT/FA_001-1.pdf")).isEqualTo("abc".getBytes());
+        assertThat(entries.get("2024/FACTURE_ACHAT/FA_003-3.pdf")).hasSize(100_000);
+        assertThat(new String(entries.get(DocumentArchiveWriter.MANIFEST), StandardCharsets.UTF_8).split("\r\n")).hasSize(4);
+        assertThat(new String(entries.get(DocumentArchiveWriter.MISSING_FILES), StandardCharsets.UTF_8))
+                .contains("2024/FACTURE_ACHAT/FA_002-2.pdf;2;FA/002;");
+    }
+
+    private static ArchivedDocument document(Long id, String numeroPiece, String cheminFichier, Long taille) {
+        return new ArchivedDocument(id, "2024", numeroPiece, LocalDate.parse("2024-01-15"),
+                Document.TypeDocument.FACTURE_ACHAT, "606", "Durand", new BigDecimal("10.00"),
+                Document.StatutDocument.VALIDE, numeroPiece + ".pdf", cheminFichier, null, taille);
+    }
+}
@@ -0,0 +1,58 @@
+package com.cabinet.springbootcabinetcomptablemanagement.export;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * CSV escaping and XLSX content of the fiscal year export
+ */
+class DocumentExportWriterTest {
+
+    private static final DocumentExportRow ROW = new DocumentExportRow(7L, "FA-2024-007", LocalDate.parse("2024-03-05"),
+            Document.TypeDocument.FACTURE_ACHAT, "606", "Durand; Fils", new BigDecimal("1234.50"),
+            Document.StatutDocument.REJETE, LocalDateTime.parse("2024-03-10T09:30:00"), "=HYPERLINK(\"x\")", "facture.pdf");
+
+    @Test
+    void csvQuotesSeparatorsAndDefusesFormulas() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DocumentExportWriter writer = ExportFormat.CSV.open(out)) {
+            writer.write(ROW);
+            writer.finish();
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines[0]).startsWith("﻿ID;Numéro pièce;");
+        assertThat(lines[1]).isEqualTo("7;FA-2024-007;2024-03-05;FACTURE_ACHAT;606;\"Durand; Fils\";1234.50;REJETE;"
+                + "2024-03-10 09:30:00;\"'=HYPERLINK(\"\"x\"\")\";facture.pdf");
+    }
+
+    @Test
+    void xlsxHasTypedCells() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DocumentExportWriter writer = ExportFormat.XLSX.open(out)) {
+            writer.write(ROW);
+            writer.finish();
+        }
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Documents");
+            assertThat(sheet.getLastRowNum()).isEqualTo(1);
+            assertThat(sheet.getRow(0).getCell(1).getStringCellValue()).isEqualTo("Numéro pièce");
+            assertThat(sheet.getRow(1).getCell(6).getNumericCellValue()).isEqualTo(1234.5);
+            assertThat(sheet.getRow(1).getCell(2).getLocalDateTimeCellValue().toLocalDate()).isEqualTo(ROW.datePiece());
+            assertThat(sheet.getRow(1).getCell(9).getStringCellValue()).isEqualTo("=HYPERLINK(\"x\")");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.cabinet.springbootcabinetcomptablemanagement.extraction;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.DocumentText;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Text layer of PDFs, without OCR
+ */
+class TextExtractorTest {
+
+    private final TextExtractor extractor = new TextExtractor(
+            new TesseractOcr(false, "tesseract", "fra", Duration.ofSeconds(5), 1, 150), 40, 10);
+
+    @Test
+    void extractsAndNormalizesTheTextLayer() throws IOException {
+        TextExtractor.Extraction extraction = extractor.extract(
+                new ByteArrayResource(pdf("FACTURE   N 118", "", "Total TTC 42,00 EUR")), "application/pdf");
+
+        assertThat(extraction.methode()).isEqualTo(DocumentText.Methode.PDF);
+        assertThat(extraction.text()).isEqualTo("FACTURE N 118\nTotal TTC 42,00 EUR");
+    }
+
+    @Test
+    void noTextWithoutTextLayerOrOcr() throws IOException {
+        assertThat(extractor.extract(new ByteArrayResource(pdf()), "application/pdf").hasText()).isFalse();
+        assertThat(extractor.extract(new ByteArrayResource(new byte[]{1, 2, 3}), "image/png").hasText()).isFalse();
+        // Capped at max-chars
+        assertThat(extractor.normalize("x".repeat(100))).hasSize(40);
+    }
+
+    private static byte[] pdf(String... lines) throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            if (lines.length > 0) {
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    content.setLeading(14);
+                    content.newLineAtOffset(50, 700);
+                    for (String line : lines) {
+                        content.showText(line);
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.cabinet.springbootcabinetcomptablemanagement.repositories;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.models.DocumentCounter;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Societe;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Upsert and recount of the dashboard counters
+ */
+@DataJpaTest
+class DocumentCounterRepositoryTest {
+
+    @Autowired
+    private DocumentCounterRepository documentCounterRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void addCreatesThenIncrements() {
+        documentCounterRepository.add(1L, "2024", Document.TypeDocument.FACTURE_ACHAT, Document.StatutDocument.EN_ATTENTE, 2, new BigDecimal("100.50"));
+        documentCounterRepository.add(1L, "2024", Document.TypeDocument.FACTURE_ACHAT, Document.StatutDocument.EN_ATTENTE, -1, new BigDecimal("-40.00"));
+        DocumentCounter counter = documentCounterRepository.findById(new DocumentCounter.Key(1L, "2024",
+                Document.TypeDocument.FACTURE_ACHAT, Document.StatutDocument.EN_ATTENTE)).orElseThrow();
+        assertThat(counter.getNombre()).isEqualTo(1);
+        assertThat(counter.getMontantTotal()).isEqualByComparingTo("60.50");
+    }
+
+    @Test
+    void recountGroupsTheDocuments() {
+        Societe societe = new Societe();
+        societe.setRaisonSociale("Société recount");
+        societe.setIce("ICE-RECOUNT");
+        societe.setAdresse("Adresse");
+        societe.setTelephone("0600000000");
+        societe.setEmailContact("recount@societe.com");
+        entityManager.persist(societe);
+        persist(societe, "R-1", Document.StatutDocument.EN_ATTENTE, "10.00");
+        persist(societe, "R-2", Document.StatutDocument.EN_ATTENTE, "5.25");
+        persist(societe, "R-3", Document.StatutDocument.VALIDE, "100.00");
+        documentCounterRepository.add(societe.getId(), "2024", Document.TypeDocument.FACTURE_ACHAT,
+                Document.StatutDocument.REJETE, 7, BigDecimal.ONE);
+        entityManager.flush();
+
+        documentCounterRepository.deleteAllInBatch();
+        documentCounterRepository.insertCountsFromDocuments();
+
+        List<DocumentCounter> counters = documentCounterRepository.findNonEmpty("2024", societe.getId());
+        assertThat(counters).hasSize(2);
+        assertThat(counters).anySatisfy(counter -> {
+            assertThat(counter.getId().getStatut()).isEqualTo(Document.StatutDocument.EN_ATTENTE);
+            assertThat(counter.getNombre()).isEqualTo(2);
+            assertThat(counter.getMontantTotal()).isEqualByComparingTo("15.25");
+        });
+        assertThat(documentCounterRepository.sumBySocieteAndStatut(Document.StatutDocument.VALIDE))
+                .anySatisfy(row -> assertThat(row).containsExactly(societe.getId(), 1L));
+    }
+
+    private void persist(Societe societe, String numeroPiece, Document.StatutDocument statut, String montant) {
+        Document document = new Document();
+        document.setNumeroPiece(numeroPiece);
+        document.setType(Document.TypeDocument.FACTURE_ACHAT);
+        document.setCategorieComptable("Achats");
+        document.setDatePiece(LocalDate.of(2024, 1, 1));
+        document.setMontant(new BigDecimal(montant));
+        document.setFournisseur("Fournisseur");
+        document.setCheminFichier("fichier-" + numeroPiece);
+        document.setNomFichierOriginal("fichier.pdf");
+        document.setExerciceComptable("2024");
+        document.setStatut(statut);
+        document.setSociete(societe);
+        entityManager.persist(document);
+    }
+}
@@ -0,0 +1,176 @@
+package com.cabinet.springbootcabinetcomptablemanagement.repositories;
+
+import com.cabinet.springbootcabinetcomptablemanagement.export.ArchivedDocument;
+import com.cabinet.springbootcabinetcomptablemanagement.export.DocumentExportRow;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Societe;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs H2 {@code EXPLAIN} on the SQL Hibernate actually generates for the document
+ * queries and checks that the composite indexes declared on {@link Document} are used.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentRepositoryQueryPlanTest$SqlRecorder")
+class DocumentRepositoryQueryPlanTest {
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long societeId;
+
+    @BeforeEach
+    void seed() {
+        // ANALYZE commits, so the data set survives the test rollback and is only built once
+        if (documentRepository.count() > 0) {
+            societeId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM societes", Long.class);
+            return;
+        }
+        List<Long> societes = new ArrayList<>();
+        for (int s = 0; s < 5; s++) {
+            Societe societe = new Societe();
+            societe.setRaisonSociale("Société " + s);
+            societe.setIce("ICE" + s);
+            societe.setAdresse("Adresse " + s);
+            societe.setTelephone("0600000000");
+            societe.setEmailContact("contact" + s + "@societe.com");
+            entityManager.persist(societe);
+            societes.add(societe.getId());
+
+            for (int i = 0; i < 200; i++) {
+                Document document = new Document();
+                document.setNumeroPiece("P-" + s + "-" + i);
+                document.setType(Document.TypeDocument.FACTURE_ACHAT);
+                document.setCategorieComptable("Achats");
+                document.setDatePiece(LocalDate.of(2020 + i % 5, 1, 1));
+                document.setMontant(BigDecimal.TEN);
+                document.setFournisseur("Fournisseur " + i);
+                document.setCheminFichier("fichier-" + s + "-" + i);
+                document.setNomFichierOriginal("fichier.pdf");
+                document.setExerciceComptable(String.valueOf(2020 + i % 5));
+                document.setStatut(Document.StatutDocument.values()[i % Document.StatutDocument.values().length]);
+                document.setCreatedAt(LocalDateTime.now().minusMinutes(i));
+                document.setSociete(societe);
+                entityManager.persist(document);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        // Give the H2 optimizer real selectivity figures instead of its defaults
+        jdbcTemplate.execute("ANALYZE");
+        societeId = societes.get(0);
+    }
+
+    @Test
+    void societeAndExerciceUsesCompositeIndex() {
+        String sql = recordSql(() -> documentRepository.findBySocieteIdAndExerciceComptable(societeId, "2024"));
+
+        assertThat(explain(sql, societeId, "2024")).contains("IDX_DOCUMENTS_SOCIETE_EXERCICE");
+    }
+
+    @Test
+    void societeAndExercicePageUsesCompositeIndex() {
+        String sql = recordSql(() -> documentRepository.findPage(societeId, "2024", null, null, false, 51));
+
+        assertThat(explain(sql, societeId, "2024", 51))
+                .contains("IDX_DOCUMENTS_SOCIETE_EXERCICE")
+                .contains("INDEX SORTED");
+    }
+
+    @Test
+    void exportStreamsInCompositeIndexOrder() {
+        String sql = recordSql(() -> {
+            try (Stream<DocumentExportRow> rows = documentRepository.streamForExport(societeId, "2024")) {
+                rows.forEach(row -> { });
+            }
+        });
+
+        assertThat(explain(sql, societeId, "2024"))
+                .contains("IDX_DOCUMENTS_SOCIETE_EXERCICE")
+                .contains("INDEX SORTED");
+    }
+
+    @Test
+    void archiveStreamsInCompositeIndexOrder() {
+        String sql = recordSql(() -> {
+            try (Stream<ArchivedDocument> documents = documentRepository.streamForArchive(societeId, List.of("2024"))) {
+                documents.forEach(document -> { });
+            }
+        });
+
+        assertThat(explain(sql, societeId, "2024"))
+                .contains("IDX_DOCUMENTS_SOCIETE_EXERCICE")
+                .contains("INDEX SORTED");
+    }
+
+    @Test
+    void pendingQueuePageUsesStatutCreatedAtIndex() {
+        DocumentCursor after = new DocumentCursor(LocalDateTime.now(), Long.MAX_VALUE);
+        String sql = recordSql(() -> documentRepository.findPage(null, null, Document.StatutDocument.EN_ATTENTE,
+                after, false, 51));
+
+        assertThat(explain(sql, Document.StatutDocument.EN_ATTENTE.name(),
+                after.getCreatedAt(), after.getCreatedAt(), after.getId(), 51))
+                .contains("IDX_DOCUMENTS_STATUT_CREATED_AT")
+                .contains("INDEX SORTED");
+    }
+
+    @Test
+    void societeAndStatutUsesCompositeIndex() {
+        String sql = recordSql(() -> documentRepository.findBySocieteIdAndStatut(societeId,
+                Document.StatutDocument.EN_ATTENTE));
+
+        assertThat(explain(sql, societeId, Document.StatutDocument.EN_ATTENTE.name()))
+                .contains("IDX_DOCUMENTS_SOCIETE_STATUT");
+    }
+
+    private String recordSql(Runnable query) {
+        SqlRecorder.STATEMENTS.clear();
+        query.run();
+        return SqlRecorder.STATEMENTS.stream()
+                .filter(sql -> sql.contains("documents"))
+                .reduce((first, second) -> second)
+                .orElseThrow(() -> new AssertionError("Aucune requête sur documents enregistrée"));
+    }
+
+    private String explain(String sql, Object... parameters) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters);
+        return plan == null ? "" : plan.toUpperCase();
+    }
+
+    /**
+     * Records every SQL statement Hibernate prepares so the test can explain the real query text.
+     */
+    public static class SqlRecorder implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
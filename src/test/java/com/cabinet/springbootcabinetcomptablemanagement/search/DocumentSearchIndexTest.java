@@ -0,0 +1,153 @@
+package com.cabinet.springbootcabinetcomptablemanagement.search;
+
+import com.cabinet.springbootcabinetcomptablemanagement.dtos.request.DocumentSearchRequestDTO;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Queries, facets and generations of the search index
+ */
+class DocumentSearchIndexTest {
+
+    private DocumentSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = new DocumentSearchIndex("");
+        index.apply(List.of(
+                document(1L, 1L, "FA-2024-001", "Orange Télécom", "626", "120.00", "2024-01-15", Document.StatutDocument.VALIDE),
+                document(2L, 1L, "FA-2024-002", "Société Générale", "627", "35.50", "2024-02-03", Document.StatutDocument.EN_ATTENTE),
+                document(3L, 1L, "FA-2024-003", "Orangina Distribution", "607", "980.00", "2024-03-20", Document.StatutDocument.EN_ATTENTE),
+                document(4L, 2L, "FB-2024-001", "Orange Business", "626", "1500.00", "2024-01-28", Document.StatutDocument.REJETE)
+        ), Set.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    @Test
+    void supplierMatchesPrefixTypoAndAccents() throws IOException {
+        assertThat(search(criteria -> criteria.setFournisseur("orang")).ids()).containsExactlyInAnyOrder(1L, 3L, 4L);
+        // Two letters swapped
+        assertThat(search(criteria -> criteria.setFournisseur("ornage")).ids()).contains(1L, 4L);
+        assertThat(search(criteria -> criteria.setFournisseur("orange telecom")).ids()).containsExactly(1L);
+        assertThat(search(criteria -> criteria.setFournisseur("SOCIETE generale")).ids()).containsExactly(2L);
+    }
+
+    @Test
+    void contentMatchesWordsOfTheExtractedText() throws IOException {
+        index.apply(List.of(new IndexedDocument(5L, 1L, "FA-2024-005", Document.TypeDocument.FACTURE_ACHAT, "606",
+                LocalDate.parse("2024-04-02"), new BigDecimal("42.00"), "EDF", Document.StatutDocument.EN_ATTENTE, "2024",
+                "FACTURE N° 2024-118\nÉlectricité période du 01/03 au 31/03\nTotal TTC 42,00 EUR")), Set.of());
+
+        assertThat(search(criteria -> criteria.setTexte("electricite")).ids()).containsExactly(5L);
+        assertThat(search(criteria -> criteria.setTexte("période total")).ids()).containsExactly(5L);
+        assertThat(search(criteria -> criteria.setTexte("electri gaz")).ids()).isEmpty();
+    }
+
+    @Test
+    void filtersRangesAndFacets() throws IOException {
+        DocumentSearchIndex.SearchResult result = search(criteria -> {
+            criteria.setSocieteId(1L);
+            criteria.setMontantMin(new BigDecimal("100"));
+            criteria.setMontantMax(new BigDecimal("1000"));
+        });
+        // Most recent pièce first without a supplier criterion
+        assertThat(result.ids()).containsExactly(3L, 1L);
+        assertThat(result.total()).isEqualTo(2);
+        assertThat(result.facets().get(DocumentSearchIndex.DIM_CATEGORIE)).containsOnlyKeys("607", "626");
+        assertThat(result.facets().get(DocumentSearchIndex.DIM_STATUT))
+                .containsEntry("VALIDE", 1L)
+                .containsEntry("EN_ATTENTE", 1L);
+
+        assertThat(search(criteria -> {
+            criteria.setDateDebut(LocalDate.parse("2024-01-01"));
+            criteria.setDateFin(LocalDate.parse("2024-01-31"));
+            criteria.setCategorieComptable("626");
+        }).ids()).containsExactly(4L, 1L);
+        assertThat(search(criteria -> criteria.setNumeroPiece("fa-2024")).total()).isEqualTo(3);
+
+        // Paging keeps the total and the facets of the whole result
+        DocumentSearchIndex.SearchResult secondPage = search(criteria -> {
+            criteria.setPage(1);
+            criteria.setSize(3);
+        });
+        assertThat(secondPage.ids()).containsExactly(1L);
+        assertThat(secondPage.total()).isEqualTo(4);
+        assertThat(secondPage.facets().get(DocumentSearchIndex.DIM_TYPE)).containsEntry("FACTURE_ACHAT", 4L);
+    }
+
+    @Test
+    void updatesAndDeletesReplaceTheIndexedDocument() throws IOException {
+        index.apply(List.of(document(2L, 1L, "FA-2024-002", "Société Générale", "627", "35.50", "2024-02-03",
+                Document.StatutDocument.VALIDE)), Set.of(3L));
+
+        assertThat(search(criteria -> criteria.setStatut(Document.StatutDocument.VALIDE)).ids()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(search(criteria -> criteria.setFournisseur("orangina")).total()).isZero();
+        assertThat(index.numDocs()).isEqualTo(3);
+    }
+
+    @Test
+    void rebuiltGenerationReplacesTheCurrentOneOnDisk(@TempDir Path dir) throws IOException {
+        Instant indexedUntil = Instant.parse("2024-06-01T10:00:00Z");
+        DocumentSearchIndex onDisk = new DocumentSearchIndex(dir.toString());
+        try {
+            onDisk.apply(List.of(document(1L, 1L, "A-1", "Ancien", "606", "10", "2024-01-01", Document.StatutDocument.VALIDE)), Set.of());
+            onDisk.commit(indexedUntil);
+
+            DocumentSearchIndex.Generation rebuilt = onDisk.newGeneration();
+            onDisk.add(rebuilt, List.of(
+                    document(7L, 1L, "B-7", "Nouveau", "606", "10", "2024-01-01", Document.StatutDocument.VALIDE),
+                    document(8L, 1L, "B-8", "Nouveau", "606", "10", "2024-01-02", Document.StatutDocument.VALIDE)));
+            onDisk.publish(rebuilt, indexedUntil.plusSeconds(60));
+
+            assertThat(search(onDisk, criteria -> criteria.setFournisseur("nouveau")).ids()).containsExactly(8L, 7L);
+            assertThat(search(onDisk, criteria -> criteria.setFournisseur("ancien")).total()).isZero();
+        } finally {
+            onDisk.close();
+        }
+
+        DocumentSearchIndex reopened = new DocumentSearchIndex(dir.toString());
+        try {
+            assertThat(reopened.numDocs()).isEqualTo(2);
+            assertThat(reopened.indexedUntil()).isEqualTo(indexedUntil.plusSeconds(60));
+            assertThat(dir).isDirectoryContaining(path -> path.getFileName().toString().equals("gen-2"))
+                    .isDirectoryNotContaining(path -> path.getFileName().toString().equals("gen-1"));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private DocumentSearchIndex.SearchResult search(Consumer<DocumentSearchRequestDTO> criteria) throws IOException {
+        return search(index, criteria);
+    }
+
+    private static DocumentSearchIndex.SearchResult search(DocumentSearchIndex index,
+                                                           Consumer<DocumentSearchRequestDTO> criteria) throws IOException {
+        DocumentSearchRequestDTO request = new DocumentSearchRequestDTO();
+        criteria.accept(request);
+        return index.search(request);
+    }
+
+    private static IndexedDocument document(Long id, Long societeId, String numeroPiece, String fournisseur, String categorie,
+                                            String montant, String datePiece, Document.StatutDocument statut) {
+        return new IndexedDocument(id, societeId, numeroPiece, Document.TypeDocument.FACTURE_ACHAT, categorie,
+                LocalDate.parse(datePiece), new BigDecimal(montant), fournisseur, statut, "2024", null);
+    }
+}
@@ -0,0 +1,78 @@
+package com.cabinet.springbootcabinetcomptablemanagement.security;
+
+import com.cabinet.springbootcabinetcomptablemanagement.models.User;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.UtilisateurRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Principal cache against a user update committed while the user is being loaded
+ */
+class CustomUserDetailsServiceTest {
+
+    private static final String EMAIL = "mohamed@societe.com";
+
+    @Test
+    void loadStartedBeforeCommitIsNotCachedAfterEvict() throws Exception {
+        AtomicBoolean actif = new AtomicBoolean(true);
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        UtilisateurRepository repository = mock(UtilisateurRepository.class);
+        when(repository.findByEmail(EMAIL)).thenAnswer(invocation -> {
+            User row = user(actif.get());
+            if (readStarted.getCount() > 0) {
+                // First load: the row is read before the deactivation commits, the load finishes after it
+                readStarted.countDown();
+                committed.await(5, TimeUnit.SECONDS);
+            }
+            return Optional.of(row);
+        });
+        CustomUserDetailsService service = new CustomUserDetailsService(repository, Duration.ofMinutes(5), 100);
+
+        CompletableFuture<AuthenticatedUser> staleLoad = CompletableFuture.supplyAsync(
+                () -> service.loadAuthenticatedUser(EMAIL));
+        assertThat(readStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Deactivation in a transaction: evict, commit, then the post-commit eviction runs
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.evict(EMAIL);
+            actif.set(false);
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+                    TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+        committed.countDown();
+
+        assertThat(staleLoad.get(5, TimeUnit.SECONDS).isEnabled()).isTrue();
+        assertThat(service.loadAuthenticatedUser(EMAIL).isEnabled()).isFalse();
+    }
+
+    private static User user(boolean actif) {
+        User user = new User();
+        user.setId(1L);
+        user.setEmail(EMAIL);
+        user.setRole(User.Role.SOCIETE);
+        user.setActif(actif);
+        return user;
+    }
+}
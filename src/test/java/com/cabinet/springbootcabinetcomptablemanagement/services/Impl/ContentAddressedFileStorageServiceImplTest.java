@@ -0,0 +1,60 @@
+package com.cabinet.springbootcabinetcomptablemanagement.services.Impl;
+
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.FileStorageException;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.BlobReferenceRegistry;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StorageBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Blob reference counting when the storage backend fails
+ */
+class ContentAddressedFileStorageServiceImplTest {
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void referenceIsReleasedWhenTheBlobCannotBeWritten() throws Exception {
+        byte[] content = "%PDF-1.4 facture".getBytes(StandardCharsets.US_ASCII);
+        String sha256 = sha256(content);
+        StorageBackend backend = mock(StorageBackend.class);
+        when(backend.name()).thenReturn("test");
+        doThrow(new IOException("Stockage indisponible")).when(backend).put(anyString(), any(Path.class), any());
+        BlobReferenceRegistry registry = mock(BlobReferenceRegistry.class);
+        when(registry.acquire(anyString(), anyLong())).thenReturn(true);
+        ContentAddressedFileStorageServiceImpl storageService = new ContentAddressedFileStorageServiceImpl(
+                uploadDir.toString(), DataSize.ofMegabytes(10), "none", 6, false, backend, Optional.empty(),
+                registry, new SimpleMeterRegistry());
+
+        assertThatThrownBy(() -> storageService.storeFile(
+                new MockMultipartFile("file", "facture.pdf", "application/pdf", content)))
+                .isInstanceOf(FileStorageException.class);
+        verify(registry).acquire(sha256, content.length);
+        verify(registry).release(sha256);
+    }
+
+    private static String sha256(byte[] content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,69 @@
+package com.cabinet.springbootcabinetcomptablemanagement.services.Impl;
+
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.InvalidFileException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Manifest formats accepted by the bulk upload (POST /api/documents/bulk)
+ */
+class DocumentManifestParserTest {
+
+    private final DocumentManifestParser parser = new DocumentManifestParser(new ObjectMapper());
+
+    @Test
+    void readsSemicolonCsvWithQuotesAndDecimalComma() {
+        String csv = "\uFEFFfichier;numeroPiece;montant;fournisseur\r\n"
+                + "t1.pdf;TK-001;12,50;\"Café; Bar \"\"Le Port\"\"\"\r\n"
+                + "\r\n"
+                + "t2.pdf;TK-002;;\"Station\nAïn Sebaâ\"\n";
+
+        List<Map<String, Object>> lines = parser.parse(manifest("manifest.csv", "text/csv", csv));
+
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).containsEntry("fichier", "t1.pdf")
+                .containsEntry("montant", "12.50")
+                .containsEntry("fournisseur", "Café; Bar \"Le Port\"");
+        assertThat(lines.get(1)).doesNotContainKey("montant")
+                .containsEntry("fournisseur", "Station\nAïn Sebaâ");
+    }
+
+    @Test
+    void keepsDecimalPointWithCommaSeparator() {
+        String csv = "fichier,numeroPiece,montant\nt1.pdf,TK-001,12.50\n";
+
+        assertThat(parser.parse(manifest("manifest.csv", "text/csv", csv)))
+                .singleElement()
+                .satisfies(line -> assertThat(line).containsEntry("montant", "12.50"));
+    }
+
+    @Test
+    void readsJsonArray() {
+        String json = "[{\"fichier\":\"t1.pdf\",\"numeroPiece\":\"TK-001\",\"montant\":12.5}]";
+
+        List<Map<String, Object>> lines = parser.parse(manifest("manifest.json", "application/octet-stream", json));
+
+        assertThat(lines).singleElement()
+                .satisfies(line -> assertThat(line).containsEntry("numeroPiece", "TK-001").containsEntry("montant", 12.5));
+    }
+
+    @Test
+    void rejectsUnterminatedQuote() {
+        String csv = "fichier;numeroPiece\nt1.pdf;\"TK-001\n";
+
+        assertThatThrownBy(() -> parser.parse(manifest("manifest.csv", "text/csv", csv)))
+                .isInstanceOf(InvalidFileException.class);
+    }
+
+    private static MockMultipartFile manifest(String name, String contentType, String content) {
+        return new MockMultipartFile("manifest", name, contentType, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,167 @@
+package com.cabinet.springbootcabinetcomptablemanagement.services.Impl;
+
+import com.cabinet.springbootcabinetcomptablemanagement.exceptions.DocumentConflictException;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Document;
+import com.cabinet.springbootcabinetcomptablemanagement.models.Societe;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.SocieteRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.services.DocumentService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Accountants racing to validate / reject the same pending document: exactly one decision is applied,
+ * every other one gets a DocumentConflictException (409) and the row is written once.
+ */
+@SpringBootTest
+class DocumentStatusTransitionConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private SocieteRepository societeRepository;
+
+    private Societe societe;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        societe = new Societe();
+        societe.setRaisonSociale("Société concurrence " + suffix);
+        societe.setIce("ICE-CAS-" + suffix);
+        societe.setAdresse("Adresse");
+        societe.setTelephone("0600000000");
+        societe.setEmailContact("cas-" + suffix + "@societe.com");
+        societe = societeRepository.save(societe);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        documentRepository.deleteAll(documentRepository.findBySocieteId(societe.getId()));
+        societeRepository.delete(societe);
+    }
+
+    @Test
+    void exactlyOneConcurrentDecisionWins() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Long id = pendingDocument().getId();
+            CyclicBarrier start = new CyclicBarrier(THREADS);
+
+            List<Future<Document.StatutDocument>> decisions = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                boolean valider = t % 2 == 0;
+                decisions.add(executor.submit(() -> {
+                    start.await(10, TimeUnit.SECONDS);
+                    try {
+                        return valider
+                                ? documentService.validateDocument(id, "ok", null).getStatut()
+                                : documentService.rejectDocument(id, "illisible", null).getStatut();
+                    } catch (DocumentConflictException e) {
+                        return null;
+                    }
+                }));
+            }
+
+            List<Document.StatutDocument> winners = new ArrayList<>();
+            for (Future<Document.StatutDocument> decision : decisions) {
+                Document.StatutDocument statut = decision.get(30, TimeUnit.SECONDS);
+                if (statut != null) {
+                    winners.add(statut);
+                }
+            }
+
+            Document stored = documentRepository.findById(id).orElseThrow();
+            assertThat(winners).as("round %d", round).hasSize(1);
+            assertThat(stored.getStatut()).isEqualTo(winners.get(0));
+            assertThat(stored.getVersion()).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    void decisionOnStaleVersionIsRejected() {
+        Document document = pendingDocument();
+
+        assertThatThrownBy(() -> documentService.validateDocument(document.getId(), null, document.getVersion() + 1))
+                .isInstanceOf(DocumentConflictException.class);
+        assertThat(documentRepository.findById(document.getId()).orElseThrow().getStatut())
+                .isEqualTo(Document.StatutDocument.EN_ATTENTE);
+
+        Document validated = documentService.validateDocument(document.getId(), null, document.getVersion());
+        assertThat(validated.getStatut()).isEqualTo(Document.StatutDocument.VALIDE);
+        assertThat(validated.getVersion()).isEqualTo(document.getVersion() + 1);
+    }
+
+    @Test
+    void saveFromStaleCopyFails() {
+        Document document = pendingDocument();
+        Document first = documentRepository.findById(document.getId()).orElseThrow();
+        Document second = documentRepository.findById(document.getId()).orElseThrow();
+
+        first.setFournisseur("Fournisseur A");
+        documentRepository.save(first);
+        second.setFournisseur("Fournisseur B");
+
+        assertThatThrownBy(() -> documentRepository.save(second))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void updateFromStaleCopyIsReportedAsConflict() {
+        Document document = pendingDocument();
+        Document stale = documentRepository.findById(document.getId()).orElseThrow();
+        documentService.validateDocument(document.getId(), null, null);
+        MockMultipartFile fichier = new MockMultipartFile("fichier", "facture.pdf", "application/pdf",
+                "%PDF-1.4 facture corrigée".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> documentService.updateDocument(stale, fichier))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(documentRepository.findById(document.getId()).orElseThrow().getStatut())
+                .isEqualTo(Document.StatutDocument.VALIDE);
+    }
+
+    private Document pendingDocument() {
+        Document document = new Document();
+        document.setNumeroPiece("CAS-" + UUID.randomUUID());
+        document.setType(Document.TypeDocument.FACTURE_ACHAT);
+        document.setCategorieComptable("Achats");
+        document.setDatePiece(LocalDate.now());
+        document.setMontant(BigDecimal.TEN);
+        document.setFournisseur("Fournisseur");
+        document.setCheminFichier("fichier.pdf");
+        document.setNomFichierOriginal("fichier.pdf");
+        document.setExerciceComptable("2024");
+        document.setSociete(societe);
+        return documentRepository.save(document);
+    }
+}
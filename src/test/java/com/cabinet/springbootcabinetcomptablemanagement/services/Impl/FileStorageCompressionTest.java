@@ -0,0 +1,83 @@
+package com.cabinet.springbootcabinetcomptablemanagement.services.Impl;
+
+import com.cabinet.springbootcabinetcomptablemanagement.storage.CompressedFileResource;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.FileCompression;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.LocalStorageBackend;
+import com.cabinet.springbootcabinetcomptablemanagement.storage.StoredFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Storage compression (file.storage.compression=gzip): what gets compressed, and reading it back
+ */
+class FileStorageCompressionTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private FileStorageServiceImpl storageService;
+
+    @BeforeEach
+    void setUp() {
+        storageService = new FileStorageServiceImpl(uploadDir.toString(), DataSize.ofMegabytes(10), "gzip", 6, false,
+                new LocalStorageBackend(uploadDir), Optional.empty(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void textPdfIsStoredCompressedAndReadBackDecoded() throws IOException {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        pdf.write("%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < 5000; i++) {
+            pdf.write(("BT /F1 10 Tf 72 " + i + " Td (Relevé bancaire ligne " + i + ") Tj ET\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] content = pdf.toByteArray();
+
+        StoredFile stored = storageService.storeFile(new MockMultipartFile("file", "releve.pdf", "application/pdf", content));
+
+        assertThat(stored.getFileName()).endsWith(FileCompression.GZIP_SUFFIX);
+        assertThat(stored.getSize()).isEqualTo(content.length);
+        assertThat(Files.size(uploadDir.resolve(stored.getFileName()))).isLessThan(content.length / 4);
+
+        Resource resource = storageService.loadFileAsResource(stored.getFileName());
+        assertThat(resource).isInstanceOf(CompressedFileResource.class);
+        assertThat(resource.contentLength()).isEqualTo(content.length);
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+        assertThat(storageService.loadFile(stored.getFileName())).isEqualTo(content);
+    }
+
+    @Test
+    void incompressibleContentIsStoredAsIs() throws IOException {
+        // Scanned pages: a PDF whose content is already compressed image data
+        byte[] scan = new byte[200_000];
+        new Random(42).nextBytes(scan);
+        System.arraycopy("%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII), 0, scan, 0, 9);
+        byte[] png = new byte[10_000];
+        System.arraycopy(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, 0, png, 0, 8);
+
+        StoredFile storedScan = storageService.storeFile(new MockMultipartFile("file", "scan.pdf", "application/pdf", scan));
+        StoredFile storedPng = storageService.storeFile(new MockMultipartFile("file", "logo.png", "image/png", png));
+
+        assertThat(storedScan.getFileName()).doesNotEndWith(FileCompression.GZIP_SUFFIX);
+        assertThat(storedPng.getFileName()).doesNotEndWith(FileCompression.GZIP_SUFFIX);
+        assertThat(Files.readAllBytes(uploadDir.resolve(storedPng.getFileName()))).isEqualTo(png);
+    }
+}
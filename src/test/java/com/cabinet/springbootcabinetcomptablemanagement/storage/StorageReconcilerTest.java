@@ -0,0 +1,76 @@
+package com.cabinet.springbootcabinetcomptablemanagement.storage;
+
+import com.cabinet.springbootcabinetcomptablemanagement.repositories.DocumentRepository;
+import com.cabinet.springbootcabinetcomptablemanagement.services.Impl.FileStorageServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Merge of the storage listing with the document keys, on the local backend
+ */
+class StorageReconcilerTest {
+
+    @TempDir
+    Path uploadDir;
+
+    @Test
+    void deletesOldOrphansAndReportsMissingFiles() throws IOException {
+        LocalStorageBackend backend = new LocalStorageBackend(uploadDir);
+        FileStorageServiceImpl storageService = new FileStorageServiceImpl(uploadDir.toString(), DataSize.ofMegabytes(10),
+                "none", 6, false, backend, Optional.empty(), new SimpleMeterRegistry());
+
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        store("a_orphelin.pdf", old);
+        store("b_facture.pdf", old);
+        store("c_recent.pdf", Instant.now());
+        store("ab/cd/orphelin", old);
+        store(".staging/upload-1.part", old);
+
+        // Documents point to b_facture.pdf and to a file that is not stored any more
+        Set<String> documentKeys = Set.of("b_facture.pdf", "d_disparu.pdf");
+        DocumentRepository documentRepository = mock(DocumentRepository.class);
+        when(documentRepository.findStorageKeysAfter(anyString(), any(Limit.class))).thenAnswer(invocation -> {
+            String after = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(1);
+            return documentKeys.stream().filter(key -> key.compareTo(after) > 0).sorted().limit(limit.max()).toList();
+        });
+        when(documentRepository.countByCheminFichier(anyString()))
+                .thenAnswer(invocation -> documentKeys.contains(invocation.<String>getArgument(0)) ? 1L : 0L);
+
+        StorageReconciler reconciler = new StorageReconciler(backend, documentRepository, storageService,
+                Duration.ofHours(1), true, 1000, 100, 1, new SimpleMeterRegistry());
+        StorageReconciler.Report report = reconciler.reconcile();
+
+        assertThat(report).isEqualTo(new StorageReconciler.Report(4, 3, 2, 1));
+        try (var listing = backend.list()) {
+            assertThat(listing.map(StoredObject::key).toList()).isEqualTo(List.of("b_facture.pdf", "c_recent.pdf"));
+        }
+        assertThat(uploadDir.resolve(".staging/upload-1.part")).exists();
+    }
+
+    private void store(String key, Instant lastModified) throws IOException {
+        Path path = uploadDir.resolve(key);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, key);
+        Files.setLastModifiedTime(path, FileTime.from(lastModified));
+    }
+}